@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic Subversion log files, generated using {@link SvnLogGenerator}, used as benchmark input.
+ */
+public final class BenchmarkLogs {
+
+	private BenchmarkLogs() {
+	}
+
+	/**
+	 * Write a log file with given number of entries, made by given number of authors, to a temporary file.
+	 */
+	public static File writeLogFile(int entries, int authors) throws IOException {
+		File logFile = File.createTempFile("svn-logstats-benchmark", ".xml");
+		logFile.deleteOnExit();
+		SvnLogGenerator generator = new SvnLogGenerator();
+		generator.setEntries(entries);
+		generator.setAuthors(authors);
+		generator.generate(logFile);
+		return logFile;
+	}
+
+	/**
+	 * Parse given log file and return all its entries.
+	 */
+	public static List<SvnLogEntry> readLogEntries(File logFile) throws Exception {
+		return readLogEntries(logFile, new SvnLogSymbols());
+	}
+
+	/**
+	 * Parse given log file using given symbols and return all its entries.
+	 */
+	public static List<SvnLogEntry> readLogEntries(File logFile, SvnLogSymbols symbols) throws Exception {
+		List<SvnLogEntry> logEntries = new ArrayList<>();
+		new SvnLogCursorParser(logEntries::add, symbols).parse(logFile);
+		return logEntries;
+	}
+}
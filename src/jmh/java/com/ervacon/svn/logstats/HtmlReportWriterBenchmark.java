@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time needed by {@link HtmlReportWriter#writeReport()} for a varying number of authors and render
+ * threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlReportWriterBenchmark {
+
+	@Param({"10", "100", "1000"})
+	public int authors;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	private SvnLogEntryAggregator aggregator;
+	private File reportFile;
+
+	@Setup
+	public void setup() throws Exception {
+		File logFile = BenchmarkLogs.writeLogFile(authors * 100, authors);
+		aggregator = new SvnLogEntryAggregator();
+		new SvnLogCursorParser(aggregator).parse(logFile);
+		logFile.delete();
+		reportFile = File.createTempFile("svn-logstats-benchmark", ".html");
+	}
+
+	@TearDown
+	public void tearDown() {
+		reportFile.delete();
+	}
+
+	@Benchmark
+	public void writeReport(Throughput throughput) throws Exception {
+		HtmlReportWriter reportWriter = new HtmlReportWriter(aggregator, reportFile);
+		reportWriter.setThreads(threads);
+		reportWriter.writeReport();
+		throughput.bytes += reportFile.length();
+	}
+}
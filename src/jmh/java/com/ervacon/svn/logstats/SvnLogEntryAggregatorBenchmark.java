@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link SvnLogEntryAggregator#process(SvnLogEntry)} and
+ * {@link SvnAuthorStats#updateWith(SvnLogEntry)} on log entries that were parsed up front.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SvnLogEntryAggregatorBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	public int entries;
+
+	/**
+	 * Whether the aggregator shares the symbols of the parser, allowing it to use symbol ids.
+	 */
+	@Param({"true", "false"})
+	public boolean sharedSymbols;
+
+	private SvnLogSymbols symbols;
+	private List<SvnLogEntry> logEntries;
+
+	@Setup
+	public void setup() throws Exception {
+		File logFile = BenchmarkLogs.writeLogFile(entries, 50);
+		symbols = new SvnLogSymbols();
+		logEntries = BenchmarkLogs.readLogEntries(logFile, symbols);
+		logFile.delete();
+	}
+
+	@Benchmark
+	public SvnLogEntryAggregator process(Throughput throughput) {
+		SvnLogEntryAggregator aggregator = sharedSymbols ? new SvnLogEntryAggregator(symbols)
+				: new SvnLogEntryAggregator();
+		for (SvnLogEntry logEntry : logEntries) {
+			aggregator.process(logEntry);
+		}
+		throughput.entries += entries;
+		return aggregator;
+	}
+
+	@Benchmark
+	public SvnAuthorStats updateWith(Throughput throughput) {
+		SvnAuthorStats stats = sharedSymbols ? new SvnAuthorStats("author", symbols.extensions)
+				: new SvnAuthorStats("author");
+		for (SvnLogEntry logEntry : logEntries) {
+			String author = logEntry.author;
+			logEntry.author = stats.author;
+			stats.updateWith(logEntry);
+			logEntry.author = author;
+		}
+		throughput.entries += entries;
+		return stats;
+	}
+}
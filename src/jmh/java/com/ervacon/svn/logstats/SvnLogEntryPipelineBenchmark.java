@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of aggregating log entries that were parsed up front through a {@link SvnLogEntryPipeline}
+ * with a number of workers, with and without the opt-in analyses of the {@link SvnLogEntryAggregator}. The entries per
+ * second can be compared with those of {@link SvnLogParserBenchmark} to check whether aggregation keeps up with
+ * parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SvnLogEntryPipelineBenchmark {
+
+	@Param({"100000"})
+	public int entries;
+
+	/**
+	 * The number of pipeline workers, or 0 to aggregate on the calling thread.
+	 */
+	@Param({"0", "1", "2", "4"})
+	public int workers;
+
+	/**
+	 * Whether the aggregator tracks the hotspots, distinct counts per month and co-changes.
+	 */
+	@Param({"true", "false"})
+	public boolean analyses;
+
+	private SvnLogSymbols symbols;
+	private List<SvnLogEntry> logEntries;
+
+	@Setup
+	public void setup() throws Exception {
+		File logFile = BenchmarkLogs.writeLogFile(entries, 50);
+		symbols = new SvnLogSymbols();
+		logEntries = BenchmarkLogs.readLogEntries(logFile, symbols);
+		logFile.delete();
+	}
+
+	@Benchmark
+	public SvnLogEntryAggregator aggregate(Throughput throughput) {
+		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator(symbols);
+		if (analyses) {
+			aggregator.setDirectoryHotspots(new DirectoryHotspots());
+			aggregator.setDistinctTimeline(new DistinctTimeSeries(TimeSeries.Resolution.MONTH,
+					HyperLogLog.DEFAULT_PRECISION));
+			aggregator.setCoChanges(new CoChangeAnalyzer());
+		}
+		if (workers == 0) {
+			logEntries.forEach(aggregator::process);
+		} else {
+			try (SvnLogEntryPipeline pipeline = new SvnLogEntryPipeline(aggregator, workers, 256, 16)) {
+				logEntries.forEach(pipeline::process);
+			}
+		}
+		throughput.entries += entries;
+		return aggregator;
+	}
+}
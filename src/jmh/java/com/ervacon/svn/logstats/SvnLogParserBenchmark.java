@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of the available {@link SvnLogParser} engines, and of replaying a {@link SvnLogCacheWriter
+ * cache} of the same log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SvnLogParserBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	public int entries;
+
+	@Param({"event", "cursor", "scan", "cache"})
+	public String parser;
+
+	private File logFile;
+	private File cacheFile;
+
+	@Setup
+	public void setup() throws Exception {
+		logFile = BenchmarkLogs.writeLogFile(entries, 50);
+		if (parser.equals("cache")) {
+			cacheFile = File.createTempFile("svn-logstats-benchmark", ".cache");
+			try (SvnLogCacheWriter cacheWriter = new SvnLogCacheWriter(cacheFile, logFile, true)) {
+				new SvnLogScanner(cacheWriter).parse(logFile);
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		logFile.delete();
+		if (cacheFile != null) {
+			cacheFile.delete();
+		}
+	}
+
+	@Benchmark
+	public void parse(Throughput throughput, Blackhole blackhole) throws Exception {
+		if (cacheFile != null) {
+			new SvnLogCacheReader(blackhole::consume, new SvnLogSymbols()).replay(cacheFile);
+		} else {
+			SvnLogStats.newParser(parser, blackhole::consume, new SvnLogSymbols()).parse(logFile);
+		}
+		throughput.entries += entries;
+		throughput.bytes += logFile.length();
+	}
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import com.ervacon.svn.logstats.SvnLogEntryPath.PathKind;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link SvnLogEntryProcessor} that finds coupled files: pairs of files that are frequently changed in the same commit.
+ * <p>
+ * Counting all pairs exactly takes memory quadratic in the number of files, so pairs are counted approximately, using
+ * fixed memory:
+ * <ul>
+ * <li>Commits changing more than a maximum number of files, e.g. branch copies or mass reformats, are skipped since
+ * they say little about coupling and would dominate the work.</li>
+ * <li>Every pair of files is counted in a count-min sketch with conservative updates. The sketch never underestimates
+ * and typically overestimates rare pairs only a little.</li>
+ * <li>Pairs reaching the minimum support become candidates. When there are twice as many candidates as the configured
+ * capacity, the rare ones are pruned and new candidates need to beat the weakest remaining candidate.</li>
+ * </ul>
+ * The counts reported for the candidates are the sketch estimates. Analyzers using the same sketch width can be
+ * {@link #merge(CoChangeAnalyzer) merged}; when the widths differ, the wider sketch is folded to the narrower one.
+ * <p>
+ * Updating and merging the analyzer is thread-safe.
+ *
+ * @author Erwin Vervaet
+ */
+public class CoChangeAnalyzer implements SvnLogEntryProcessor, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_MAX_PATHS_PER_COMMIT = 50;
+	public static final int DEFAULT_MIN_SUPPORT = 3;
+	public static final int DEFAULT_SKETCH_WIDTH = 1 << 16; // 1MB of counters
+	public static final int DEFAULT_CAPACITY = 1000;
+
+	private static final int SKETCH_DEPTH = 4;
+
+	/**
+	 * A pair of files changed together, with the (estimated) number of commits changing both.
+	 */
+	public static class CoChange {
+
+		public final String path1;
+		public final String path2;
+		public final long count;
+
+		public CoChange(String path1, String path2, long count) {
+			this.path1 = path1;
+			this.path2 = path2;
+			this.count = count;
+		}
+	}
+
+	private final int maxPathsPerCommit;
+	private final int minSupport;
+	private final int capacity;
+	private int width;
+	private int[] sketch; // SKETCH_DEPTH rows of width counters
+	private final Map<Long, String[]> candidates = new HashMap<>();
+	private long admissionThreshold;
+	private long commits = 0;
+	private long skippedCommits = 0;
+	private transient String[] paths;
+	private transient long[] hashes;
+
+	public CoChangeAnalyzer() {
+		this(DEFAULT_MAX_PATHS_PER_COMMIT, DEFAULT_MIN_SUPPORT, DEFAULT_SKETCH_WIDTH, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a new analyzer.
+	 *
+	 * @param maxPathsPerCommit commits changing more files are skipped
+	 * @param minSupport the number of commits a pair of files needs to be changed in to be reported
+	 * @param sketchWidth the number of counters per row of the count-min sketch, a power of 2: the sketch takes
+	 * <i>16 * sketchWidth</i> bytes
+	 * @param capacity the number of pairs to track
+	 */
+	public CoChangeAnalyzer(int maxPathsPerCommit, int minSupport, int sketchWidth, int capacity) {
+		if (maxPathsPerCommit < 2 || minSupport < 1 || capacity < 1) {
+			throw new IllegalArgumentException(
+					"Need at least 2 paths per commit, a minimum support of at least 1 and a capacity of at least 1");
+		}
+		if (sketchWidth < 1 || Integer.bitCount(sketchWidth) != 1) {
+			throw new IllegalArgumentException("Sketch width should be a power of 2");
+		}
+		this.maxPathsPerCommit = maxPathsPerCommit;
+		this.minSupport = minSupport;
+		this.capacity = capacity;
+		this.width = sketchWidth;
+		this.sketch = new int[SKETCH_DEPTH * sketchWidth];
+		this.admissionThreshold = minSupport;
+	}
+
+	public int getMaxPathsPerCommit() {
+		return maxPathsPerCommit;
+	}
+
+	public int getMinSupport() {
+		return minSupport;
+	}
+
+	@Override
+	public synchronized void process(SvnLogEntry logEntry) {
+		commits++;
+		if (paths == null) {
+			paths = new String[maxPathsPerCommit];
+			hashes = new long[maxPathsPerCommit];
+		}
+		int n = 0;
+		for (int i = 0; i < logEntry.paths.size(); i++) {
+			SvnLogEntryPath path = logEntry.paths.get(i);
+			if (path.kind != PathKind.DIR) {
+				if (n == maxPathsPerCommit) {
+					skippedCommits++;
+					return;
+				}
+				paths[n] = path.path;
+				hashes[n] = path.getPathHash();
+				n++;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				long pairHash = pairHash(hashes[i], hashes[j]);
+				long estimate = increment(pairHash);
+				if (estimate >= admissionThreshold) {
+					admit(pairHash, paths[i], paths[j]);
+				}
+			}
+		}
+	}
+
+	private long increment(long pairHash) {
+		// conservative update: only raise the counters that are at the current minimum
+		int h1 = (int) pairHash;
+		int h2 = (int) (pairHash >>> 32);
+		int mask = width - 1;
+		int min = Integer.MAX_VALUE;
+		for (int row = 0; row < SKETCH_DEPTH; row++) {
+			min = Math.min(min, sketch[row * width + ((h1 + row * h2) & mask)]);
+		}
+		if (min == Integer.MAX_VALUE) {
+			return min; // saturated
+		}
+		for (int row = 0; row < SKETCH_DEPTH; row++) {
+			int idx = row * width + ((h1 + row * h2) & mask);
+			if (sketch[idx] == min) {
+				sketch[idx] = min + 1;
+			}
+		}
+		return min + 1L;
+	}
+
+	private long estimate(long pairHash) {
+		int h1 = (int) pairHash;
+		int h2 = (int) (pairHash >>> 32);
+		int mask = width - 1;
+		int min = Integer.MAX_VALUE;
+		for (int row = 0; row < SKETCH_DEPTH; row++) {
+			min = Math.min(min, sketch[row * width + ((h1 + row * h2) & mask)]);
+		}
+		return min;
+	}
+
+	private void admit(long pairHash, String path1, String path2) {
+		Long key = pairHash;
+		if (!candidates.containsKey(key)) {
+			candidates.put(key, path1.compareTo(path2) <= 0 ? new String[] { path1, path2 } : new String[] { path2, path1 });
+			if (candidates.size() >= 2 * capacity) {
+				prune();
+			}
+		}
+	}
+
+	private void prune() {
+		List<Map.Entry<Long, Long>> estimates = new ArrayList<>(candidates.size());
+		for (Long pairHash : candidates.keySet()) {
+			estimates.add(new AbstractMap.SimpleEntry<>(pairHash, estimate(pairHash)));
+		}
+		estimates.sort((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()));
+		for (int i = capacity; i < estimates.size(); i++) {
+			candidates.remove(estimates.get(i).getKey());
+		}
+		admissionThreshold = Math.max(minSupport, estimates.get(Math.min(capacity, estimates.size()) - 1).getValue() + 1);
+	}
+
+	/**
+	 * Merge the counts of given analyzer into this analyzer. The other analyzer is not modified.
+	 *
+	 * @param other the analyzer to merge
+	 */
+	public void merge(CoChangeAnalyzer other) {
+		int otherWidth;
+		int[] otherSketch;
+		Map<Long, String[]> otherCandidates;
+		long otherCommits;
+		long otherSkippedCommits;
+		synchronized (other) {
+			otherWidth = other.width;
+			otherSketch = other.sketch.clone();
+			otherCandidates = new HashMap<>(other.candidates);
+			otherCommits = other.commits;
+			otherSkippedCommits = other.skippedCommits;
+		}
+		synchronized (this) {
+			if (otherWidth < width) {
+				sketch = fold(sketch, width, otherWidth);
+				width = otherWidth;
+			} else if (otherWidth > width) {
+				otherSketch = fold(otherSketch, otherWidth, width);
+			}
+			for (int i = 0; i < sketch.length; i++) {
+				sketch[i] = (int) Math.min(Integer.MAX_VALUE, (long) sketch[i] + otherSketch[i]);
+			}
+			otherCandidates.forEach(candidates::putIfAbsent);
+			commits += otherCommits;
+			skippedCommits += otherSkippedCommits;
+			if (candidates.size() > capacity) {
+				prune();
+			}
+		}
+	}
+
+	private static int[] fold(int[] sketch, int width, int newWidth) {
+		// counters are indexed by the low bits of the hash, so dropping bits adds up counters
+		int[] folded = new int[SKETCH_DEPTH * newWidth];
+		for (int row = 0; row < SKETCH_DEPTH; row++) {
+			for (int i = 0; i < width; i++) {
+				int idx = row * newWidth + (i & (newWidth - 1));
+				folded[idx] = (int) Math.min(Integer.MAX_VALUE, (long) folded[idx] + sketch[row * width + i]);
+			}
+		}
+		return folded;
+	}
+
+	/**
+	 * Returns the number of commits seen by this analyzer.
+	 */
+	public synchronized long getCommits() {
+		return commits;
+	}
+
+	/**
+	 * Returns the number of commits that were skipped because they changed too many files.
+	 */
+	public synchronized long getSkippedCommits() {
+		return skippedCommits;
+	}
+
+	/**
+	 * Returns the pairs of files most frequently changed together, most frequent first. Only pairs reaching the minimum
+	 * support are returned.
+	 *
+	 * @param n the maximum number of pairs to return
+	 */
+	public synchronized List<CoChange> getTopCoChanges(int n) {
+		List<CoChange> top = new ArrayList<>();
+		candidates.forEach((pairHash, pair) -> {
+			long count = estimate(pairHash);
+			if (count >= minSupport) {
+				top.add(new CoChange(pair[0], pair[1], count));
+			}
+		});
+		top.sort((c1, c2) -> c1.count != c2.count ? Long.compare(c2.count, c1.count)
+				: (c1.path1 + c1.path2).compareTo(c2.path1 + c2.path2));
+		return top.subList(0, Math.min(n, top.size()));
+	}
+
+	private static long pairHash(long hash1, long hash2) {
+		// order independent, mixed using the MurmurHash3 finalizer
+		long hash = Math.min(hash1, hash2) * 0x9e3779b97f4a7c15L + Math.max(hash1, hash2);
+		hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+		hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return hash ^ (hash >>> 33);
+	}
+}
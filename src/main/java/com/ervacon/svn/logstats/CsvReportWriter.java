@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import com.ervacon.svn.logstats.SvnLogEntryPath.PathAction;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes the per-author statistics calculated by a {@link SvnLogEntryAggregator} to a CSV file, for consumption by
+ * spreadsheets and other tools.
+ * <p>
+ * The file has a header row followed by one row per author, sorted by author name, and is streamed to the file one
+ * author at a time. Fields are separated by commas and quoted when needed, and rows end with CRLF, as described in
+ * RFC 4180. Global statistics that do not fit a row per author, e.g. hotspots, are only available in the JSON report.
+ *
+ * @see JsonReportWriter
+ *
+ * @author Erwin Vervaet
+ */
+public class CsvReportWriter implements ReportWriter {
+
+	private static final String ROW_END = "\r\n";
+
+	private final SvnLogEntryAggregator aggregator;
+	private final File reportFile;
+
+	public CsvReportWriter(SvnLogEntryAggregator aggregator, File reportFile) {
+		this.aggregator = requireNonNull(aggregator);
+		this.reportFile = requireNonNull(reportFile);
+	}
+
+	@Override
+	public void writeReport() throws IOException {
+		try (Writer out = Util.openUtf8Writer(reportFile)) {
+			writeReport(out);
+		}
+	}
+
+	@Override
+	public void writeReport(Writer out) throws IOException {
+		out.write("author,commits,firstCommit,lastCommit,added,deleted,modified,replaced,emptyMessages,"
+				+ "averageCommitSize,averageMessageLength,distinctPaths");
+		for (String histogram : new String[] { "commitSize", "messageLength" }) {
+			for (int percentile : ReportRollups.PERCENTILES) {
+				out.write("," + histogram + "P" + percentile);
+			}
+			out.write("," + histogram + "Max");
+		}
+		for (int i = 0; i < 24; i++) {
+			out.write(",commitsAt" + i + "h");
+		}
+		out.write(ROW_END);
+
+		for (SvnAuthorStats stats : aggregator.getStats()) {
+			writeText(out, stats.author);
+			writeField(out, stats.commits);
+			writeField(out, stats.getFirstCommit().format(ISO_OFFSET_DATE_TIME));
+			writeField(out, stats.getLastCommit().format(ISO_OFFSET_DATE_TIME));
+			writeField(out, stats.getActionCount(PathAction.A));
+			writeField(out, stats.getActionCount(PathAction.D));
+			writeField(out, stats.getActionCount(PathAction.M));
+			writeField(out, stats.getActionCount(PathAction.R));
+			writeField(out, stats.emptyMsgs);
+			writeField(out, stats.getAverageCommitSize());
+			writeField(out, stats.getAverageMessageLength());
+			writeField(out, stats.getDistinctPathCount());
+			for (LogHistogram histogram : new LogHistogram[] { stats.commitSizes, stats.messageLengths }) {
+				for (int percentile : ReportRollups.PERCENTILES) {
+					writeField(out, histogram.getValueAtPercentile(percentile));
+				}
+				writeField(out, histogram.getMax());
+			}
+			for (int i = 0; i < 24; i++) {
+				writeField(out, stats.commitsPerHour[i]);
+			}
+			out.write(ROW_END);
+		}
+		out.flush();
+	}
+
+	private void writeField(Writer out, long value) throws IOException {
+		out.write(',');
+		out.write(Long.toString(value));
+	}
+
+	private void writeField(Writer out, String value) throws IOException {
+		out.write(',');
+		writeText(out, value);
+	}
+
+	private void writeText(Writer out, String value) throws IOException {
+		boolean quote = false;
+		for (int i = 0; i < value.length() && !quote; i++) {
+			char c = value.charAt(i);
+			quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+		}
+		if (quote) {
+			out.write('"');
+			out.write(value.replace("\"", "\"\""));
+			out.write('"');
+		} else {
+			out.write(value);
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import com.ervacon.svn.logstats.SpaceSaving.Counter;
+import com.ervacon.svn.logstats.SvnLogEntryPath.PathKind;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the directories and files that are changed most often, using bounded memory.
+ * <p>
+ * Every changed path counts as a change of each of its parent directories, up to a maximum depth: a change of
+ * <code>/trunk/src/main/Foo.java</code> counts for <code>/trunk</code>, <code>/trunk/src</code> and
+ * <code>/trunk/src/main</code>. These directory prefixes form a tree whose nodes are numbered using a
+ * {@link SymbolTable} and counted exactly, until the tree reaches its node budget. Directories that do not fit in the
+ * budget are counted approximately by a {@link SpaceSaving} sketch. Files are always counted by a sketch, since there
+ * are typically far too many of them to count exactly. Memory use is bounded by the node budget and the capacity of
+ * the sketches.
+ * <p>
+ * Updating and merging hotspots is thread-safe.
+ *
+ * @author Erwin Vervaet
+ */
+public class DirectoryHotspots implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_MAX_DEPTH = 4;
+	public static final int DEFAULT_NODE_BUDGET = 50000;
+	public static final int DEFAULT_SKETCH_CAPACITY = 1000;
+
+	private final int maxDepth;
+	private final int nodeBudget;
+	private final SymbolTable directories = new SymbolTable();
+	private long[] counts = new long[64]; // indexed by directory id
+	private long[] errors; // overestimation of the counts, indexed by directory id, only kept once merged in
+	private boolean approximate = false; // whether estimated counts were merged in
+	private final SpaceSaving<String> overflow;
+	private final SpaceSaving<String> files;
+
+	public DirectoryHotspots() {
+		this(DEFAULT_MAX_DEPTH, DEFAULT_NODE_BUDGET, DEFAULT_SKETCH_CAPACITY);
+	}
+
+	/**
+	 * Create new hotspots.
+	 *
+	 * @param maxDepth the number of directory levels to count
+	 * @param nodeBudget the maximum number of directories counted exactly
+	 * @param sketchCapacity the number of counters of the sketches used for the other directories and for files
+	 */
+	public DirectoryHotspots(int maxDepth, int nodeBudget, int sketchCapacity) {
+		if (maxDepth < 1 || nodeBudget < 0) {
+			throw new IllegalArgumentException("Need a depth of at least 1 and a non-negative node budget");
+		}
+		this.maxDepth = maxDepth;
+		this.nodeBudget = nodeBudget;
+		this.overflow = new SpaceSaving<>(sketchCapacity);
+		this.files = new SpaceSaving<>(sketchCapacity);
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public int getNodeBudget() {
+		return nodeBudget;
+	}
+
+	/**
+	 * Count the paths changed by given log entry.
+	 */
+	public synchronized void add(SvnLogEntry logEntry) {
+		for (int i = 0; i < logEntry.paths.size(); i++) {
+			SvnLogEntryPath path = logEntry.paths.get(i);
+			add(path.path, path.kind);
+		}
+	}
+
+	private void add(String path, PathKind kind) {
+		int depth = 0;
+		for (int idx = path.indexOf('/', 1); idx != -1 && depth < maxDepth; idx = path.indexOf('/', idx + 1)) {
+			addDirectory(path, idx, 1);
+			depth++;
+		}
+		if (kind == PathKind.DIR) {
+			if (depth < maxDepth) {
+				addDirectory(path, path.length(), 1);
+			}
+		} else {
+			files.add(path, 1);
+		}
+	}
+
+	private void addDirectory(String path, int end, long count) {
+		int id = directories.find(path, 0, end);
+		if (id == -1 && directories.size() < nodeBudget) {
+			id = directories.intern(path, 0, end);
+		}
+		if (id == -1) {
+			overflow.add(path.substring(0, end), count);
+		} else {
+			if (id >= counts.length) {
+				counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+			}
+			counts[id] += count;
+		}
+	}
+
+	private void addEstimatedDirectory(Counter<String> directory) {
+		int id = directories.find(directory.key, 0, directory.key.length());
+		if (id == -1) {
+			// an estimated count does not get a node of its own
+			overflow.add(directory);
+		} else {
+			if (errors == null) {
+				errors = new long[counts.length];
+			}
+			if (id >= errors.length) {
+				errors = Arrays.copyOf(errors, counts.length);
+			}
+			counts[id] += directory.count;
+			errors[id] += directory.error;
+		}
+	}
+
+	/**
+	 * Merge the counts of given hotspots into these hotspots. Directories are counted using the depth and node budget
+	 * of these hotspots. Counts the other hotspots estimated are merged together with their error, into the counts of
+	 * known directories or into the sketch of these hotspots, and these hotspots remain exact only when the other
+	 * hotspots are exact too. The other hotspots are not modified.
+	 *
+	 * @param other the hotspots to merge
+	 */
+	public void merge(DirectoryHotspots other) {
+		List<Counter<String>> otherDirectories = other.getDirectories();
+		boolean otherExact = other.isExact();
+		synchronized (this) {
+			for (Counter<String> directory : otherDirectories) {
+				if (getDepth(directory.key) > maxDepth) {
+					continue;
+				}
+				if (directory.error == 0) {
+					addDirectory(directory.key, directory.key.length(), directory.count);
+				} else {
+					addEstimatedDirectory(directory);
+				}
+			}
+			approximate |= !otherExact;
+			files.merge(other.files);
+		}
+	}
+
+	/**
+	 * Returns the most changed directories, most changed first.
+	 *
+	 * @param n the maximum number of directories to return
+	 */
+	public List<Counter<String>> getTopDirectories(int n) {
+		List<Counter<String>> top = getDirectories();
+		top.sort((c1, c2) -> Long.compare(c2.count, c1.count));
+		return top.subList(0, Math.min(n, top.size()));
+	}
+
+	/**
+	 * Returns the most changed files, most changed first.
+	 *
+	 * @param n the maximum number of files to return
+	 */
+	public List<Counter<String>> getTopFiles(int n) {
+		return files.getTop(n);
+	}
+
+	/**
+	 * Returns true when all directory counts are exact, i.e. when the node budget was not exceeded, neither by these
+	 * hotspots nor by any hotspots merged into them.
+	 */
+	public synchronized boolean isExact() {
+		return overflow.size() == 0 && !approximate;
+	}
+
+	/**
+	 * Returns true when all file counts are exact.
+	 */
+	public boolean isFilesExact() {
+		return files.isExact();
+	}
+
+	private synchronized List<Counter<String>> getDirectories() {
+		List<Counter<String>> all = new ArrayList<>(overflow.getTop(overflow.getCapacity()));
+		for (int id = 0; id < directories.size(); id++) {
+			all.add(new Counter<>(directories.get(id), counts[id], errors != null && id < errors.length ? errors[id] : 0));
+		}
+		return all;
+	}
+
+	private static int getDepth(String directory) {
+		int depth = 0;
+		for (int idx = directory.indexOf('/', 1); idx != -1; idx = directory.indexOf('/', idx + 1)) {
+			depth++;
+		}
+		return directory.length() > 1 ? depth + 1 : depth;
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Approximate number of distinct changed paths and distinct authors per time bucket, counted using
+ * {@link HyperLogLog} sketches.
+ * <p>
+ * Only buckets with commits have sketches, so memory use depends on the time span of the history and the precision of
+ * the sketches: 25 years of monthly buckets take about 2.4MB using the default precision. Time series using the same
+ * resolution can be {@link #merge(DistinctTimeSeries) merged}.
+ * <p>
+ * Updating and merging time series is thread-safe.
+ *
+ * @author Erwin Vervaet
+ */
+public class DistinctTimeSeries implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long MICROS_PER_DAY = 86400L * 1000000L;
+
+	private final TimeSeries.Resolution resolution;
+	private final int precision;
+	private final Map<Integer, HyperLogLog> paths = new TreeMap<>();
+	private final Map<Integer, HyperLogLog> authors = new TreeMap<>();
+
+	/**
+	 * Create a new time series.
+	 *
+	 * @param resolution the size of the time buckets
+	 * @param precision the precision of the sketches, see {@link HyperLogLog#HyperLogLog(int)}
+	 */
+	public DistinctTimeSeries(TimeSeries.Resolution resolution, int precision) {
+		this.resolution = Objects.requireNonNull(resolution);
+		this.precision = HyperLogLog.checkPrecision(precision);
+	}
+
+	public TimeSeries.Resolution getResolution() {
+		return resolution;
+	}
+
+	public int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * Count the author and paths of given log entry. Log entries without a timestamp are ignored.
+	 */
+	public void add(SvnLogEntry logEntry) {
+		long timestamp = logEntry.getTimestamp();
+		if (timestamp == Util.NO_TIMESTAMP) {
+			return;
+		}
+		int bucket = resolution.toBucket(Math.floorDiv(timestamp, MICROS_PER_DAY));
+		HyperLogLog bucketPaths;
+		HyperLogLog bucketAuthors;
+		synchronized (this) {
+			bucketPaths = paths.computeIfAbsent(bucket, key -> new HyperLogLog(precision));
+			bucketAuthors = authors.computeIfAbsent(bucket, key -> new HyperLogLog(precision));
+		}
+		for (int i = 0; i < logEntry.paths.size(); i++) {
+			bucketPaths.add(logEntry.paths.get(i).getPathHash());
+		}
+		if (logEntry.author != null) {
+			bucketAuthors.add(HyperLogLog.hash(logEntry.author));
+		}
+	}
+
+	/**
+	 * Merge the sketches of given time series, which should use the same resolution, into this time series. The other
+	 * time series is not modified.
+	 *
+	 * @param other the time series to merge
+	 */
+	public void merge(DistinctTimeSeries other) {
+		if (other.resolution != resolution) {
+			throw new IllegalArgumentException("Cannot merge " + other.resolution + " time series into "
+					+ resolution + " time series");
+		}
+		Map<Integer, HyperLogLog> otherPaths;
+		Map<Integer, HyperLogLog> otherAuthors;
+		synchronized (other) {
+			otherPaths = new TreeMap<>(other.paths);
+			otherAuthors = new TreeMap<>(other.authors);
+		}
+		synchronized (this) {
+			otherPaths.forEach((bucket, sketch) ->
+					paths.computeIfAbsent(bucket, key -> new HyperLogLog(precision)).merge(sketch));
+			otherAuthors.forEach((bucket, sketch) ->
+					authors.computeIfAbsent(bucket, key -> new HyperLogLog(precision)).merge(sketch));
+		}
+	}
+
+	/**
+	 * Returns the estimated number of distinct paths changed in given bucket.
+	 */
+	public synchronized long getDistinctPaths(int bucket) {
+		HyperLogLog sketch = paths.get(bucket);
+		return sketch == null ? 0 : sketch.estimate();
+	}
+
+	/**
+	 * Returns the estimated number of distinct authors that committed in given bucket.
+	 */
+	public synchronized long getDistinctAuthors(int bucket) {
+		HyperLogLog sketch = authors.get(bucket);
+		return sketch == null ? 0 : sketch.estimate();
+	}
+}
@@ -20,132 +20,300 @@ import com.ervacon.svn.logstats.Util.KeyValuePair;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import static java.time.format.DateTimeFormatter.ISO_DATE;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import static java.util.Objects.requireNonNull;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
+import java.util.function.IntToLongFunction;
 import static java.util.stream.Collectors.toList;
 
 /**
  * Writes the statistics calculated by a {@link SvnLogEntryAggregator} to an HTML report file.
+ * <p>
+ * The report is written as UTF-8 through a large buffer. The global rollups, e.g. the commit time distribution and
+ * the file type totals, are computed in a single pass over the author statistics before writing starts, so writing
+ * the report takes time linear in the number of authors.
+ * <p>
+ * Optionally, the per-author sections are rendered concurrently into in-memory buffers on a number of worker threads.
+ * The sections are still written in author order, so the report is identical to one rendered on a single thread.
+ * Only a limited window of rendered sections is buffered at any time.
  *
  * @author Erwin Vervaet
  */
-public class HtmlReportWriter {
+public class HtmlReportWriter implements ReportWriter {
+
+	private static final int SECTIONS_PER_THREAD = 4;
 
 	private final SvnLogEntryAggregator aggregator;
 	private final File reportFile;
+	private int threads = 1;
 
 	public HtmlReportWriter(SvnLogEntryAggregator aggregator, File reportFile) {
 		this.aggregator = requireNonNull(aggregator);
 		this.reportFile = requireNonNull(reportFile);
 	}
 
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set the number of threads used to render the per-author sections of the report. Defaults to 1, rendering all
+	 * sections on the calling thread.
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Need at least 1 thread");
+		}
+		this.threads = threads;
+	}
+
+	@Override
 	public void writeReport() throws IOException {
-		try (PrintWriter out = new PrintWriter(reportFile)) {
-			out.println("<!doctype html>");
-			out.println("<html>");
-			out.println("<head>");
-			out.println("<title>Subversion Commit Statistics</title>");
-			out.println("<style>");
-			out.println(Util.readClassPathResource("/style.css"));
-			out.println("</style>");
-			out.println("</head>");
-			out.println("<body>");
-			out.println("<h1>Subversion Commit Statistics</h1>");
-
-			out.println("<h2>Global statistics</h2>");
-			writeSimpleChart(out, "Commit counts per author", null,
-					stats -> new KeyValuePair(stats.author, stats.commits));
-			writeSimpleChart(out, "Average commit size per author", null,
-					stats -> new KeyValuePair(stats.author, stats.getAverageCommitSize()));
-			writeCommitsPerHour(out);
-			writeFileTypesInCommits(out, 20);
-			writeSimpleChart(out, "Average commit message length per author", null,
-					stats -> new KeyValuePair(stats.author, stats.getAverageMessageLength()));
-			writeSimpleChart(out, "Empty commit messages per author", null,
-					stats -> new KeyValuePair(stats.author, stats.emptyMsgs));
-			writeSimpleChart(out, "Top 10 file add-ers", 10,
-					stats -> new KeyValuePair(stats.author, stats.getActionCount(PathAction.A)));
-			writeSimpleChart(out, "Top 10 file delete-ers", 10,
-					stats -> new KeyValuePair(stats.author, stats.getActionCount(PathAction.D)));
-			writeSimpleChart(out, "Top 10 file modify-ers", 10,
-					stats -> new KeyValuePair(stats.author, stats.getActionCount(PathAction.M)));
-			writeSimpleChart(out, "Top 10 file replace-ers", 10,
-					stats -> new KeyValuePair(stats.author, stats.getActionCount(PathAction.R)));
-
-			out.println("<h2>Author statistics</h2>");
-			for (String author : aggregator.getAuthors()) {
-				out.println("<a href='#" + author + "'>" + author + "</a> ");
-			}
-			for (SvnAuthorStats stats : aggregator.getStats()) {
-				out.println("<a id='" + stats.author + "'/>");
-				out.println("<h3>" + stats.author + "</h3>");
+		try (Writer out = Util.openUtf8Writer(reportFile)) {
+			writeReport(out);
+		}
+	}
 
-				out.println("<p>");
-				out.println("Author " + stats.author + " was active between " + stats.firstCommit.format(ISO_DATE)
-						+ " and " + stats.lastCommit.format(ISO_DATE) + ", and performed <b>" + stats.commits + "</b> commits.");
-				out.println("The commits added " + stats.getActionCount(PathAction.A) + " files, removed "
-						+ stats.getActionCount(PathAction.D) + " files, modified " + stats.getActionCount(PathAction.M)
-						+ " files and replaced " + stats.getActionCount(PathAction.R) + " files.");
-				out.println("</p>");
+	@Override
+	public void writeReport(Writer writer) throws IOException {
+		PrintWriter out = new PrintWriter(writer);
+		ReportRollups rollups = new ReportRollups(aggregator);
 
-				writeCommitsPerHour(out, stats);
-				writeFileTypesInCommits(out, stats, 10);
-			};
+		out.println("<!doctype html>");
+		out.println("<html>");
+		out.println("<head>");
+		out.println("<meta charset='utf-8'>");
+		out.println("<title>Subversion Commit Statistics</title>");
+		out.println("<style>");
+		out.println(Util.readClassPathResource("/style.css"));
+		out.println("</style>");
+		out.println("</head>");
+		out.println("<body>");
+		out.println("<h1>Subversion Commit Statistics</h1>");
 
-			out.println("</body>");
-			out.println("</html>");
+		out.println("<h2>Global statistics</h2>");
+		writeSimpleChart(out, rollups, "Commit counts per author", null,
+				stats -> new KeyValuePair(stats.author, stats.commits));
+		writeSimpleChart(out, rollups, "Average commit size per author", null,
+				stats -> new KeyValuePair(stats.author, stats.getAverageCommitSize()));
+		writeSimpleChart(out, rollups, "Median commit size per author", null,
+				stats -> new KeyValuePair(stats.author, stats.commitSizes.getValueAtPercentile(50)));
+		writePercentiles(out, "Commit size percentiles", rollups.commitSizes);
+		writeSimpleChart(out, rollups, "Distinct paths changed per author (approximate)", null,
+				stats -> new KeyValuePair(stats.author, stats.getDistinctPathCount()));
+		TimeSeries timeline = aggregator.getTimeline().resample(TimeSeries.Resolution.MONTH);
+		writeTimeline(out, "Commits per month", timeline, timeline, timeline::getCommits);
+		writeTimeline(out, "Changed paths per month", timeline, timeline, timeline::getPaths);
+		DistinctTimeSeries distinct = aggregator.getDistinctTimeline();
+		if (distinct != null) {
+			writeTimeline(out, "Distinct paths changed per month (approximate)", timeline, timeline,
+					distinct::getDistinctPaths);
+			writeTimeline(out, "Active authors per month (approximate)", timeline, timeline,
+					distinct::getDistinctAuthors);
 		}
-	}
+		writeCommitsPerHour(out, "Commit time distribution", rollups.commitsPerHour);
+		writeFileTypesInCommits(out, "File types in commits", rollups.fileTypesInCommits, 20);
+		writeHotspots(out, 20);
+		writeCoChanges(out, 20);
+		writeSimpleChart(out, rollups, "Average commit message length per author", null,
+				stats -> new KeyValuePair(stats.author, stats.getAverageMessageLength()));
+		writePercentiles(out, "Commit message length percentiles", rollups.messageLengths);
+		writeSimpleChart(out, rollups, "Empty commit messages per author", null,
+				stats -> new KeyValuePair(stats.author, stats.emptyMsgs));
+		writeSimpleChart(out, rollups, "Top 10 file add-ers", 10,
+				stats -> new KeyValuePair(stats.author, stats.getActionCount(PathAction.A)));
+		writeSimpleChart(out, rollups, "Top 10 file delete-ers", 10,
+				stats -> new KeyValuePair(stats.author, stats.getActionCount(PathAction.D)));
+		writeSimpleChart(out, rollups, "Top 10 file modify-ers", 10,
+				stats -> new KeyValuePair(stats.author, stats.getActionCount(PathAction.M)));
+		writeSimpleChart(out, rollups, "Top 10 file replace-ers", 10,
+				stats -> new KeyValuePair(stats.author, stats.getActionCount(PathAction.R)));
 
-	private void writeCommitsPerHour(PrintWriter out) throws IOException {
-		List<KeyValuePair> data = new ArrayList<>();
-		for (int i = 0; i < 24; i++) {
-			data.add(new KeyValuePair(i + ":00", 0));
+		out.println("<h2>Author statistics</h2>");
+		for (SvnAuthorStats stats : rollups.stats) {
+			out.println("<a href='#" + escape(stats.author) + "'>" + escape(stats.author) + "</a> ");
+		}
+		if (threads > 1 && rollups.stats.size() > 1) {
+			writeAuthorSectionsConcurrently(out, rollups.stats, timeline);
+		} else {
+			for (SvnAuthorStats stats : rollups.stats) {
+				writeAuthorSection(out, stats, timeline);
+			}
+		}
+
+		out.println("</body>");
+		out.println("</html>");
+		out.flush();
+		if (out.checkError()) {
+			throw new IOException("Cannot write report " + reportFile);
 		}
-		aggregator.getStats().forEach(stats -> {
-			for (int i = 0; i < 24; i++) {
-				data.get(i).value += stats.commitsPerHour[i];
+	}
+
+	private void writeAuthorSectionsConcurrently(PrintWriter out, List<SvnAuthorStats> stats, TimeSeries timeline)
+			throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, stats.size()));
+		try {
+			// sections are submitted in author order and written in that same order as soon as they are rendered,
+			// keeping at most a fixed number of rendered sections in memory
+			Deque<Future<String>> window = new ArrayDeque<>();
+			for (SvnAuthorStats authorStats : stats) {
+				if (window.size() == threads * SECTIONS_PER_THREAD) {
+					out.write(window.removeFirst().get());
+				}
+				window.addLast(executor.submit(() -> {
+					StringWriter section = new StringWriter();
+					writeAuthorSection(new PrintWriter(section), authorStats, timeline);
+					return section.toString();
+				}));
 			}
-		});
-		writeChart(out, "Commit time distribution", null, data);
+			while (!window.isEmpty()) {
+				out.write(window.removeFirst().get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing report " + reportFile, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		} finally {
+			executor.shutdownNow();
+		}
 	}
 
-	private void writeCommitsPerHour(PrintWriter out, SvnAuthorStats stats) throws IOException {
+	private void writeAuthorSection(PrintWriter out, SvnAuthorStats stats, TimeSeries timeline) throws IOException {
+		out.println("<a id='" + escape(stats.author) + "'/>");
+		out.println("<h3>" + escape(stats.author) + "</h3>");
+
+		out.println("<p>");
+		out.println("Author " + escape(stats.author) + " was active between " + stats.getFirstCommit().format(ISO_DATE)
+				+ " and " + stats.getLastCommit().format(ISO_DATE) + ", and performed <b>" + stats.commits + "</b> commits.");
+		out.println("The commits added " + stats.getActionCount(PathAction.A) + " files, removed "
+				+ stats.getActionCount(PathAction.D) + " files, modified " + stats.getActionCount(PathAction.M)
+				+ " files and replaced " + stats.getActionCount(PathAction.R) + " files.");
+		out.println("In total, about " + stats.getDistinctPathCount() + " distinct paths were changed.");
+		out.println("Commits changed " + formatPercentiles(stats.commitSizes) + " paths, and had commit messages of "
+				+ formatPercentiles(stats.messageLengths) + " characters.");
+		out.println("</p>");
+
+		writeTimeline(out, "Commits per month for " + stats.author, stats.timeline, timeline,
+				stats.timeline::getCommits);
+		writeCommitsPerHour(out, "Commit time distribution for " + stats.author, stats.commitsPerHour);
+		writeFileTypesInCommits(out, "File types in commits for " + stats.author, stats.getFileTypesInCommits(), 10);
+	}
+
+	private void writeCommitsPerHour(PrintWriter out, String title, long[] commitsPerHour) throws IOException {
 		List<KeyValuePair> data = new ArrayList<>();
 		for (int i = 0; i < 24; i++) {
-			data.add(new KeyValuePair(i + ":00", stats.commitsPerHour[i]));
+			data.add(new KeyValuePair(i + ":00", commitsPerHour[i]));
 		}
-		writeChart(out, "Commit time distribution for " + stats.author, null, data);
+		writeChart(out, title, null, data);
 	}
 
-	private void writeFileTypesInCommits(PrintWriter out, int limit) throws IOException {
-		Map<String, Integer> fileTypesInCommits = new HashMap<>();
-		aggregator.getStats().forEach(stats -> {
-			stats.fileTypesInCommits.forEach((statsK, statsV) -> {
-				fileTypesInCommits.compute(statsK, (k, v) -> v == null ? 1 : v + statsV);
-			});
-		});
+	private void writeFileTypesInCommits(PrintWriter out, String title, Map<String, Long> fileTypesInCommits,
+			int limit) throws IOException {
 		List<KeyValuePair> data = new ArrayList<>();
 		fileTypesInCommits.forEach((k, v) -> data.add(new KeyValuePair(k, v)));
 		data.sort(KeyValuePair::orderByValueDesc);
-		writeChart(out, "File types in commits (top " + limit + ")", limit, data);
+		writeChart(out, title + " (top " + limit + ")", limit, data);
 	}
 
-	private void writeFileTypesInCommits(PrintWriter out, SvnAuthorStats stats, int limit) throws IOException {
+	private void writePercentiles(PrintWriter out, String title, LogHistogram histogram) throws IOException {
 		List<KeyValuePair> data = new ArrayList<>();
-		stats.fileTypesInCommits.forEach((k, v) -> data.add(new KeyValuePair(k, v)));
-		data.sort(KeyValuePair::orderByValueDesc);
-		writeChart(out, "File types in commits for " + stats.author + " (top " + limit + ")", limit, data);
+		for (int percentile : ReportRollups.PERCENTILES) {
+			data.add(new KeyValuePair("p" + percentile, histogram.getValueAtPercentile(percentile)));
+		}
+		// the maximum is typically a huge outlier, e.g. a tag copy, so it is only mentioned in the title
+		writeChart(out, title + " (max " + histogram.getMax() + ")", null, data);
 	}
 
-	private void writeSimpleChart(PrintWriter out, String title, Integer limit, Function<SvnAuthorStats, KeyValuePair> mapper)
-			throws IOException {
-		List<KeyValuePair> data = aggregator.getStats().stream().map(mapper).collect(toList());
+	private String formatPercentiles(LogHistogram histogram) {
+		StringBuilder formatted = new StringBuilder();
+		for (int percentile : ReportRollups.PERCENTILES) {
+			formatted.append("p").append(percentile).append(" ").append(histogram.getValueAtPercentile(percentile))
+					.append(", ");
+		}
+		return formatted.append("max ").append(histogram.getMax()).toString();
+	}
+
+	private void writeHotspots(PrintWriter out, int limit) throws IOException {
+		DirectoryHotspots hotspots = aggregator.getDirectoryHotspots();
+		if (hotspots == null) {
+			return;
+		}
+		List<KeyValuePair> data = new ArrayList<>();
+		hotspots.getTopDirectories(limit).forEach(counter -> data.add(new KeyValuePair(counter.key, counter.count)));
+		writeChart(out, "Most changed directories (top " + limit + (hotspots.isExact() ? "" : ", approximate") + ")",
+				limit, data);
+
+		data.clear();
+		hotspots.getTopFiles(limit).forEach(counter -> data.add(new KeyValuePair(counter.key, counter.count)));
+		writeChart(out, "Most changed files (top " + limit + (hotspots.isFilesExact() ? "" : ", approximate") + ")",
+				limit, data);
+	}
+
+	private void writeCoChanges(PrintWriter out, int limit) throws IOException {
+		CoChangeAnalyzer coChanges = aggregator.getCoChanges();
+		if (coChanges == null) {
+			return;
+		}
+		List<KeyValuePair> data = new ArrayList<>();
+		coChanges.getTopCoChanges(limit).forEach(
+				coChange -> data.add(new KeyValuePair(coChange.path1 + " + " + coChange.path2, coChange.count)));
+		writeChart(out, "Files most often changed together (top " + limit + ", approximate)", limit, data);
+	}
+
+	/**
+	 * Write a timeline chart for given time series, covering the buckets of the range time series so that timelines
+	 * of different authors line up.
+	 */
+	private void writeTimeline(PrintWriter out, String title, TimeSeries series, TimeSeries range,
+			IntToLongFunction values) throws IOException {
+		if (series.isEmpty() || range.isEmpty()) {
+			return;
+		}
+		int first = Math.min(series.getFirstBucket(), range.getFirstBucket());
+		int last = Math.max(series.getLastBucket(), range.getLastBucket());
+
+		long maxValue = 0;
+		for (int bucket = first; bucket <= last; bucket++) {
+			maxValue = Math.max(maxValue, values.applyAsLong(bucket));
+		}
+		if (maxValue == 0) {
+			return;
+		}
+
+		TimeSeries.Resolution resolution = series.getResolution();
+		out.println("<h4>" + escape(title) + "</h4>");
+		out.println("<div class='timeline'>");
+		for (int bucket = first; bucket <= last; bucket++) {
+			long value = values.applyAsLong(bucket);
+			out.println("<div style='height: " + ((100 * value) / maxValue) + "%;' title='"
+					+ resolution.getLabel(bucket) + " (" + value + ")'></div>");
+		}
+		out.println("</div>");
+		out.println("<div class='timeline-axis'><span>" + resolution.getLabel(first) + "</span><span>"
+				+ resolution.getLabel(last) + "</span></div>");
+	}
+
+	private void writeSimpleChart(PrintWriter out, ReportRollups rollups, String title, Integer limit,
+			Function<SvnAuthorStats, KeyValuePair> mapper) throws IOException {
+		List<KeyValuePair> data = rollups.stats.stream().map(mapper).collect(toList());
 		data.sort(KeyValuePair::orderByValueDesc);
 		writeChart(out, title, limit, data);
 	}
@@ -155,18 +323,56 @@ public class HtmlReportWriter {
 			data = data.subList(0, Math.min(limit, data.size()));
 		}
 
-		int maxValue = data.stream().mapToInt(kv -> kv.value).max().orElse(0);
+		long maxValue = data.stream().mapToLong(kv -> kv.value).max().orElse(0);
 
 		if (maxValue == 0) {
 			return;
 		}
 
-		out.println("<h4>" + title + "</h4>");
+		out.println("<h4>" + escape(title) + "</h4>");
 		out.println("<div class='chart'>");
 		for (KeyValuePair kv : data) {
-			int width = ((500 * kv.value) / maxValue);
-			out.println("<div style='width: " + width + "px;'>" + kv.key + " (" + kv.value + ")</div>");
+			long width = ((500 * kv.value) / maxValue);
+			out.println("<div style='width: " + width + "px;'>" + escape(kv.key) + " (" + kv.value + ")</div>");
 		}
 		out.println("</div>");
 	}
+
+	/**
+	 * Escape the characters of given text that have a special meaning in HTML, e.g. in repository paths like
+	 * <i>/trunk/R&amp;D</i>.
+	 */
+	static String escape(String text) {
+		StringBuilder escaped = null;
+		for (int i = 0; i < text.length(); i++) {
+			String entity;
+			switch (text.charAt(i)) {
+				case '&':
+					entity = "&amp;";
+					break;
+				case '<':
+					entity = "&lt;";
+					break;
+				case '>':
+					entity = "&gt;";
+					break;
+				case '"':
+					entity = "&quot;";
+					break;
+				case '\'':
+					entity = "&#39;";
+					break;
+				default:
+					if (escaped != null) {
+						escaped.append(text.charAt(i));
+					}
+					continue;
+			}
+			if (escaped == null) {
+				escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+			}
+			escaped.append(entity);
+		}
+		return escaped == null ? text : escaped.toString();
+	}
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.Serializable;
+
+/**
+ * HyperLogLog cardinality sketch: estimates the number of distinct items added to it using a fixed amount of memory.
+ * <p>
+ * Items are added by their 64 bit {@link #hash(CharSequence) hash}. The sketch uses <i>2<sup>precision</sup></i> one
+ * byte registers and has a standard error of about <i>1.04 / sqrt(2<sup>precision</sup>)</i>: the default precision of
+ * 12 takes 4KB and is accurate to about 1.6%. Small cardinalities are estimated using linear counting, so they are
+ * close to exact.
+ * <p>
+ * Sketches can be {@link #merge(HyperLogLog) merged}, giving the same result as adding all items to a single sketch.
+ * Updating and merging sketches is thread-safe.
+ *
+ * @author Erwin Vervaet
+ */
+public class HyperLogLog implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int MIN_PRECISION = 4;
+	public static final int MAX_PRECISION = 18;
+	public static final int DEFAULT_PRECISION = 12;
+
+	private int precision;
+	private byte[] registers;
+
+	public HyperLogLog() {
+		this(DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Create a new sketch.
+	 *
+	 * @param precision the number of index bits, between {@link #MIN_PRECISION} and {@link #MAX_PRECISION}
+	 */
+	public HyperLogLog(int precision) {
+		this.precision = checkPrecision(precision);
+		this.registers = new byte[1 << precision];
+	}
+
+	public synchronized int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * Add the item with given hash.
+	 *
+	 * @param hash a well mixed 64 bit hash of the item, e.g. calculated using {@link #hash(CharSequence)}
+	 */
+	public synchronized void add(long hash) {
+		int idx = (int) (hash >>> (64 - precision));
+		int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+		if (rank > registers[idx]) {
+			registers[idx] = (byte) rank;
+		}
+	}
+
+	/**
+	 * Merge given sketch into this sketch. When the sketches have a different precision, this sketch is reduced to the
+	 * lower of both precisions first. The other sketch is not modified.
+	 *
+	 * @param other the sketch to merge
+	 */
+	public void merge(HyperLogLog other) {
+		int otherPrecision;
+		byte[] otherRegisters;
+		synchronized (other) {
+			otherPrecision = other.precision;
+			otherRegisters = other.registers.clone();
+		}
+		synchronized (this) {
+			if (otherPrecision < precision) {
+				registers = fold(registers, precision, otherPrecision);
+				precision = otherPrecision;
+			} else if (otherPrecision > precision) {
+				otherRegisters = fold(otherRegisters, otherPrecision, precision);
+			}
+			for (int i = 0; i < registers.length; i++) {
+				registers[i] = (byte) Math.max(registers[i], otherRegisters[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns the estimated number of distinct items added to this sketch.
+	 */
+	public synchronized long estimate() {
+		int m = registers.length;
+		double sum = 0;
+		int zeros = 0;
+		for (byte register : registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0) {
+				zeros++;
+			}
+		}
+		double estimate = alpha(m) * m * m / sum;
+		if (estimate <= 2.5 * m && zeros > 0) {
+			estimate = m * Math.log((double) m / zeros); // linear counting
+		}
+		return Math.round(estimate);
+	}
+
+	/**
+	 * Returns a well mixed 64 bit hash of given characters.
+	 */
+	public static long hash(CharSequence text) {
+		// FNV-1a followed by the MurmurHash3 finalizer
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < text.length(); i++) {
+			hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+		}
+		hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+		hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return hash ^ (hash >>> 33);
+	}
+
+	static int checkPrecision(int precision) {
+		if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+			throw new IllegalArgumentException("Precision should be between " + MIN_PRECISION + " and " + MAX_PRECISION);
+		}
+		return precision;
+	}
+
+	private static byte[] fold(byte[] registers, int precision, int newPrecision) {
+		// the index bits dropped by the lower precision become the leading bits of the rank
+		int shift = precision - newPrecision;
+		byte[] folded = new byte[1 << newPrecision];
+		for (int i = 0; i < registers.length; i++) {
+			if (registers[i] == 0) {
+				continue;
+			}
+			int dropped = i & ((1 << shift) - 1);
+			int rank = dropped != 0 ? Integer.numberOfLeadingZeros(dropped) - (32 - shift) + 1 : shift + registers[i];
+			int idx = i >>> shift;
+			folded[idx] = (byte) Math.max(folded[idx], rank);
+		}
+		return folded;
+	}
+
+	private static double alpha(int m) {
+		switch (m) {
+			case 16:
+				return 0.673;
+			case 32:
+				return 0.697;
+			case 64:
+				return 0.709;
+			default:
+				return 0.7213 / (1 + 1.079 / m);
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import com.ervacon.svn.logstats.SpaceSaving.Counter;
+import com.ervacon.svn.logstats.SvnLogEntryPath.PathAction;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.ZonedDateTime;
+import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes the statistics calculated by a {@link SvnLogEntryAggregator} to a JSON file, for consumption by other tools.
+ * <p>
+ * The document is streamed to the file while it is generated, one author at a time, so writing it needs little memory
+ * beyond the statistics themselves. It contains the global statistics followed by an <code>authors</code> array with
+ * the statistics of every author, sorted by author name. Dates are written in ISO-8601 format and months as
+ * <code>YYYY-MM</code>. Approximate values, e.g. distinct path counts, are included as is.
+ * Opt-in analyses that the aggregator did not track, e.g. the directory hotspots, are left out.
+ *
+ * @author Erwin Vervaet
+ */
+public class JsonReportWriter implements ReportWriter {
+
+	/**
+	 * The maximum number of hotspots and co-changes written.
+	 */
+	public static final int TOP_LIMIT = 1000;
+
+	private final SvnLogEntryAggregator aggregator;
+	private final File reportFile;
+
+	public JsonReportWriter(SvnLogEntryAggregator aggregator, File reportFile) {
+		this.aggregator = requireNonNull(aggregator);
+		this.reportFile = requireNonNull(reportFile);
+	}
+
+	@Override
+	public void writeReport() throws IOException {
+		try (Writer out = Util.openUtf8Writer(reportFile)) {
+			writeReport(out);
+		}
+	}
+
+	@Override
+	public void writeReport(Writer writer) throws IOException {
+		JsonWriter json = new JsonWriter(writer);
+		ReportRollups rollups = new ReportRollups(aggregator);
+		TimeSeries timeline = aggregator.getTimeline().resample(TimeSeries.Resolution.MONTH);
+		DistinctTimeSeries distinct = aggregator.getDistinctTimeline();
+
+		json.beginObject();
+		json.name("commits").value(rollups.commits);
+		json.name("lastRevision").value(aggregator.getLastRevision());
+		writeHistogram(json, "commitSizes", rollups.commitSizes);
+		writeHistogram(json, "messageLengths", rollups.messageLengths);
+		writeCommitsPerHour(json, rollups.commitsPerHour);
+		writeFileTypesInCommits(json, rollups.fileTypesInCommits);
+
+		json.name("months").beginArray();
+		if (!timeline.isEmpty()) {
+			for (int bucket = timeline.getFirstBucket(); bucket <= timeline.getLastBucket(); bucket++) {
+				json.beginObject();
+				json.name("month").value(timeline.getResolution().getLabel(bucket));
+				json.name("commits").value(timeline.getCommits(bucket));
+				json.name("paths").value(timeline.getPaths(bucket));
+				if (distinct != null) {
+					json.name("distinctPaths").value(distinct.getDistinctPaths(bucket));
+					json.name("activeAuthors").value(distinct.getDistinctAuthors(bucket));
+				}
+				json.endObject();
+			}
+		}
+		json.endArray();
+
+		// analyses that were not tracked are left out
+		DirectoryHotspots hotspots = aggregator.getDirectoryHotspots();
+		if (hotspots != null) {
+			writeCounters(json, "directories", hotspots.isExact(), hotspots.getTopDirectories(TOP_LIMIT));
+			writeCounters(json, "files", hotspots.isFilesExact(), hotspots.getTopFiles(TOP_LIMIT));
+		}
+
+		CoChangeAnalyzer coChanges = aggregator.getCoChanges();
+		if (coChanges != null) {
+			json.name("coChanges").beginArray();
+			for (CoChangeAnalyzer.CoChange coChange : coChanges.getTopCoChanges(TOP_LIMIT)) {
+				json.beginObject();
+				json.name("path1").value(coChange.path1);
+				json.name("path2").value(coChange.path2);
+				json.name("count").value(coChange.count);
+				json.endObject();
+			}
+			json.endArray();
+		}
+
+		json.name("authors").beginArray();
+		for (SvnAuthorStats stats : rollups.stats) {
+			writeAuthor(json, stats);
+		}
+		json.endArray();
+		json.endObject();
+		json.flush();
+	}
+
+	private void writeAuthor(JsonWriter json, SvnAuthorStats stats) throws IOException {
+		json.beginObject();
+		json.name("author").value(stats.author);
+		json.name("commits").value(stats.commits);
+		json.name("firstCommit").value(format(stats.getFirstCommit()));
+		json.name("lastCommit").value(format(stats.getLastCommit()));
+		json.name("added").value(stats.getActionCount(PathAction.A));
+		json.name("deleted").value(stats.getActionCount(PathAction.D));
+		json.name("modified").value(stats.getActionCount(PathAction.M));
+		json.name("replaced").value(stats.getActionCount(PathAction.R));
+		json.name("emptyMessages").value(stats.emptyMsgs);
+		json.name("averageCommitSize").value(stats.getAverageCommitSize());
+		json.name("averageMessageLength").value(stats.getAverageMessageLength());
+		json.name("distinctPaths").value(stats.getDistinctPathCount());
+		writeHistogram(json, "commitSizes", stats.commitSizes);
+		writeHistogram(json, "messageLengths", stats.messageLengths);
+		writeCommitsPerHour(json, stats.commitsPerHour);
+		writeFileTypesInCommits(json, stats.getFileTypesInCommits());
+
+		json.name("months").beginArray();
+		TimeSeries timeline = stats.timeline;
+		if (!timeline.isEmpty()) {
+			for (int bucket = timeline.getFirstBucket(); bucket <= timeline.getLastBucket(); bucket++) {
+				if (timeline.getCommits(bucket) > 0) {
+					json.beginObject();
+					json.name("month").value(timeline.getResolution().getLabel(bucket));
+					json.name("commits").value(timeline.getCommits(bucket));
+					json.name("paths").value(timeline.getPaths(bucket));
+					json.endObject();
+				}
+			}
+		}
+		json.endArray();
+		json.endObject();
+	}
+
+	private void writeHistogram(JsonWriter json, String name, LogHistogram histogram) throws IOException {
+		json.name(name).beginObject();
+		json.name("count").value(histogram.getCount());
+		json.name("min").value(histogram.getMin());
+		json.name("max").value(histogram.getMax());
+		for (int percentile : ReportRollups.PERCENTILES) {
+			json.name("p" + percentile).value(histogram.getValueAtPercentile(percentile));
+		}
+		json.endObject();
+	}
+
+	private void writeCommitsPerHour(JsonWriter json, long[] commitsPerHour) throws IOException {
+		json.name("commitsPerHour").beginArray();
+		for (long commits : commitsPerHour) {
+			json.value(commits);
+		}
+		json.endArray();
+	}
+
+	private void writeFileTypesInCommits(JsonWriter json, Map<String, Long> fileTypesInCommits) throws IOException {
+		List<Map.Entry<String, Long>> fileTypes = new ArrayList<>(fileTypesInCommits.entrySet());
+		fileTypes.sort((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()));
+		json.name("fileTypes").beginObject();
+		for (Map.Entry<String, Long> fileType : fileTypes) {
+			json.name(fileType.getKey()).value(fileType.getValue());
+		}
+		json.endObject();
+	}
+
+	private void writeCounters(JsonWriter json, String name, boolean exact, List<Counter<String>> counters)
+			throws IOException {
+		json.name(name).beginObject();
+		json.name("exact").value(exact);
+		json.name("top").beginArray();
+		for (Counter<String> counter : counters) {
+			json.beginObject();
+			json.name("path").value(counter.key);
+			json.name("count").value(counter.count);
+			json.endObject();
+		}
+		json.endArray();
+		json.endObject();
+	}
+
+	private static String format(ZonedDateTime date) {
+		return date == null ? null : date.format(ISO_OFFSET_DATE_TIME);
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Minimal streaming JSON writer: values are written to the underlying writer as soon as they are added, without
+ * building any intermediate document. Commas are inserted automatically. The writer does not validate the structure
+ * of the written document, e.g. it does not check that object members are named.
+ *
+ * @author Erwin Vervaet
+ */
+final class JsonWriter {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final Writer out;
+	private boolean[] hasValues = new boolean[16]; // per nesting level: was a value written at that level?
+	private int depth = 0;
+	private boolean named = false; // was a name written that is still waiting for its value?
+
+	JsonWriter(Writer out) {
+		this.out = requireNonNull(out);
+	}
+
+	JsonWriter beginObject() throws IOException {
+		return begin('{');
+	}
+
+	JsonWriter endObject() throws IOException {
+		return end('}');
+	}
+
+	JsonWriter beginArray() throws IOException {
+		return begin('[');
+	}
+
+	JsonWriter endArray() throws IOException {
+		return end(']');
+	}
+
+	JsonWriter name(String name) throws IOException {
+		separate();
+		string(name);
+		out.write(':');
+		named = true;
+		return this;
+	}
+
+	JsonWriter value(String value) throws IOException {
+		separate();
+		if (value == null) {
+			out.write("null");
+		} else {
+			string(value);
+		}
+		return this;
+	}
+
+	JsonWriter value(long value) throws IOException {
+		separate();
+		out.write(Long.toString(value));
+		return this;
+	}
+
+	JsonWriter value(boolean value) throws IOException {
+		separate();
+		out.write(value ? "true" : "false");
+		return this;
+	}
+
+	void flush() throws IOException {
+		out.flush();
+	}
+
+	private JsonWriter begin(char c) throws IOException {
+		separate();
+		out.write(c);
+		if (++depth == hasValues.length) {
+			hasValues = Arrays.copyOf(hasValues, depth * 2);
+		}
+		hasValues[depth] = false;
+		return this;
+	}
+
+	private JsonWriter end(char c) throws IOException {
+		depth--;
+		out.write(c);
+		return this;
+	}
+
+	private void separate() throws IOException {
+		if (named) {
+			named = false;
+		} else {
+			if (hasValues[depth]) {
+				out.write(',');
+			}
+			hasValues[depth] = true;
+		}
+	}
+
+	private void string(String s) throws IOException {
+		out.write('"');
+		int start = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c < 0x20 || c == '"' || c == '\\') {
+				out.write(s, start, i - start);
+				switch (c) {
+					case '"':
+						out.write("\\\"");
+						break;
+					case '\\':
+						out.write("\\\\");
+						break;
+					case '\n':
+						out.write("\\n");
+						break;
+					case '\r':
+						out.write("\\r");
+						break;
+					case '\t':
+						out.write("\\t");
+						break;
+					default:
+						out.write("\\u00");
+						out.write(HEX[c >> 4]);
+						out.write(HEX[c & 0xf]);
+				}
+				start = i + 1;
+			}
+		}
+		out.write(s, start, s.length() - start);
+		out.write('"');
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Histogram of non-negative values using logarithmic buckets, in the style of HdrHistogram, used to calculate
+ * percentiles of a stream of values without keeping the values themselves.
+ * <p>
+ * Values below <i>2<sup>precision</sup></i> each have their own bucket and are counted exactly. Larger values are
+ * counted in buckets whose width doubles with every power of 2, so every bucket has a relative width of at most
+ * <i>2<sup>1 - precision</sup></i>: about 1.6% using the default precision of 7. Recording a value takes constant time
+ * and the buckets are only allocated up to the largest value seen, so a histogram of commit sizes typically takes a
+ * few kilobytes. The minimum, maximum and sum of the values are tracked exactly.
+ * <p>
+ * Histograms can be {@link #merge(LogHistogram) merged}. Updating and merging histograms is thread-safe.
+ *
+ * @author Erwin Vervaet
+ */
+public class LogHistogram implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_PRECISION = 7;
+
+	private final int precision;
+	private long[] counts = new long[0];
+	private long count = 0;
+	private long sum = 0;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+	public LogHistogram() {
+		this(DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Create a new histogram.
+	 *
+	 * @param precision the number of bits of each value that are kept, between 1 and 16
+	 */
+	public LogHistogram(int precision) {
+		if (precision < 1 || precision > 16) {
+			throw new IllegalArgumentException("Precision should be between 1 and 16");
+		}
+		this.precision = precision;
+	}
+
+	/**
+	 * Record given value.
+	 *
+	 * @throws IllegalArgumentException when the value is negative
+	 */
+	public synchronized void add(long value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Cannot record negative value " + value);
+		}
+		int idx = toIndex(value);
+		if (idx >= counts.length) {
+			counts = Arrays.copyOf(counts, Math.max(idx + 1, counts.length + (1 << (precision - 1))));
+		}
+		counts[idx]++;
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Merge the values recorded in given histogram, which should have the same precision, into this histogram. The
+	 * other histogram is not modified.
+	 *
+	 * @param other the histogram to merge
+	 */
+	public void merge(LogHistogram other) {
+		if (other.precision != precision) {
+			throw new IllegalArgumentException("Cannot merge histograms with a different precision");
+		}
+		long[] otherCounts;
+		long otherCount;
+		long otherSum;
+		long otherMin;
+		long otherMax;
+		synchronized (other) {
+			otherCounts = other.counts.clone();
+			otherCount = other.count;
+			otherSum = other.sum;
+			otherMin = other.min;
+			otherMax = other.max;
+		}
+		synchronized (this) {
+			if (otherCounts.length > counts.length) {
+				counts = Arrays.copyOf(counts, otherCounts.length);
+			}
+			for (int idx = 0; idx < otherCounts.length; idx++) {
+				counts[idx] += otherCounts[idx];
+			}
+			count += otherCount;
+			sum += otherSum;
+			min = Math.min(min, otherMin);
+			max = Math.max(max, otherMax);
+		}
+	}
+
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the smallest recorded value, or 0 when the histogram is empty.
+	 */
+	public synchronized long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * Returns the largest recorded value, or 0 when the histogram is empty.
+	 */
+	public synchronized long getMax() {
+		return count == 0 ? 0 : max;
+	}
+
+	/**
+	 * Returns the average of the recorded values, or 0 when the histogram is empty.
+	 */
+	public synchronized double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * Returns the value below or at which given percentage of the recorded values fall, e.g. 50 for the median.
+	 * The result is the highest value of the bucket containing the percentile, but never more than the maximum.
+	 *
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the value at the percentile, or 0 when the histogram is empty
+	 */
+	public synchronized long getValueAtPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentile should be between 0 and 100");
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int idx = 0; idx < counts.length; idx++) {
+			seen += counts[idx];
+			if (seen >= rank) {
+				return Math.max(min, Math.min(max, highestValue(idx)));
+			}
+		}
+		return max;
+	}
+
+	private int toIndex(long value) {
+		if (value < (1L << precision)) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (precision - 1);
+		int halfBuckets = 1 << (precision - 1);
+		return (shift + 1) * halfBuckets + (int) ((value >>> shift) - halfBuckets);
+	}
+
+	private long lowestValue(int idx) {
+		if (idx < (1 << precision)) {
+			return idx;
+		}
+		int halfBuckets = 1 << (precision - 1);
+		int shift = idx / halfBuckets - 1;
+		return (long) (idx % halfBuckets + halfBuckets) << shift;
+	}
+
+	private long highestValue(int idx) {
+		int shift = idx < (1 << precision) ? 0 : idx / (1 << (precision - 1)) - 1;
+		return lowestValue(idx) + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Input stream that counts the bytes read from an underlying stream and periodically reports progress.
+ *
+ * @author Erwin Vervaet
+ */
+public class ProgressInputStream extends FilterInputStream {
+
+	private static final double MB = 1024 * 1024;
+
+	private final PrintStream out;
+	private final long intervalNanos;
+	private final long startNanos;
+	private long nextReportNanos;
+	private long bytesRead = 0;
+	private boolean closed = false;
+
+	/**
+	 * Create a new progress reporting stream.
+	 *
+	 * @param in the underlying stream
+	 * @param out where to print progress lines
+	 * @param intervalSeconds the number of seconds between progress lines
+	 */
+	public ProgressInputStream(InputStream in, PrintStream out, int intervalSeconds) {
+		super(in);
+		this.out = requireNonNull(out);
+		this.intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+		this.startNanos = System.nanoTime();
+		this.nextReportNanos = startNanos + intervalNanos;
+	}
+
+	/**
+	 * Returns the number of bytes read so far.
+	 */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = super.read();
+		if (b != -1) {
+			count(1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int read = super.read(b, off, len);
+		if (read > 0) {
+			count(read);
+		}
+		return read;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = super.skip(n);
+		count(skipped);
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	private void count(long n) {
+		bytesRead += n;
+		long now = System.nanoTime();
+		if (now >= nextReportNanos) {
+			report(now);
+			nextReportNanos = now + intervalNanos;
+		}
+	}
+
+	private void report(long now) {
+		double seconds = Math.max(1, now - startNanos) / 1e9;
+		out.println(String.format("Read %,.1f MB (%.1f MB/s)", bytesRead / MB, bytesRead / MB / seconds));
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		if (!closed) {
+			closed = true;
+			report(System.nanoTime());
+		}
+	}
+}
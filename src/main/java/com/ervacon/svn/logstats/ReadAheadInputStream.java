@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input stream that reads an underlying stream on a separate thread, buffering up to a fixed number of chunks ahead of
+ * the consumer. Useful to overlap expensive work done by the underlying stream, like decompression, with the work done
+ * by the consumer of the stream, like XML parsing.
+ *
+ * @author Erwin Vervaet
+ */
+public class ReadAheadInputStream extends InputStream {
+
+	private static final byte[] END_OF_STREAM = new byte[0];
+
+	private final InputStream source;
+	private final int chunkSize;
+	private final BlockingQueue<byte[]> chunks;
+	private final Thread reader;
+	private volatile Throwable failure;
+	private volatile boolean closed = false;
+
+	private byte[] chunk;
+	private int chunkPos = 0;
+
+	/**
+	 * Start reading ahead from given stream.
+	 *
+	 * @param source the stream to read, which will be closed when this stream is closed
+	 * @param chunkSize the size of the chunks read from the underlying stream
+	 * @param maxChunks the maximum number of chunks read ahead of the consumer
+	 */
+	public ReadAheadInputStream(InputStream source, int chunkSize, int maxChunks) {
+		this.source = requireNonNull(source);
+		this.chunkSize = chunkSize;
+		this.chunks = new ArrayBlockingQueue<>(maxChunks);
+		this.reader = new Thread(this::readAhead, "svn-logstats-read-ahead");
+		this.reader.setDaemon(true);
+		this.reader.start();
+	}
+
+	private void readAhead() {
+		try {
+			while (true) {
+				byte[] buf = new byte[chunkSize];
+				int length = 0;
+				int read = 0;
+				while (length < chunkSize && (read = source.read(buf, length, chunkSize - length)) != -1) {
+					length += read;
+				}
+				if (length > 0) {
+					chunks.put(length == chunkSize ? buf : Arrays.copyOf(buf, length));
+				}
+				if (read == -1) {
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			// closed by the consumer
+			Thread.currentThread().interrupt();
+		} catch (Throwable e) {
+			// also report unexpected failures, the consumer would otherwise wait forever
+			if (!closed) {
+				failure = e;
+			}
+		} finally {
+			try {
+				chunks.put(END_OF_STREAM);
+			} catch (InterruptedException e) {
+				// closed by the consumer
+			}
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!nextChunk()) {
+			return -1;
+		}
+		return chunk[chunkPos++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!nextChunk()) {
+			return -1;
+		}
+		int n = Math.min(len, chunk.length - chunkPos);
+		System.arraycopy(chunk, chunkPos, b, off, n);
+		chunkPos += n;
+		return n;
+	}
+
+	@Override
+	public int available() {
+		return chunk == null ? 0 : chunk.length - chunkPos;
+	}
+
+	/**
+	 * Make sure there is data available in the current chunk. Returns false at the end of the stream.
+	 */
+	private boolean nextChunk() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		if (chunk == END_OF_STREAM) {
+			return false;
+		}
+		if (chunk == null || chunkPos == chunk.length) {
+			try {
+				chunk = chunks.take();
+				chunkPos = 0;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for data", e);
+			}
+			if (chunk == END_OF_STREAM) {
+				if (failure instanceof IOException) {
+					throw (IOException) failure;
+				} else if (failure instanceof RuntimeException) {
+					throw (RuntimeException) failure;
+				} else if (failure instanceof Error) {
+					throw (Error) failure;
+				} else if (failure != null) {
+					throw new IOException(failure);
+				}
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			reader.interrupt();
+			source.close();
+		}
+	}
+}
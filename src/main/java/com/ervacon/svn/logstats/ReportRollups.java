@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Global rollups over the author statistics of a {@link SvnLogEntryAggregator}, computed in a single pass and shared
+ * by the different report writers.
+ *
+ * @author Erwin Vervaet
+ */
+final class ReportRollups {
+
+	/**
+	 * The percentiles of the commit size and message length distributions included in reports.
+	 */
+	static final int[] PERCENTILES = { 50, 90, 99 };
+
+	/**
+	 * The author statistics, sorted by author name.
+	 */
+	final List<SvnAuthorStats> stats;
+	final long[] commitsPerHour = new long[24];
+	final Map<String, Long> fileTypesInCommits = new HashMap<>();
+	final LogHistogram commitSizes = new LogHistogram();
+	final LogHistogram messageLengths = new LogHistogram();
+	long commits = 0;
+
+	ReportRollups(SvnLogEntryAggregator aggregator) {
+		this.stats = aggregator.getStats();
+		for (SvnAuthorStats authorStats : stats) {
+			commits += authorStats.commits;
+			for (int i = 0; i < 24; i++) {
+				commitsPerHour[i] += authorStats.commitsPerHour[i];
+			}
+			authorStats.getFileTypesInCommits().forEach((k, v) -> fileTypesInCommits.merge(k, v, Long::sum));
+			commitSizes.merge(authorStats.commitSizes);
+			messageLengths.merge(authorStats.messageLengths);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the statistics calculated by a {@link SvnLogEntryAggregator} to a report file in a particular format.
+ *
+ * @author Erwin Vervaet
+ */
+public interface ReportWriter {
+
+	/**
+	 * Write the report to its report file, replacing any existing file.
+	 *
+	 * @throws IOException when the report cannot be written
+	 */
+	void writeReport() throws IOException;
+
+	/**
+	 * Write the report to given writer, which should encode characters as UTF-8. The writer is flushed but not
+	 * closed.
+	 *
+	 * @param writer the writer to write to
+	 * @throws IOException when the report cannot be written
+	 */
+	void writeReport(Writer writer) throws IOException;
+}
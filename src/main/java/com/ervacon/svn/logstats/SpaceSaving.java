@@ -0,0 +1,231 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitter sketch: approximately counts the most frequent keys of a stream using a fixed number of
+ * counters.
+ * <p>
+ * As long as no more distinct keys than the capacity of the sketch have been seen, all counts are exact. After that,
+ * a new key replaces the key with the lowest count, inheriting that count as its possible overestimation
+ * ({@link Counter#error}). Any key occurring more than <i>total / capacity</i> times is guaranteed to be in the
+ * sketch. The counters are kept in a min-heap, so updates take <i>O(log capacity)</i>.
+ * <p>
+ * Updating and merging sketches is thread-safe.
+ *
+ * @param <K> the type of the counted keys
+ *
+ * @author Erwin Vervaet
+ */
+public class SpaceSaving<K> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The count of a key in the sketch.
+	 */
+	public static class Counter<K> {
+
+		public final K key;
+		public final long count; // upper bound of the real count
+		public final long error; // maximum overestimation of the count
+
+		public Counter(K key, long count, long error) {
+			this.key = key;
+			this.count = count;
+			this.error = error;
+		}
+	}
+
+	private final int capacity;
+	private final Map<K, Integer> slots = new HashMap<>();
+	private final Object[] keys;
+	private final long[] counts;
+	private final long[] errors;
+	private final int[] heap; // min-heap of slots, ordered by count
+	private final int[] heapPos; // position of every slot in the heap
+	private int size = 0;
+	private boolean exact = true;
+
+	/**
+	 * Create a new sketch.
+	 *
+	 * @param capacity the number of counters
+	 */
+	public SpaceSaving(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Need at least 1 counter");
+		}
+		this.capacity = capacity;
+		this.keys = new Object[capacity];
+		this.counts = new long[capacity];
+		this.errors = new long[capacity];
+		this.heap = new int[capacity];
+		this.heapPos = new int[capacity];
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Count given key.
+	 *
+	 * @param key the key
+	 * @param count the number of occurrences to add
+	 */
+	public synchronized void add(K key, long count) {
+		add(key, count, 0);
+	}
+
+	/**
+	 * Count given counter, typically taken from another sketch, keeping its possible overestimation. Counts in the
+	 * sketch are no longer exact when the counter has an error.
+	 *
+	 * @param counter the counter to add
+	 */
+	public synchronized void add(Counter<K> counter) {
+		add(counter.key, counter.count, counter.error);
+		if (counter.error > 0) {
+			exact = false;
+		}
+	}
+
+	private void add(K key, long count, long error) {
+		Integer slot = slots.get(key);
+		if (slot != null) {
+			counts[slot] += count;
+			errors[slot] += error;
+			siftDown(heapPos[slot]);
+		} else if (size < capacity) {
+			int newSlot = size++;
+			keys[newSlot] = key;
+			counts[newSlot] = count;
+			errors[newSlot] = error;
+			slots.put(key, newSlot);
+			heap[newSlot] = newSlot;
+			heapPos[newSlot] = newSlot;
+			siftUp(newSlot);
+		} else {
+			// replace the key with the lowest count
+			exact = false;
+			int minSlot = heap[0];
+			slots.remove(keys[minSlot]);
+			keys[minSlot] = key;
+			errors[minSlot] = counts[minSlot] + error;
+			counts[minSlot] += count;
+			slots.put(key, minSlot);
+			siftDown(0);
+		}
+	}
+
+	/**
+	 * Merge the counts of given sketch into this sketch. The other sketch is not modified.
+	 *
+	 * @param other the sketch to merge
+	 */
+	public void merge(SpaceSaving<K> other) {
+		List<Counter<K>> counters = other.getTop(other.capacity);
+		boolean otherExact = other.isExact();
+		synchronized (this) {
+			for (Counter<K> counter : counters) {
+				add(counter.key, counter.count, counter.error);
+			}
+			exact &= otherExact;
+		}
+	}
+
+	/**
+	 * Returns true as long as all counts in the sketch are exact.
+	 */
+	public synchronized boolean isExact() {
+		return exact;
+	}
+
+	/**
+	 * Returns the number of keys in the sketch.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the counter for given key, or null when the key is not in the sketch.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized Counter<K> get(K key) {
+		Integer slot = slots.get(key);
+		return slot == null ? null : new Counter<>((K) keys[slot], counts[slot], errors[slot]);
+	}
+
+	/**
+	 * Returns the counters with the highest counts, highest count first.
+	 *
+	 * @param n the maximum number of counters to return
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized List<Counter<K>> getTop(int n) {
+		List<Counter<K>> top = new ArrayList<>(size);
+		for (int slot = 0; slot < size; slot++) {
+			top.add(new Counter<>((K) keys[slot], counts[slot], errors[slot]));
+		}
+		top.sort((c1, c2) -> Long.compare(c2.count, c1.count));
+		return top.subList(0, Math.min(n, top.size()));
+	}
+
+	private void siftUp(int pos) {
+		int slot = heap[pos];
+		while (pos > 0) {
+			int parent = (pos - 1) / 2;
+			if (counts[heap[parent]] <= counts[slot]) {
+				break;
+			}
+			move(heap[parent], pos);
+			pos = parent;
+		}
+		move(slot, pos);
+	}
+
+	private void siftDown(int pos) {
+		int slot = heap[pos];
+		while (true) {
+			int child = 2 * pos + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+				child++;
+			}
+			if (counts[slot] <= counts[heap[child]]) {
+				break;
+			}
+			move(heap[child], pos);
+			pos = child;
+		}
+		move(slot, pos);
+	}
+
+	private void move(int slot, int pos) {
+		heap[pos] = slot;
+		heapPos[slot] = pos;
+	}
+}
@@ -16,77 +16,220 @@
 package com.ervacon.svn.logstats;
 
 import com.ervacon.svn.logstats.SvnLogEntryPath.PathAction;
-import static com.ervacon.svn.logstats.Util.getFilenameExtension;
+import java.io.Serializable;
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoField;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
 /**
  * Aggregated statistics for a specific author found in the Subversion log.
+ * <p>
+ * Updating and merging statistics is thread-safe. The public fields should only be read once all updates have
+ * completed, e.g. after the threads feeding the statistics have been joined.
+ * <p>
+ * All counters are primitive longs. File name extensions are counted by their id in a {@link SymbolTable}, which is an
+ * open addressing string to id table, and path actions by their ordinal, so updating the statistics with a log entry
+ * does not allocate any objects once its extensions are known. When the extension ids assigned to the paths of a log
+ * entry come from the same symbol table, they are used as is.
  */
-public class SvnAuthorStats {
+public class SvnAuthorStats implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	public final String author;
-	public int commits = 0;
-	public int[] commitsPerHour = new int[24];
-	public int pathsInCommits = 0;
-	public Map<String, Integer> fileTypesInCommits = new HashMap<>();
-	public int emptyMsgs = 0;
-	public int msgLength = 0;
-	public ZonedDateTime firstCommit;
-	public ZonedDateTime lastCommit;
-	public Map<PathAction, Integer> actionCounts = new HashMap<>();
+	public long commits = 0;
+	public long[] commitsPerHour = new long[24];
+	public long pathsInCommits = 0;
+	public long emptyMsgs = 0;
+	public long msgLength = 0;
+	public long firstCommitTimestamp = Long.MAX_VALUE;
+	public long lastCommitTimestamp = Long.MIN_VALUE;
+	private ZonedDateTime firstCommit;
+	private ZonedDateTime lastCommit;
+	public long[] actionCounts = new long[PathAction.values().length]; // indexed by ordinal
+	public final TimeSeries timeline = new TimeSeries(TimeSeries.Resolution.MONTH);
+	public final HyperLogLog distinctPaths;
+	public final LogHistogram commitSizes = new LogHistogram(); // paths per commit
+	public final LogHistogram messageLengths = new LogHistogram();
+	private final SymbolTable extensions;
+	private long[] extensionCounts = new long[16]; // indexed by extension id
 
 	public SvnAuthorStats(String author) {
+		this(author, new SymbolTable());
+	}
+
+	/**
+	 * Create statistics for given author, counting file name extensions using given symbol table.
+	 *
+	 * @param author the author
+	 * @param extensions the file name extension symbols, typically shared by all authors
+	 */
+	public SvnAuthorStats(String author, SymbolTable extensions) {
+		this(author, extensions, HyperLogLog.DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Create statistics for given author, counting file name extensions using given symbol table and distinct paths
+	 * using a sketch with given precision.
+	 *
+	 * @param author the author
+	 * @param extensions the file name extension symbols, typically shared by all authors
+	 * @param precision the precision of the distinct paths sketch, see {@link HyperLogLog#HyperLogLog(int)}
+	 */
+	public SvnAuthorStats(String author, SymbolTable extensions, int precision) {
 		this.author = Objects.requireNonNull(author);
+		this.extensions = Objects.requireNonNull(extensions);
+		this.distinctPaths = new HyperLogLog(precision);
 	}
 
-	public void updateWith(SvnLogEntry logEntry) {
+	public synchronized void updateWith(SvnLogEntry logEntry) {
 		if (!author.equals(logEntry.author)) {
 			throw new IllegalArgumentException("Expected log entry for author " + author);
 		}
 
 		commits++;
-		commitsPerHour[logEntry.date.get(ChronoField.HOUR_OF_DAY)]++;
+		commitsPerHour[logEntry.getHourOfDay()]++;
 
 		pathsInCommits += logEntry.paths.size();
 
-		logEntry.paths.forEach(path -> {
-			String extension = getFilenameExtension(path.path);
-			if (extension == null) {
-				extension = "other";
-			}
-			fileTypesInCommits.compute(extension, (k, v) -> v == null ? 1 : v + 1);
-		});
+		boolean sameExtensions = logEntry.symbols != null && logEntry.symbols.extensions == extensions;
+		for (int i = 0; i < logEntry.paths.size(); i++) {
+			SvnLogEntryPath path = logEntry.paths.get(i);
+			countExtension(sameExtensions && path.extensionId >= 0
+					? path.extensionId : SvnLogSymbols.getExtensionId(extensions, path.path), 1);
+			actionCounts[path.action.ordinal()]++;
+			distinctPaths.add(path.getPathHash());
+		}
 
-		logEntry.paths.forEach(path -> actionCounts.compute(path.action, (k, v) -> v == null ? 1 : v + 1));
+		commitSizes.add(logEntry.paths.size());
 
-		if (logEntry.msg == null || logEntry.msg.trim().length() == 0) {
+		int entryMsgLength = logEntry.getMessageLength();
+		messageLengths.add(entryMsgLength);
+		if (entryMsgLength == 0) {
 			emptyMsgs++;
 		} else {
-			msgLength += logEntry.msg.length();
+			msgLength += entryMsgLength;
 		}
 
-		if (firstCommit == null || firstCommit.isAfter(logEntry.date)) {
+		// keep the date of the log entry if it has one, otherwise it is created lazily from the timestamp
+		long timestamp = logEntry.getTimestamp();
+		if (timestamp < firstCommitTimestamp) {
+			firstCommitTimestamp = timestamp;
 			firstCommit = logEntry.date;
 		}
-		if (lastCommit == null || lastCommit.isBefore(logEntry.date)) {
+		if (timestamp > lastCommitTimestamp) {
+			lastCommitTimestamp = timestamp;
 			lastCommit = logEntry.date;
 		}
+
+		timeline.add(timestamp, logEntry.paths.size(), entryMsgLength);
 	}
 
-	public int getAverageCommitSize() {
+	/**
+	 * Merge the statistics collected in given stats object, which should be for the same author, into this object.
+	 * Merging is associative and commutative. The other stats object is not modified and should not be updated while
+	 * the merge is in progress.
+	 *
+	 * @param other the statistics to merge
+	 */
+	public synchronized void merge(SvnAuthorStats other) {
+		if (!author.equals(other.author)) {
+			throw new IllegalArgumentException("Expected stats for author " + author);
+		}
+
+		commits += other.commits;
+		for (int i = 0; i < 24; i++) {
+			commitsPerHour[i] += other.commitsPerHour[i];
+		}
+
+		pathsInCommits += other.pathsInCommits;
+		for (int id = 0; id < other.extensionCounts.length; id++) {
+			if (other.extensionCounts[id] > 0) {
+				countExtension(other.extensions == extensions ? id : extensions.intern(other.extensions.get(id)),
+						other.extensionCounts[id]);
+			}
+		}
+		for (int i = 0; i < actionCounts.length; i++) {
+			actionCounts[i] += other.actionCounts[i];
+		}
+
+		emptyMsgs += other.emptyMsgs;
+		msgLength += other.msgLength;
+
+		if (other.firstCommitTimestamp < firstCommitTimestamp) {
+			firstCommitTimestamp = other.firstCommitTimestamp;
+			firstCommit = other.firstCommit;
+		}
+		if (other.lastCommitTimestamp > lastCommitTimestamp) {
+			lastCommitTimestamp = other.lastCommitTimestamp;
+			lastCommit = other.lastCommit;
+		}
+
+		timeline.merge(other.timeline);
+		distinctPaths.merge(other.distinctPaths);
+		commitSizes.merge(other.commitSizes);
+		messageLengths.merge(other.messageLengths);
+	}
+
+	private void countExtension(int id, long count) {
+		if (id >= extensionCounts.length) {
+			extensionCounts = Arrays.copyOf(extensionCounts, Math.max(id + 1, extensionCounts.length * 2));
+		}
+		extensionCounts[id] += count;
+	}
+
+	/**
+	 * Returns the number of changed paths per file name extension, using "other" for files without an extension.
+	 */
+	public synchronized Map<String, Long> getFileTypesInCommits() {
+		Map<String, Long> fileTypesInCommits = new HashMap<>();
+		for (int id = 0; id < extensionCounts.length; id++) {
+			if (extensionCounts[id] > 0) {
+				fileTypesInCommits.put(extensions.get(id), extensionCounts[id]);
+			}
+		}
+		return fileTypesInCommits;
+	}
+
+	/**
+	 * Returns the date of the first commit, or null when there are no commits.
+	 */
+	public synchronized ZonedDateTime getFirstCommit() {
+		if (firstCommit == null && commits > 0) {
+			firstCommit = Util.toZonedDateTime(firstCommitTimestamp);
+		}
+		return firstCommit;
+	}
+
+	/**
+	 * Returns the date of the last commit, or null when there are no commits.
+	 */
+	public synchronized ZonedDateTime getLastCommit() {
+		if (lastCommit == null && commits > 0) {
+			lastCommit = Util.toZonedDateTime(lastCommitTimestamp);
+		}
+		return lastCommit;
+	}
+
+	public long getAverageCommitSize() {
 		return pathsInCommits / commits;
 	}
 
-	public int getAverageMessageLength() {
+	public long getAverageMessageLength() {
 		return msgLength / commits;
 	}
 
-	public int getActionCount(PathAction action) {
-		return actionCounts.getOrDefault(action, 0);
+	/**
+	 * Returns the estimated number of distinct paths changed by the author.
+	 */
+	public long getDistinctPathCount() {
+		return distinctPaths.estimate();
+	}
+
+	public long getActionCount(PathAction action) {
+		return actionCounts[action.ordinal()];
 	}
 
 	public static int sortByAuthorNameAsc(SvnAuthorStats stats1, SvnAuthorStats stats2) {
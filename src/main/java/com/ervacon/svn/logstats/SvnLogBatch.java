@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import static java.util.Objects.requireNonNull;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Processes many Subversion log files, typically of different repositories, concurrently on a shared pool of worker
+ * threads.
+ * <p>
+ * Every log file is parsed by its own {@link SvnLogParser} feeding its own {@link SvnLogEntryAggregator}, with its own
+ * {@link SvnLogSymbols symbols}. Once a log file has been parsed, its aggregator is passed to a {@link Callback} on the
+ * same worker thread, e.g. to write a report for the repository, and is optionally merged into a combined aggregator
+ * covering all log files. Aggregators are not kept once they have been handled, so memory use depends on the number
+ * of threads rather than the number of log files. Note that the paths of different repositories are not distinguished
+ * in the combined aggregator.
+ *
+ * @author Erwin Vervaet
+ */
+public class SvnLogBatch {
+
+	/**
+	 * Callback handling the statistics of a single log file.
+	 */
+	@FunctionalInterface
+	public static interface Callback {
+
+		/**
+		 * Handle the statistics aggregated for given log file. Called on a worker thread.
+		 *
+		 * @param logFile the log file
+		 * @param aggregator the statistics of the log file
+		 * @throws IOException when handling the statistics fails
+		 */
+		void processed(File logFile, SvnLogEntryAggregator aggregator) throws IOException;
+	}
+
+	private final BiFunction<SvnLogEntryProcessor, SvnLogSymbols, SvnLogParser> parserFactory;
+	private final Function<SvnLogSymbols, SvnLogEntryAggregator> aggregatorFactory;
+	private final int threads;
+
+	/**
+	 * Create a new batch.
+	 *
+	 * @param parserFactory factory creating the parser used to parse a log file, given the processor to feed and the
+	 * symbols of that processor
+	 * @param aggregatorFactory factory creating the aggregator for a log file, given new symbols
+	 * @param threads the number of worker threads to use
+	 */
+	public SvnLogBatch(BiFunction<SvnLogEntryProcessor, SvnLogSymbols, SvnLogParser> parserFactory,
+			Function<SvnLogSymbols, SvnLogEntryAggregator> aggregatorFactory, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Need at least 1 thread");
+		}
+		this.parserFactory = requireNonNull(parserFactory);
+		this.aggregatorFactory = requireNonNull(aggregatorFactory);
+		this.threads = threads;
+	}
+
+	/**
+	 * Process given log files. All log files are processed, even when processing some of them fails. In that case the
+	 * first failure is thrown once all log files have been processed, with the other failures attached as suppressed
+	 * exceptions.
+	 *
+	 * @param logFiles the log files to process
+	 * @param callback the callback handling the statistics of every log file
+	 * @param combined the aggregator to merge the statistics of all log files into, or null to not combine statistics
+	 * @throws IOException when a log file cannot be read or the callback fails
+	 * @throws XMLStreamException when XML parsing fails
+	 */
+	public void process(List<File> logFiles, Callback callback, SvnLogEntryAggregator combined)
+			throws IOException, XMLStreamException {
+		requireNonNull(callback);
+		if (logFiles.isEmpty()) {
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, logFiles.size()));
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (File logFile : logFiles) {
+				results.add(executor.submit(() -> {
+					process(logFile, callback, combined);
+					return null;
+				}));
+			}
+
+			Throwable failure = null;
+			for (Future<?> result : results) {
+				try {
+					result.get();
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause();
+					} else {
+						failure.addSuppressed(e.getCause());
+					}
+				}
+			}
+			if (failure instanceof IOException) {
+				throw (IOException) failure;
+			} else if (failure instanceof XMLStreamException) {
+				throw (XMLStreamException) failure;
+			} else if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			} else if (failure != null) {
+				throw new IllegalStateException(failure);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while processing log files", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void process(File logFile, Callback callback, SvnLogEntryAggregator combined)
+			throws IOException, XMLStreamException {
+		SvnLogSymbols symbols = new SvnLogSymbols();
+		SvnLogEntryAggregator aggregator = aggregatorFactory.apply(symbols);
+		try {
+			parserFactory.apply(aggregator, symbols).parse(logFile);
+		} catch (XMLStreamException e) {
+			throw new XMLStreamException("Cannot parse log file " + logFile + ": " + e.getMessage(), e);
+		}
+		callback.processed(logFile, aggregator);
+		if (combined != null) {
+			synchronized (combined) {
+				combined.merge(aggregator);
+			}
+		}
+	}
+}
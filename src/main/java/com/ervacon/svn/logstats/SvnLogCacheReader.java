@@ -0,0 +1,286 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Replays the log entries stored in a cache file written by a {@link SvnLogCacheWriter} into a
+ * {@link SvnLogEntryProcessor}.
+ * <p>
+ * The blocks of the cache file are memory-mapped one at a time and their columns are read in bulk. Authors and paths
+ * are decoded only once, when they first appear in the cache, and their {@link SvnLogSymbols symbol} ids are
+ * assigned up front, so replaying a log entry boils down to filling in a few primitive fields.
+ *
+ * @see SvnLogCacheWriter
+ *
+ * @author Erwin Vervaet
+ */
+public class SvnLogCacheReader {
+
+	private final SvnLogEntryProcessor entryProcessor;
+	private final SvnLogSymbols symbols;
+	private SvnLogEntryFilter filter = new SvnLogEntryFilter();
+	private SvnLogMetrics metrics; // optional
+
+	public SvnLogCacheReader(SvnLogEntryProcessor entryProcessor) {
+		this(entryProcessor, new SvnLogSymbols());
+	}
+
+	/**
+	 * Create a new cache reader assigning ids from given symbols to the replayed log entries.
+	 *
+	 * @param entryProcessor the processor to feed
+	 * @param symbols the symbols to use, typically shared with the aggregator being fed
+	 */
+	public SvnLogCacheReader(SvnLogEntryProcessor entryProcessor, SvnLogSymbols symbols) {
+		this.entryProcessor = Objects.requireNonNull(entryProcessor);
+		this.symbols = Objects.requireNonNull(symbols);
+	}
+
+	/**
+	 * Only replay log entries accepted by given filter. Other log entries are skipped using the revision, author and
+	 * timestamp columns, without creating any objects for them.
+	 *
+	 * @param filter the filter to use
+	 */
+	public void setFilter(SvnLogEntryFilter filter) {
+		this.filter = Objects.requireNonNull(filter);
+	}
+
+	/**
+	 * Count the bytes replayed by this reader in given metrics.
+	 *
+	 * @param metrics the metrics to update, or null to not collect metrics
+	 */
+	public void setMetrics(SvnLogMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Check whether or not given cache file exists, was written using the current cache format and is up to date
+	 * with given log file.
+	 *
+	 * @param cacheFile the cache file
+	 * @param logFile the log file the cache was created from, or null when reading standard input, in which case a
+	 * cache is never up to date
+	 * @return true if the cache file can be replayed instead of parsing the log file
+	 */
+	public static boolean isUpToDate(File cacheFile, File logFile) {
+		if (logFile == null || !cacheFile.isFile()) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new FileInputStream(cacheFile))) {
+			if (!SvnLogCacheWriter.MAGIC.equals(in.readUTF()) || in.readInt() != SvnLogCacheWriter.VERSION) {
+				return false;
+			}
+			in.readBoolean();
+			long logFileLength = in.readLong();
+			long logFileLastModified = in.readLong();
+			return logFile.length() == logFileLength && logFile.lastModified() == logFileLastModified;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Replay all log entries stored in given cache file.
+	 *
+	 * @param cacheFile the cache file
+	 * @throws IOException when the cache file cannot be read, was written using another cache format or is incomplete
+	 */
+	public void replay(File cacheFile) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(cacheFile, "r"); FileChannel channel = file.getChannel()) {
+			if (!SvnLogCacheWriter.MAGIC.equals(file.readUTF()) || file.readInt() != SvnLogCacheWriter.VERSION) {
+				throw new IOException("File " + cacheFile + " is not a compatible cache file");
+			}
+			boolean includesMessages = file.readBoolean();
+			file.readLong(); // log file length and date, see isUpToDate()
+			file.readLong();
+			long position = file.getFilePointer();
+
+			Block block = new Block(includesMessages);
+			while (true) {
+				file.seek(position);
+				int length = file.readInt();
+				if (length < 0) {
+					return;
+				}
+				if (position + 4 + length > channel.size()) {
+					break;
+				}
+				block.replay(channel.map(FileChannel.MapMode.READ_ONLY, position + 4, length));
+				position += 4 + length;
+				if (metrics != null) {
+					metrics.addBytesRead(4 + length);
+				}
+			}
+		} catch (IOException | BufferUnderflowException e) {
+			throw new IOException("File " + cacheFile + " is not a complete cache file", e);
+		}
+		throw new IOException("File " + cacheFile + " is not a complete cache file");
+	}
+
+	/**
+	 * Replays blocks, keeping track of the authors and paths introduced by earlier blocks.
+	 */
+	private class Block {
+
+		private final boolean includesMessages;
+		private String[] authors = new String[64];
+		private int[] authorIds = new int[64]; // ids in the symbols
+		private int authorCount = 0;
+		private String[] paths = new String[1024];
+		private int[] extensionIds = new int[1024];
+		private int pathCount = 0;
+
+		private int[] revisions = new int[0];
+		private int[] entryAuthors = new int[0];
+		private long[] timestamps = new long[0];
+		private int[] pathCounts = new int[0];
+		private int[] entryPaths = new int[0];
+		private byte[] pathBits = new byte[0];
+		private int[] messageLengths = new int[0];
+
+		private Block(boolean includesMessages) {
+			this.includesMessages = includesMessages;
+		}
+
+		private void replay(MappedByteBuffer buffer) {
+			int entries = buffer.getInt();
+			int blockPaths = buffer.getInt();
+			readAuthors(buffer);
+			readPaths(buffer);
+			if (revisions.length < entries) {
+				revisions = new int[entries];
+				entryAuthors = new int[entries];
+				timestamps = new long[entries];
+				pathCounts = new int[entries];
+				messageLengths = new int[entries];
+			}
+			if (entryPaths.length < blockPaths) {
+				entryPaths = new int[blockPaths];
+				pathBits = new byte[blockPaths];
+			}
+			buffer.asIntBuffer().get(revisions, 0, entries);
+			buffer.position(buffer.position() + 4 * entries);
+			buffer.asIntBuffer().get(entryAuthors, 0, entries);
+			buffer.position(buffer.position() + 4 * entries);
+			buffer.asLongBuffer().get(timestamps, 0, entries);
+			buffer.position(buffer.position() + 8 * entries);
+			buffer.asIntBuffer().get(pathCounts, 0, entries);
+			buffer.position(buffer.position() + 4 * entries);
+			buffer.asIntBuffer().get(entryPaths, 0, blockPaths);
+			buffer.position(buffer.position() + 4 * blockPaths);
+			buffer.get(pathBits, 0, blockPaths);
+			buffer.asIntBuffer().get(messageLengths, 0, entries);
+			buffer.position(buffer.position() + 4 * entries);
+
+			SvnLogEntryPath.PathAction[] actions = SvnLogEntryPath.PathAction.values();
+			int path = 0;
+			for (int i = 0; i < entries; i++) {
+				String author = entryAuthors[i] >= 0 ? authors[entryAuthors[i]] : null;
+				if (!filter.acceptsRevision(revisions[i]) || !filter.acceptsAuthor(author)
+						|| !filter.acceptsTimestamp(timestamps[i])) {
+					path += pathCounts[i];
+					if (includesMessages) {
+						skipString(buffer);
+					}
+					continue;
+				}
+
+				SvnLogEntry logEntry = new SvnLogEntry();
+				logEntry.symbols = symbols;
+				logEntry.revision = revisions[i];
+				if (author != null) {
+					logEntry.author = author;
+					logEntry.authorId = authorIds[entryAuthors[i]];
+				}
+				logEntry.timestamp = timestamps[i];
+				for (int end = path + pathCounts[i]; path < end; path++) {
+					int pathId = entryPaths[path];
+					SvnLogEntryPath logEntryPath = new SvnLogEntryPath();
+					logEntryPath.action = actions[pathBits[path] >> 1];
+					logEntryPath.kind = (pathBits[path] & 1) != 0
+							? SvnLogEntryPath.PathKind.DIR : SvnLogEntryPath.PathKind.FILE;
+					logEntryPath.path = paths[pathId];
+					logEntryPath.extensionId = extensionIds[pathId];
+					logEntry.paths.add(logEntryPath);
+				}
+				if (includesMessages) {
+					logEntry.msg = readString(buffer);
+				}
+				if (logEntry.msg == null) {
+					logEntry.msgLength = messageLengths[i];
+				}
+				entryProcessor.process(logEntry);
+			}
+		}
+
+		private void readAuthors(MappedByteBuffer buffer) {
+			int count = buffer.getInt();
+			if (authorCount + count > authors.length) {
+				authors = Arrays.copyOf(authors, Math.max(authorCount + count, authors.length * 2));
+				authorIds = Arrays.copyOf(authorIds, authors.length);
+			}
+			for (int i = 0; i < count; i++, authorCount++) {
+				authors[authorCount] = readString(buffer);
+				authorIds[authorCount] = symbols.authors.intern(authors[authorCount]);
+				authors[authorCount] = symbols.authors.get(authorIds[authorCount]); // the canonical string
+			}
+		}
+
+		private void readPaths(MappedByteBuffer buffer) {
+			int count = buffer.getInt();
+			if (pathCount + count > paths.length) {
+				paths = Arrays.copyOf(paths, Math.max(pathCount + count, paths.length * 2));
+				extensionIds = Arrays.copyOf(extensionIds, paths.length);
+			}
+			for (int i = 0; i < count; i++, pathCount++) {
+				paths[pathCount] = readString(buffer);
+				extensionIds[pathCount] = symbols.getExtensionId(paths[pathCount]);
+			}
+		}
+
+		private void skipString(MappedByteBuffer buffer) {
+			int length = buffer.getInt();
+			if (length > 0) {
+				buffer.position(buffer.position() + length);
+			}
+		}
+
+		private String readString(MappedByteBuffer buffer) {
+			int length = buffer.getInt();
+			if (length < 0) {
+				return null;
+			}
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			return new String(bytes, UTF_8);
+		}
+	}
+}
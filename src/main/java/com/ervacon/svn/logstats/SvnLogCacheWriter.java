@@ -0,0 +1,241 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * {@link SvnLogEntryProcessor} writing the processed log entries to a compact, columnar, binary cache file that can be
+ * {@link SvnLogCacheReader replayed} much faster than the XML log can be parsed.
+ * <p>
+ * The cache file starts with a header identifying the format version and the log file it was created from, followed by
+ * blocks of up to {@value #BLOCK_SIZE} log entries. Each block first lists the authors and paths that were not seen in
+ * earlier blocks, and then stores the revisions, author ids, timestamps, path counts, path ids, path action/kind bits,
+ * message lengths and, optionally, the commit messages of its log entries, one column after the other. The message
+ * lengths are stored even when the messages are not, or when the log entries were parsed without
+ * {@link SvnLogParser#setIncludeMessages(boolean) message text}, so replayed log entries always report their
+ * {@link SvnLogEntry#getMessageLength() message length}. Every block is preceded by its length in bytes, and a
+ * negative length marks the end of the file, so incomplete cache files are detected. The cache file is written to a
+ * temporary file first and only replaces an existing cache once it has been closed. A cache writer that is discarded,
+ * or fails to close, deletes its temporary file and leaves an existing cache untouched.
+ * <p>
+ * Commit dates are stored as UTC timestamps. A cache writer is not thread-safe.
+ *
+ * @see SvnLogCacheReader
+ *
+ * @author Erwin Vervaet
+ */
+public class SvnLogCacheWriter implements SvnLogEntryProcessor, Closeable {
+
+	static final String MAGIC = "svn-logstats-cache";
+	static final int VERSION = 2;
+	static final int BLOCK_SIZE = 8192;
+
+	private final File cacheFile;
+	private final File tmpFile;
+	private final boolean includeMessages;
+	private final DataOutputStream out;
+	private boolean closed = false;
+	private final SymbolTable authors = new SymbolTable();
+	private final SymbolTable paths = new SymbolTable();
+	private int writtenAuthors = 0;
+	private int writtenPaths = 0;
+
+	// the columns of the current block
+	private int entryCount = 0;
+	private int pathCount = 0;
+	private final int[] revisions = new int[BLOCK_SIZE];
+	private final int[] authorIds = new int[BLOCK_SIZE];
+	private final long[] timestamps = new long[BLOCK_SIZE];
+	private final int[] pathCounts = new int[BLOCK_SIZE];
+	private final int[] messageLengths = new int[BLOCK_SIZE];
+	private final String[] messages = new String[BLOCK_SIZE];
+	private int[] pathIds = new int[BLOCK_SIZE];
+	private byte[] pathBits = new byte[BLOCK_SIZE];
+
+	/**
+	 * Create a new cache writer.
+	 *
+	 * @param cacheFile the cache file to write
+	 * @param logFile the log file the log entries are read from, used to detect stale caches, or null when unknown
+	 * @param includeMessages whether or not to store the commit messages
+	 * @throws IOException when the cache file cannot be created
+	 */
+	public SvnLogCacheWriter(File cacheFile, File logFile, boolean includeMessages) throws IOException {
+		this.cacheFile = cacheFile;
+		this.tmpFile = new File(cacheFile.getPath() + ".tmp");
+		this.includeMessages = includeMessages;
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 64 * 1024));
+		out.writeUTF(MAGIC);
+		out.writeInt(VERSION);
+		out.writeBoolean(includeMessages);
+		out.writeLong(logFile != null ? logFile.length() : -1);
+		out.writeLong(logFile != null ? logFile.lastModified() : -1);
+	}
+
+	@Override
+	public void process(SvnLogEntry logEntry) {
+		int entryPaths = logEntry.paths.size();
+		if (pathCount + entryPaths > pathIds.length) {
+			pathIds = Arrays.copyOf(pathIds, Math.max(pathCount + entryPaths, pathIds.length * 2));
+			pathBits = Arrays.copyOf(pathBits, pathIds.length);
+		}
+
+		revisions[entryCount] = logEntry.revision;
+		authorIds[entryCount] = logEntry.author != null ? authors.intern(logEntry.author) : -1;
+		timestamps[entryCount] = logEntry.getTimestamp();
+		pathCounts[entryCount] = entryPaths;
+		messageLengths[entryCount] = logEntry.getMessageLength();
+		messages[entryCount] = logEntry.msg;
+		for (int i = 0; i < entryPaths; i++) {
+			SvnLogEntryPath path = logEntry.paths.get(i);
+			pathIds[pathCount] = paths.intern(path.path);
+			pathBits[pathCount] = toBits(path);
+			pathCount++;
+		}
+		entryCount++;
+
+		if (entryCount == BLOCK_SIZE) {
+			try {
+				writeBlock();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot write cache file " + tmpFile, e);
+			}
+		}
+	}
+
+	private static byte toBits(SvnLogEntryPath path) {
+		return (byte) ((path.action.ordinal() << 1) | (path.kind == SvnLogEntryPath.PathKind.DIR ? 1 : 0));
+	}
+
+	private void writeBlock() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(entryCount * 32 + pathCount * 8);
+		DataOutputStream block = new DataOutputStream(bytes);
+		block.writeInt(entryCount);
+		block.writeInt(pathCount);
+		writtenAuthors = writeSymbols(block, authors, writtenAuthors);
+		writtenPaths = writeSymbols(block, paths, writtenPaths);
+		for (int i = 0; i < entryCount; i++) {
+			block.writeInt(revisions[i]);
+		}
+		for (int i = 0; i < entryCount; i++) {
+			block.writeInt(authorIds[i]);
+		}
+		for (int i = 0; i < entryCount; i++) {
+			block.writeLong(timestamps[i]);
+		}
+		for (int i = 0; i < entryCount; i++) {
+			block.writeInt(pathCounts[i]);
+		}
+		for (int i = 0; i < pathCount; i++) {
+			block.writeInt(pathIds[i]);
+		}
+		block.write(pathBits, 0, pathCount);
+		for (int i = 0; i < entryCount; i++) {
+			block.writeInt(messageLengths[i]);
+		}
+		if (includeMessages) {
+			for (int i = 0; i < entryCount; i++) {
+				writeString(block, messages[i]);
+			}
+		}
+		Arrays.fill(messages, null);
+		block.flush();
+
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+		entryCount = 0;
+		pathCount = 0;
+	}
+
+	private static int writeSymbols(DataOutputStream block, SymbolTable symbols, int written) throws IOException {
+		int size = symbols.size();
+		block.writeInt(size - written);
+		for (int id = written; id < size; id++) {
+			writeString(block, symbols.get(id));
+		}
+		return size;
+	}
+
+	private static void writeString(DataOutputStream block, String text) throws IOException {
+		if (text == null) {
+			block.writeInt(-1);
+		} else {
+			byte[] bytes = text.getBytes(UTF_8);
+			block.writeInt(bytes.length);
+			block.write(bytes);
+		}
+	}
+
+	/**
+	 * Write the remaining log entries and replace the cache file with the newly written one. Does nothing when this
+	 * cache writer was already closed or discarded.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		boolean written = false;
+		try {
+			if (entryCount > 0) {
+				writeBlock();
+			}
+			out.writeInt(-1); // end marker
+			out.close();
+			written = true;
+		} finally {
+			if (!written) {
+				discardTmpFile();
+			}
+		}
+		Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Discard the log entries written so far, deleting the temporary file and keeping an existing cache file. Does
+	 * nothing when this cache writer was already closed, so it can safely be called when processing failed.
+	 */
+	public void discard() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		discardTmpFile();
+	}
+
+	private void discardTmpFile() throws IOException {
+		try {
+			out.close();
+		} catch (IOException e) {
+			// the file is deleted anyway
+		}
+		Files.deleteIfExists(tmpFile.toPath());
+	}
+}
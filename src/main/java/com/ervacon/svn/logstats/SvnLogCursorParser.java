@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static java.lang.Integer.parseInt;
+
+import com.ervacon.svn.logstats.SvnLogEntryPath.PathAction;
+import com.ervacon.svn.logstats.SvnLogEntryPath.PathKind;
+import java.io.InputStream;
+import java.io.Reader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * {@link SvnLogParser} using the StAX cursor API ({@link XMLStreamReader}) instead of the event API.
+ * <p>
+ * The cursor API does not allocate an event object for every tag and text chunk in the log file, and attributes are
+ * looked up by index, so this parser puts a lot less pressure on the garbage collector when processing very large log
+ * files. The produced {@link SvnLogEntry} objects are identical to the ones produced by the event based
+ * {@link SvnLogParser}.
+ *
+ * @author Erwin Vervaet
+ */
+public class SvnLogCursorParser extends SvnLogParser {
+
+	/**
+	 * Create a new parser which will push entries to given processor for processing.
+	 *
+	 * @param entryProcessor the processor to use to process log file entries
+	 */
+	public SvnLogCursorParser(SvnLogEntryProcessor entryProcessor) {
+		super(entryProcessor);
+	}
+
+	/**
+	 * Create a new parser which will push entries to given processor for processing, assigning ids from given symbols
+	 * to the authors and paths of those entries.
+	 *
+	 * @param entryProcessor the processor to use to process log file entries
+	 * @param symbols the symbols to use
+	 */
+	public SvnLogCursorParser(SvnLogEntryProcessor entryProcessor, SvnLogSymbols symbols) {
+		super(entryProcessor, symbols);
+	}
+
+	@Override
+	public void parse(InputStream logFileStream) throws XMLStreamException {
+		parse(XMLInputFactory.newFactory().createXMLStreamReader(metered(logFileStream)));
+	}
+
+	@Override
+	public void parse(Reader logFileReader) throws XMLStreamException {
+		parse(XMLInputFactory.newFactory().createXMLStreamReader(logFileReader));
+	}
+
+	private void parse(XMLStreamReader xmlReader) throws XMLStreamException {
+		SvnLogEntry logEntry = null;
+		SvnLogEntryPath logEntryPath = null;
+		StringBuilder buf = new StringBuilder(256);
+		boolean collecting = false;
+
+		try {
+			while (xmlReader.hasNext()) {
+				switch (xmlReader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						switch (xmlReader.getLocalName()) {
+							case "logentry":
+								logEntry = newLogEntry();
+								logEntry.revision = parseInt(getAttribute(xmlReader, "revision"));
+								if (!filter.acceptsRevision(logEntry.revision)) {
+									skipLogEntry(xmlReader);
+								}
+								break;
+
+							case "author":
+							case "date":
+							case "msg":
+								buf.setLength(0);
+								collecting = true;
+								break;
+
+							case "path":
+								logEntryPath = new SvnLogEntryPath();
+								logEntryPath.action = PathAction.valueOf(getAttribute(xmlReader, "action"));
+								logEntryPath.kind = PathKind.valueOf(getAttribute(xmlReader, "kind").toUpperCase());
+								buf.setLength(0);
+								collecting = true;
+								break;
+						}
+						break;
+
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.CDATA:
+					case XMLStreamConstants.SPACE:
+						if (collecting) {
+							buf.append(xmlReader.getTextCharacters(), xmlReader.getTextStart(), xmlReader.getTextLength());
+						}
+						break;
+
+					case XMLStreamConstants.END_ELEMENT:
+						switch (xmlReader.getLocalName()) {
+							case "logentry":
+								if (filter.accepts(logEntry)) {
+									entryProcessor.process(logEntry);
+								}
+								logEntry = null;
+								break;
+
+							case "author":
+								setAuthor(logEntry, buf);
+								collecting = false;
+								if (!filter.acceptsAuthor(logEntry.author)) {
+									skipLogEntry(xmlReader);
+								}
+								break;
+
+							case "date":
+								parseDate(logEntry, buf);
+								collecting = false;
+								if (!filter.acceptsTimestamp(logEntry.getTimestamp())) {
+									skipLogEntry(xmlReader);
+								}
+								break;
+
+							case "path":
+								logEntryPath.path = trimmed(buf);
+								addPath(logEntry, logEntryPath);
+								logEntryPath = null;
+								collecting = false;
+								break;
+
+							case "msg":
+								setMessage(logEntry, buf);
+								collecting = false;
+								break;
+						}
+						break;
+				}
+			}
+		} finally {
+			xmlReader.close();
+		}
+	}
+
+	/**
+	 * Skip the rest of the current log entry without looking at its text, leaving the reader positioned on the end
+	 * tag of the log entry so the log entry is dropped.
+	 */
+	private static void skipLogEntry(XMLStreamReader xmlReader) throws XMLStreamException {
+		int depth = 0;
+		while (true) {
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				if (depth == 0) {
+					return;
+				}
+				depth--;
+			}
+		}
+	}
+
+	private static String getAttribute(XMLStreamReader xmlReader, String localName) throws XMLStreamException {
+		for (int i = 0, count = xmlReader.getAttributeCount(); i < count; i++) {
+			if (localName.equals(xmlReader.getAttributeLocalName(i))) {
+				return xmlReader.getAttributeValue(i);
+			}
+		}
+		throw new XMLStreamException("Missing '" + localName + "' attribute", xmlReader.getLocation());
+	}
+
+	/**
+	 * Equivalent of <code>buf.toString().trim()</code> that only allocates the resulting string.
+	 */
+	private static String trimmed(StringBuilder buf) {
+		int start = 0;
+		int end = buf.length();
+		while (start < end && buf.charAt(start) <= ' ') {
+			start++;
+		}
+		while (start < end && buf.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		return buf.substring(start, end);
+	}
+}
@@ -15,12 +15,20 @@
  */
 package com.ervacon.svn.logstats;
 
+import static com.ervacon.svn.logstats.Util.NO_TIMESTAMP;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * An entry in a Subversion log file.
+ * <p>
+ * The commit date can be set as a {@link ZonedDateTime} or as a primitive {@link #timestamp} in microseconds since the
+ * epoch. The parsers only set the timestamp when possible, avoiding the cost of creating date objects for every log
+ * entry: use {@link #getDate()} and {@link #getTimestamp()} to read the commit date regardless of how it was set.
+ * <p>
+ * Parsers also assign {@link SvnLogSymbols symbol} ids to the author and paths of the log entry, allowing processors
+ * using the same symbols to avoid working with strings.
  *
  * @author Erwin Vervaet
  */
@@ -28,8 +36,58 @@ public class SvnLogEntry {
 
 	public int revision;
 	public String author;
+	public int authorId = -1; // id of the author in the symbols, if any
+	public SvnLogSymbols symbols; // the symbols the ids in this log entry refer to, if any
 	public ZonedDateTime date;
+	public long timestamp = NO_TIMESTAMP;
 	public List<SvnLogEntryPath> paths = new ArrayList<>();
 	public String msg;
+	public int msgLength = -1; // length of the trimmed message when the parser did not keep its text
 
+	/**
+	 * Returns the commit date, creating it from the timestamp if needed.
+	 */
+	public ZonedDateTime getDate() {
+		if (date == null && timestamp != NO_TIMESTAMP) {
+			date = Util.toZonedDateTime(timestamp);
+		}
+		return date;
+	}
+
+	/**
+	 * Returns the commit date in microseconds since the epoch, or {@link Util#NO_TIMESTAMP} when the date is not known.
+	 */
+	public long getTimestamp() {
+		if (timestamp == NO_TIMESTAMP && date != null) {
+			timestamp = Util.toTimestamp(date);
+		}
+		return timestamp;
+	}
+
+	/**
+	 * Returns the length of the commit message, or 0 when the message is empty or only contains whitespace.
+	 */
+	public int getMessageLength() {
+		if (msg == null && msgLength >= 0) {
+			return msgLength;
+		}
+		if (msg != null) {
+			for (int i = 0; i < msg.length(); i++) {
+				if (msg.charAt(i) > ' ') {
+					return msg.length();
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the hour of the day of the commit, in the time zone of the commit date (UTC for timestamps).
+	 */
+	public int getHourOfDay() {
+		if (date != null) {
+			return date.getHour();
+		}
+		return (int) Math.floorMod(Math.floorDiv(timestamp, 3600000000L), 24L);
+	}
 }
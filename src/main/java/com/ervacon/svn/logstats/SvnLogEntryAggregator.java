@@ -17,29 +17,277 @@ package com.ervacon.svn.logstats;
 
 import static java.util.stream.Collectors.toList;
 
+import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * {@link SvnLogEntryProcessor} that aggregates processed {@link SvnLogEntry log entries} and calculates a number of
  * interesting statistics.
+ * <p>
+ * An aggregator can safely be fed from several threads at the same time. Alternatively, separate aggregators can be
+ * fed independently, e.g. by different threads or on different machines, and {@link #merge(SvnLogEntryAggregator)
+ * merged} afterwards. Merging is associative and commutative, so the order in which partial results are combined does
+ * not matter.
+ * <p>
+ * Log entries produced by a parser using the {@link #getSymbols() symbols} of the aggregator are looked up by their
+ * author id rather than by author name.
+ * <p>
+ * The {@link #setDirectoryHotspots(DirectoryHotspots) directory hotspots},
+ * {@link #setDistinctTimeline(DistinctTimeSeries) distinct counts per month} and
+ * {@link #setCoChanges(CoChangeAnalyzer) co-changes} are opt-in: these analyses update shared sketches under a lock,
+ * so they limit how well an aggregator fed from several threads scales, e.g. by a {@link SvnLogEntryPipeline}.
+ * <p>
+ * Aggregators are serializable so that their state can be saved in a {@link SvnLogStatsSnapshot snapshot} and updated
+ * incrementally later on.
  *
  * @author Erwin Vervaet
  */
-public class SvnLogEntryAggregator implements SvnLogEntryProcessor {
+public class SvnLogEntryAggregator implements SvnLogEntryProcessor, Serializable {
 
-	private final Map<String, SvnAuthorStats> statsPerAuthor = new HashMap<>();
+	private static final long serialVersionUID = 1L;
+
+	private final SvnLogSymbols symbols;
+	private final Map<String, SvnAuthorStats> statsPerAuthor = new ConcurrentHashMap<>();
+	private final AtomicInteger lastRevision = new AtomicInteger(0);
+	private final TimeSeries timeline = new TimeSeries(TimeSeries.Resolution.DAY);
+	private volatile DirectoryHotspots hotspots; // null when not tracked
+	private volatile CoChangeAnalyzer coChanges; // null when not tracked
+	private volatile DistinctTimeSeries distinct; // null when not tracked
+	private volatile int distinctPrecision = HyperLogLog.DEFAULT_PRECISION;
+	private transient volatile AtomicReferenceArray<SvnAuthorStats> statsPerAuthorId;
+
+	public SvnLogEntryAggregator() {
+		this(new SvnLogSymbols());
+	}
+
+	/**
+	 * Create a new aggregator using given symbols, which are typically shared with the parser feeding the aggregator.
+	 *
+	 * @param symbols the symbols to use
+	 */
+	public SvnLogEntryAggregator(SvnLogSymbols symbols) {
+		this.symbols = Objects.requireNonNull(symbols);
+	}
+
+	/**
+	 * Returns the symbols used by this aggregator. Parsers using the same symbols allow the aggregator to work with
+	 * symbol ids instead of strings.
+	 */
+	public SvnLogSymbols getSymbols() {
+		return symbols;
+	}
 
 	@Override
 	public void process(SvnLogEntry logEntry) {
-		statsPerAuthor.putIfAbsent(logEntry.author, new SvnAuthorStats(logEntry.author));
-		statsPerAuthor.get(logEntry.author).updateWith(logEntry);
+		SvnAuthorStats stats = logEntry.symbols == symbols && logEntry.authorId >= 0
+				? getOrCreateStats(logEntry.authorId, logEntry.author) : getOrCreateStats(logEntry.author);
+		stats.updateWith(logEntry);
+		timeline.add(logEntry.getTimestamp(), logEntry.paths.size(), logEntry.getMessageLength());
+		DirectoryHotspots hotspots = this.hotspots;
+		if (hotspots != null) {
+			hotspots.add(logEntry);
+		}
+		DistinctTimeSeries distinct = this.distinct;
+		if (distinct != null) {
+			distinct.add(logEntry);
+		}
+		CoChangeAnalyzer coChanges = this.coChanges;
+		if (coChanges != null) {
+			coChanges.process(logEntry);
+		}
+		updateLastRevision(logEntry.revision);
+	}
+
+	/**
+	 * Merge the statistics aggregated by given aggregator into this aggregator. The other aggregator is not modified
+	 * and should not be updated while the merge is in progress.
+	 *
+	 * @param other the aggregator to merge
+	 * @throws IllegalArgumentException when the other aggregator does not track the same opt-in analyses
+	 */
+	public void merge(SvnLogEntryAggregator other) {
+		if ((hotspots == null) != (other.hotspots == null) || (distinct == null) != (other.distinct == null)
+				|| (coChanges == null) != (other.coChanges == null)) {
+			throw new IllegalArgumentException("Cannot merge an aggregator tracking " + other.getAnalysesDescription()
+					+ " into an aggregator tracking " + getAnalysesDescription());
+		}
+		other.statsPerAuthor.values().forEach(stats -> getOrCreateStats(stats.author).merge(stats));
+		timeline.merge(other.timeline);
+		if (hotspots != null) {
+			hotspots.merge(other.hotspots);
+		}
+		if (distinct != null) {
+			distinct.merge(other.distinct);
+		}
+		if (coChanges != null) {
+			coChanges.merge(other.coChanges);
+		}
+		updateLastRevision(other.getLastRevision());
+	}
+
+	private void updateLastRevision(int revision) {
+		if (revision > lastRevision.get()) {
+			lastRevision.accumulateAndGet(revision, Math::max);
+		}
+	}
+
+	private SvnAuthorStats getOrCreateStats(String author) {
+		// avoid the locking done by computeIfAbsent() in the common case where the author is already known
+		SvnAuthorStats stats = statsPerAuthor.get(author);
+		if (stats == null) {
+			stats = statsPerAuthor.computeIfAbsent(author, key -> new SvnAuthorStats(key, symbols.extensions, distinctPrecision));
+		}
+		return stats;
+	}
+
+	private SvnAuthorStats getOrCreateStats(int authorId, String author) {
+		AtomicReferenceArray<SvnAuthorStats> statsPerAuthorId = this.statsPerAuthorId;
+		SvnAuthorStats stats = statsPerAuthorId != null && authorId < statsPerAuthorId.length()
+				? statsPerAuthorId.get(authorId) : null;
+		if (stats == null) {
+			stats = getOrCreateStats(author);
+			synchronized (this) {
+				statsPerAuthorId = this.statsPerAuthorId;
+				if (statsPerAuthorId == null || authorId >= statsPerAuthorId.length()) {
+					AtomicReferenceArray<SvnAuthorStats> grown = new AtomicReferenceArray<>(Math.max(authorId + 1,
+							statsPerAuthorId == null ? 64 : statsPerAuthorId.length() * 2));
+					for (int i = 0; statsPerAuthorId != null && i < statsPerAuthorId.length(); i++) {
+						grown.set(i, statsPerAuthorId.get(i));
+					}
+					this.statsPerAuthorId = statsPerAuthorId = grown;
+				}
+				statsPerAuthorId.set(authorId, stats);
+			}
+		}
+		return stats;
+	}
+
+	/**
+	 * Returns the daily time series of all commits. Per author time series are kept by month in
+	 * {@link SvnAuthorStats#timeline}.
+	 */
+	public TimeSeries getTimeline() {
+		return timeline;
+	}
+
+	/**
+	 * Returns the most changed directories and files, or null when they are not tracked.
+	 */
+	public DirectoryHotspots getDirectoryHotspots() {
+		return hotspots;
+	}
+
+	/**
+	 * Use given hotspots to track the most changed directories and files, e.g. with a specific depth or node budget.
+	 * This should be done before any log entries are processed.
+	 *
+	 * @param hotspots the hotspots to update, or null to not track hotspots
+	 */
+	public void setDirectoryHotspots(DirectoryHotspots hotspots) {
+		this.hotspots = hotspots;
+	}
+
+	/**
+	 * Returns the analyzer finding files that are frequently changed together, or null when co-changes are not tracked.
+	 */
+	public CoChangeAnalyzer getCoChanges() {
+		return coChanges;
+	}
+
+	/**
+	 * Use given analyzer to find files that are frequently changed together, e.g. with a specific maximum number of
+	 * paths per commit. This should be done before any log entries are processed.
+	 *
+	 * @param coChanges the analyzer to update, or null to not track co-changes
+	 */
+	public void setCoChanges(CoChangeAnalyzer coChanges) {
+		this.coChanges = coChanges;
+	}
+
+	/**
+	 * Returns the approximate number of distinct changed paths and distinct authors per month, or null when they are
+	 * not tracked.
+	 */
+	public DistinctTimeSeries getDistinctTimeline() {
+		return distinct;
+	}
+
+	/**
+	 * Use given time series to count the distinct changed paths and distinct authors per month. This should be done
+	 * before any log entries are processed.
+	 *
+	 * @param distinct the time series to update, or null to not count distinct paths and authors per month
+	 */
+	public void setDistinctTimeline(DistinctTimeSeries distinct) {
+		this.distinct = distinct;
+	}
+
+	/**
+	 * Set the precision of the sketches used to count the distinct paths changed by each author, trading accuracy for
+	 * memory. This should be done before any log entries are processed.
+	 *
+	 * @param precision the sketch precision, see {@link HyperLogLog#HyperLogLog(int)}
+	 */
+	public void setDistinctCountPrecision(int precision) {
+		this.distinctPrecision = precision;
+	}
+
+	/**
+	 * Returns a description of the opt-in analyses tracked by this aggregator and of their options, e.g. to check
+	 * whether an aggregator restored from a snapshot was configured like a new one.
+	 */
+	public String getAnalysesDescription() {
+		List<String> analyses = new ArrayList<>();
+		DirectoryHotspots hotspots = this.hotspots;
+		if (hotspots != null) {
+			analyses.add("hotspots (depth " + hotspots.getMaxDepth() + ", budget " + hotspots.getNodeBudget() + ")");
+		}
+		DistinctTimeSeries distinct = this.distinct;
+		if (distinct != null) {
+			analyses.add("distinct (precision " + distinct.getPrecision() + ")");
+		}
+		CoChangeAnalyzer coChanges = this.coChanges;
+		if (coChanges != null) {
+			analyses.add("cochanges (max paths " + coChanges.getMaxPathsPerCommit() + ", min support "
+					+ coChanges.getMinSupport() + ")");
+		}
+		analyses.add("distinct paths per author (precision " + distinctPrecision + ")");
+		return String.join(", ", analyses);
+	}
+
+	/**
+	 * Returns the distribution of the number of paths changed per commit, over all authors.
+	 */
+	public LogHistogram getCommitSizes() {
+		LogHistogram commitSizes = new LogHistogram();
+		statsPerAuthor.values().forEach(stats -> commitSizes.merge(stats.commitSizes));
+		return commitSizes;
+	}
+
+	/**
+	 * Returns the distribution of the commit message lengths, over all authors.
+	 */
+	public LogHistogram getMessageLengths() {
+		LogHistogram messageLengths = new LogHistogram();
+		statsPerAuthor.values().forEach(stats -> messageLengths.merge(stats.messageLengths));
+		return messageLengths;
+	}
+
+	public long getTotalNumberOfCommits() {
+		return statsPerAuthor.values().stream().mapToLong(stats -> stats.commits).sum();
 	}
 
-	public int getTotalNumberOfCommits() {
-		return statsPerAuthor.values().stream().mapToInt(stats -> stats.commits).sum();
+	/**
+	 * Returns the highest revision processed by this aggregator, or 0 when nothing was processed yet.
+	 */
+	public int getLastRevision() {
+		return lastRevision.get();
 	}
 
 	public List<String> getAuthors() {
@@ -54,6 +302,6 @@ public class SvnLogEntryAggregator implements SvnLogEntryProcessor {
 	}
 
 	public SvnAuthorStats getStatsFor(String author) {
-		return statsPerAuthor.getOrDefault(author, new SvnAuthorStats(author));
+		return statsPerAuthor.getOrDefault(author, new SvnAuthorStats(author, symbols.extensions, distinctPrecision));
 	}
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Restricts the {@link SvnLogEntry log entries} that are processed to a revision range, a time window and a set of
+ * authors.
+ * <p>
+ * Parsers check the filter as soon as the relevant part of a log entry has been read: the revision right at the start
+ * of the log entry, followed by the author and the commit date. Rejected log entries are skipped without reading their
+ * paths and commit message. By default a filter accepts all log entries.
+ *
+ * @see SvnLogParser#setFilter(SvnLogEntryFilter)
+ *
+ * @author Erwin Vervaet
+ */
+public class SvnLogEntryFilter {
+
+	private int fromRevision = 0;
+	private int toRevision = Integer.MAX_VALUE;
+	private long since = Long.MIN_VALUE;
+	private long until = Long.MAX_VALUE;
+	private Set<String> authors;
+
+	/**
+	 * Only accept log entries with a revision in given range.
+	 *
+	 * @param fromRevision the first accepted revision, inclusive
+	 * @param toRevision the last accepted revision, inclusive
+	 */
+	public void setRevisions(int fromRevision, int toRevision) {
+		this.fromRevision = fromRevision;
+		this.toRevision = toRevision;
+	}
+
+	public int getFromRevision() {
+		return fromRevision;
+	}
+
+	public int getToRevision() {
+		return toRevision;
+	}
+
+	/**
+	 * Only accept log entries committed in given time window. Log entries without a commit date are rejected when the
+	 * time window is restricted.
+	 *
+	 * @param since the start of the time window in microseconds since the epoch, inclusive
+	 * @param until the end of the time window in microseconds since the epoch, exclusive
+	 */
+	public void setTimeWindow(long since, long until) {
+		this.since = since;
+		this.until = until;
+	}
+
+	public long getSince() {
+		return since;
+	}
+
+	public long getUntil() {
+		return until;
+	}
+
+	/**
+	 * Only accept log entries committed by one of given authors, or by any author when null.
+	 */
+	public void setAuthors(Collection<String> authors) {
+		this.authors = authors == null ? null : Collections.unmodifiableSet(new HashSet<>(authors));
+	}
+
+	/**
+	 * Returns the accepted authors, or null when all authors are accepted.
+	 */
+	public Set<String> getAuthors() {
+		return authors;
+	}
+
+	/**
+	 * Returns true when this filter accepts all log entries.
+	 */
+	public boolean acceptsAll() {
+		return fromRevision <= 0 && toRevision == Integer.MAX_VALUE && !isTimeWindowRestricted() && authors == null;
+	}
+
+	public boolean acceptsRevision(int revision) {
+		return revision >= fromRevision && revision <= toRevision;
+	}
+
+	/**
+	 * Check given commit timestamp, which is {@link Util#NO_TIMESTAMP} when the commit date is not known.
+	 */
+	public boolean acceptsTimestamp(long timestamp) {
+		if (timestamp == Util.NO_TIMESTAMP) {
+			return !isTimeWindowRestricted();
+		}
+		return timestamp >= since && timestamp < until;
+	}
+
+	public boolean acceptsAuthor(String author) {
+		return authors == null || (author != null && authors.contains(author));
+	}
+
+	/**
+	 * Check a complete log entry, e.g. one that is missing an author or date element.
+	 */
+	public boolean accepts(SvnLogEntry logEntry) {
+		return acceptsRevision(logEntry.revision) && acceptsAuthor(logEntry.author)
+				&& acceptsTimestamp(logEntry.getTimestamp());
+	}
+
+	private boolean isTimeWindowRestricted() {
+		return since != Long.MIN_VALUE || until != Long.MAX_VALUE;
+	}
+}
@@ -25,6 +25,18 @@ public class SvnLogEntryPath {
 	public PathAction action;
 	public PathKind kind;
 	public String path; // simple String to avoid problems interpreting paths on file systems we might not know about
+	public int extensionId = -1; // id of the file name extension in the symbols of the log entry, if any
+	private long pathHash; // calculated lazily, 0 when not calculated yet
+
+	/**
+	 * Returns the 64 bit {@link HyperLogLog#hash(CharSequence) hash} of the path, used to count distinct paths.
+	 */
+	public long getPathHash() {
+		if (pathHash == 0) {
+			pathHash = HyperLogLog.hash(path);
+		}
+		return pathHash;
+	}
 
 	public static enum PathAction {
 		M, // modified
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link SvnLogEntryProcessor} adapter that hands log entries over to one or more worker threads, so that parsing and
+ * processing of log entries can overlap.
+ * <p>
+ * Log entries are collected in batches which are passed to the workers through a bounded queue. When the workers
+ * cannot keep up, {@link #process(SvnLogEntry)} blocks until there is room in the queue, so memory use stays bounded.
+ * When more than one worker is used, the target processor needs to be thread-safe, like a
+ * {@link SvnLogEntryAggregator}.
+ * <p>
+ * A pipeline must be {@link #close() closed} once all log entries have been passed on: this flushes the last batch and
+ * waits until all log entries have been processed. Failures of the target processor are rethrown from
+ * {@link #process(SvnLogEntry)} or {@link #close()}.
+ *
+ * @author Erwin Vervaet
+ */
+public class SvnLogEntryPipeline implements SvnLogEntryProcessor, AutoCloseable {
+
+	private static final SvnLogEntry[] END_OF_STREAM = new SvnLogEntry[0];
+
+	private final SvnLogEntryProcessor target;
+	private final int batchSize;
+	private final BlockingQueue<SvnLogEntry[]> queue;
+	private final List<Thread> workers = new ArrayList<>();
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	private SvnLogEntry[] batch;
+	private int batchLength = 0;
+	private boolean closed = false;
+	private boolean failureReported = false;
+
+	/**
+	 * Create a new pipeline using a single worker.
+	 *
+	 * @param target the processor to pass log entries on to
+	 */
+	public SvnLogEntryPipeline(SvnLogEntryProcessor target) {
+		this(target, 1, 256, 16);
+	}
+
+	/**
+	 * Create a new pipeline.
+	 *
+	 * @param target the processor to pass log entries on to, which should be thread-safe when using multiple workers
+	 * @param workers the number of worker threads
+	 * @param batchSize the number of log entries handed over to a worker at once
+	 * @param queueCapacity the maximum number of batches waiting to be processed
+	 */
+	public SvnLogEntryPipeline(SvnLogEntryProcessor target, int workers, int batchSize, int queueCapacity) {
+		if (workers < 1 || batchSize < 1 || queueCapacity < 1) {
+			throw new IllegalArgumentException("Workers, batch size and queue capacity should be at least 1");
+		}
+		this.target = requireNonNull(target);
+		this.batchSize = batchSize;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.batch = new SvnLogEntry[batchSize];
+
+		for (int i = 0; i < workers; i++) {
+			Thread worker = new Thread(this::work, "svn-logstats-pipeline-" + i);
+			worker.setDaemon(true);
+			worker.start();
+			this.workers.add(worker);
+		}
+	}
+
+	@Override
+	public void process(SvnLogEntry logEntry) {
+		if (closed) {
+			throw new IllegalStateException("Pipeline has been closed");
+		}
+		batch[batchLength++] = logEntry;
+		if (batchLength == batchSize) {
+			handOver(batch);
+			batch = new SvnLogEntry[batchSize];
+			batchLength = 0;
+		}
+	}
+
+	/**
+	 * Process remaining log entries and wait for the workers to finish.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		if (batchLength > 0) {
+			handOver(batch);
+		}
+		batch = null;
+		for (int i = 0; i < workers.size(); i++) {
+			put(END_OF_STREAM);
+		}
+		for (Thread worker : workers) {
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for log entry processing to finish", e);
+			}
+		}
+		checkFailure();
+	}
+
+	private void handOver(SvnLogEntry[] logEntries) {
+		checkFailure();
+		put(logEntries);
+	}
+
+	private void put(SvnLogEntry[] logEntries) {
+		try {
+			queue.put(logEntries);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while handing over log entries", e);
+		}
+	}
+
+	private void checkFailure() {
+		Throwable t = failure.get();
+		if (t == null || failureReported) {
+			return;
+		}
+		// only report a failure once, e.g. not again when closing the pipeline after process() failed
+		failureReported = true;
+		if (t instanceof RuntimeException) {
+			throw (RuntimeException) t;
+		} else if (t instanceof Error) {
+			throw (Error) t;
+		} else {
+			throw new IllegalStateException("Log entry processing failed", t);
+		}
+	}
+
+	private void work() {
+		try {
+			while (true) {
+				SvnLogEntry[] logEntries = queue.take();
+				if (logEntries == END_OF_STREAM) {
+					return;
+				}
+				// after a failure we keep draining the queue so the producer never blocks forever
+				if (failure.get() == null) {
+					try {
+						for (SvnLogEntry logEntry : logEntries) {
+							if (logEntry == null) {
+								break; // end of the last, partial, batch
+							}
+							target.process(logEntry);
+						}
+					} catch (Throwable t) {
+						failure.compareAndSet(null, t);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			failure.compareAndSet(null, e);
+		}
+	}
+}
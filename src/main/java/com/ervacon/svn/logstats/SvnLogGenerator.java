@@ -0,0 +1,310 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * Generates synthetic Subversion XML log files, e.g. for load testing and benchmarking.
+ * <p>
+ * Generated files have the same structure as the output of <code>svn log -v --xml</code>, with log entries ordered
+ * from the newest to the oldest revision. Generation is deterministic: using the same seed and settings always
+ * produces the same file. Log entries are written as they are generated, so even multi-gigabyte files can be generated
+ * in constant memory.
+ *
+ * @author Erwin Vervaet
+ */
+public class SvnLogGenerator {
+
+	private static final String[] EXTENSIONS = {
+		"java", "java", "java", "xml", "xml", "c", "h", "properties", "html", "css", "js", "txt", "md", "png", ""};
+	private static final String[] WORDS = {
+		"fix", "add", "remove", "update", "refactor", "test", "build", "docs", "typo", "merge", "release", "cleanup",
+		"parser", "report", "issue", "&", "<config>", "\"quoted\"", "café"};
+	private static final int LARGE_COMMIT_ONE_IN = 5000;
+
+	private long seed = 42;
+	private int entries = 1000;
+	private int authors = 10;
+	private int paths = 10000;
+	private int pathDepth = 4;
+	private double commitSize = 4;
+	private int largeCommitSize = 2000;
+	private double messageLength = 40;
+	private Instant start = Instant.parse("2000-01-01T00:00:00Z");
+	private long timeSpanSeconds = 10L * 365 * 24 * 60 * 60;
+
+	/**
+	 * Set the seed of the random number generator. Defaults to 42.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Set the number of log entries to generate. Defaults to 1000.
+	 */
+	public void setEntries(int entries) {
+		this.entries = entries;
+	}
+
+	/**
+	 * Set the number of distinct authors. Some authors commit a lot more than others. Defaults to 10.
+	 */
+	public void setAuthors(int authors) {
+		this.authors = authors;
+	}
+
+	/**
+	 * Set the number of distinct file paths committed to. Defaults to 10000.
+	 */
+	public void setPaths(int paths) {
+		this.paths = paths;
+	}
+
+	/**
+	 * Set the number of directories files are nested in, below <code>/trunk</code>. Defaults to 4.
+	 */
+	public void setPathDepth(int pathDepth) {
+		this.pathDepth = pathDepth;
+	}
+
+	/**
+	 * Set the average number of paths in a commit. Commit sizes are exponentially distributed, and one in every
+	 * few thousand commits is a large commit like a branch copy or a mass reformatting. Defaults to 4.
+	 */
+	public void setCommitSize(double commitSize) {
+		this.commitSize = commitSize;
+	}
+
+	/**
+	 * Set the number of paths in the occasional large commit. Defaults to 2000.
+	 */
+	public void setLargeCommitSize(int largeCommitSize) {
+		this.largeCommitSize = largeCommitSize;
+	}
+
+	/**
+	 * Set the average length of commit messages in characters. Defaults to 40.
+	 */
+	public void setMessageLength(double messageLength) {
+		this.messageLength = messageLength;
+	}
+
+	/**
+	 * Set the time span covered by the log, which starts on January 1st 2000 by default, in days. Defaults to 10
+	 * years.
+	 */
+	public void setTimeSpanDays(int days) {
+		this.timeSpanSeconds = days * 24L * 60 * 60;
+	}
+
+	/**
+	 * Generate a log file.
+	 *
+	 * @param logFile the file to write
+	 * @throws IOException when the file cannot be written
+	 */
+	public void generate(File logFile) throws IOException {
+		try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(logFile), UTF_8), 64 * 1024)) {
+			generate(out);
+		}
+	}
+
+	/**
+	 * Generate a log file and write it to given writer, which is not closed.
+	 *
+	 * @param out the writer to write the log file to
+	 * @throws IOException when writing fails
+	 */
+	public void generate(Writer out) throws IOException {
+		Random random = new Random(seed);
+		StringBuilder buf = new StringBuilder(1024);
+
+		out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<log>\n");
+		for (int revision = entries; revision > 0; revision--) {
+			buf.setLength(0);
+			buf.append("<logentry\n   revision=\"").append(revision).append("\">\n");
+			buf.append("<author>").append(author(random)).append("</author>\n");
+			buf.append("<date>").append(date(revision, random)).append("</date>\n");
+			out.append(buf);
+
+			int size = random.nextInt(LARGE_COMMIT_ONE_IN) == 0
+					? largeCommitSize : 1 + (int) (-Math.log(1 - random.nextDouble()) * (commitSize - 1));
+			out.write("<paths>\n");
+			for (int i = 0; i < size; i++) {
+				buf.setLength(0);
+				buf.append("<path\n   action=\"").append("MMMMMMAADR".charAt(random.nextInt(10)))
+						.append("\"\n   kind=\"file\">");
+				appendPath(buf, random.nextInt(paths));
+				buf.append("</path>\n");
+				out.append(buf);
+			}
+			out.write("</paths>\n");
+
+			buf.setLength(0);
+			buf.append("<msg>");
+			appendMessage(buf, random);
+			buf.append("</msg>\n</logentry>\n");
+			out.append(buf);
+		}
+		out.write("</log>\n");
+	}
+
+	private String author(Random random) {
+		// skewed towards the first authors, like in real projects
+		double skewed = random.nextDouble() * random.nextDouble();
+		return "author" + (int) (skewed * authors);
+	}
+
+	private Instant date(int revision, Random random) {
+		long offset = (timeSpanSeconds * (revision - 1)) / Math.max(1, entries);
+		return start.plusSeconds(offset).plusNanos(random.nextInt(1000000) * 1000L);
+	}
+
+	/**
+	 * Append the path with given index. Paths are derived from their index, so no list of paths has to be kept in
+	 * memory.
+	 */
+	private void appendPath(StringBuilder buf, int index) {
+		long hash = mix(seed + index);
+		buf.append("/trunk");
+		for (int depth = 0; depth < pathDepth; depth++) {
+			// low fan-out near the root, higher fan-out deeper down
+			buf.append("/dir").append(Math.floorMod(hash >> (depth * 8), 4 + depth * 4));
+		}
+		buf.append("/File").append(index);
+		String extension = EXTENSIONS[Math.floorMod(hash >>> 40, EXTENSIONS.length)];
+		if (!extension.isEmpty()) {
+			buf.append('.').append(extension);
+		}
+	}
+
+	private void appendMessage(StringBuilder buf, Random random) {
+		if (random.nextInt(20) == 0) {
+			return; // empty commit message
+		}
+		int length = (int) (-Math.log(1 - random.nextDouble()) * messageLength);
+		int start = buf.length();
+		while (buf.length() - start < length) {
+			if (buf.length() > start) {
+				buf.append(random.nextInt(10) == 0 ? '\n' : ' ');
+			}
+			appendEscaped(buf, WORDS[random.nextInt(WORDS.length)]);
+		}
+	}
+
+	private static void appendEscaped(StringBuilder buf, String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch (c) {
+				case '&':
+					buf.append("&amp;");
+					break;
+				case '<':
+					buf.append("&lt;");
+					break;
+				case '>':
+					buf.append("&gt;");
+					break;
+				default:
+					buf.append(c);
+			}
+		}
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return z ^ (z >>> 33);
+	}
+
+	public static void main(String[] args) throws Exception {
+		SvnLogGenerator generator = new SvnLogGenerator();
+
+		int argIdx = 0;
+		while (argIdx < args.length && args[argIdx].startsWith("-")) {
+			String option = args[argIdx++];
+			if (argIdx == args.length) {
+				usage();
+			}
+			String value = args[argIdx++];
+			switch (option) {
+				case "-seed":
+					generator.setSeed(Long.parseLong(value));
+					break;
+				case "-entries":
+					generator.setEntries(Integer.parseInt(value));
+					break;
+				case "-authors":
+					generator.setAuthors(Integer.parseInt(value));
+					break;
+				case "-paths":
+					generator.setPaths(Integer.parseInt(value));
+					break;
+				case "-depth":
+					generator.setPathDepth(Integer.parseInt(value));
+					break;
+				case "-commitSize":
+					generator.setCommitSize(Double.parseDouble(value));
+					break;
+				case "-largeCommitSize":
+					generator.setLargeCommitSize(Integer.parseInt(value));
+					break;
+				case "-messageLength":
+					generator.setMessageLength(Double.parseDouble(value));
+					break;
+				case "-days":
+					generator.setTimeSpanDays(Integer.parseInt(value));
+					break;
+				default:
+					usage();
+			}
+		}
+		if (args.length - argIdx != 1) {
+			usage();
+		}
+
+		File logFile = new File(args[argIdx]).getCanonicalFile();
+		System.out.println("Writing " + generator.entries + " log entries to " + logFile);
+		generator.generate(logFile);
+	}
+
+	private static void usage() {
+		System.out.println("Usage: SvnLogGenerator [options] logfile");
+		System.out.println("\tlogfile\tThe path of the Subversion XML log file to write");
+		System.out.println("Options:");
+		System.out.println("\t-seed n\tSeed of the random number generator (default: 42)");
+		System.out.println("\t-entries n\tNumber of log entries (default: 1000)");
+		System.out.println("\t-authors n\tNumber of authors (default: 10)");
+		System.out.println("\t-paths n\tNumber of distinct file paths (default: 10000)");
+		System.out.println("\t-depth n\tDirectory depth of file paths (default: 4)");
+		System.out.println("\t-commitSize n\tAverage number of paths per commit (default: 4)");
+		System.out.println("\t-largeCommitSize n\tNumber of paths in an occasional large commit (default: 2000)");
+		System.out.println("\t-messageLength n\tAverage commit message length (default: 40)");
+		System.out.println("\t-days n\tTime span of the log in days (default: 3650)");
+		System.exit(1);
+	}
+}
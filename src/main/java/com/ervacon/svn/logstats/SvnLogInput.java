@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Opens Subversion log files, which might be compressed.
+ * <p>
+ * The compression format is detected by looking at the first bytes of the data. Gzip and zip compressed log files are
+ * decompressed on a separate thread, feeding the parser through a large read-ahead buffer, so that decompression
+ * overlaps with parsing. Xz and bzip2 compressed files are recognized but cannot be read without additional libraries,
+ * so they are rejected with a clear error message.
+ *
+ * @author Erwin Vervaet
+ */
+public final class SvnLogInput {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int READ_AHEAD_CHUNK_SIZE = 256 * 1024;
+	private static final int READ_AHEAD_CHUNKS = 32;
+
+	/**
+	 * Compression formats that can be detected.
+	 */
+	public static enum Compression {
+		NONE(null), GZIP(new int[]{0x1f, 0x8b}), ZIP(new int[]{'P', 'K', 3, 4}),
+		XZ(new int[]{0xfd, '7', 'z', 'X', 'Z', 0}), BZIP2(new int[]{'B', 'Z', 'h'});
+
+		private final int[] magic;
+
+		private Compression(int[] magic) {
+			this.magic = magic;
+		}
+
+		private boolean matches(byte[] header, int length) {
+			if (magic == null || length < magic.length) {
+				return false;
+			}
+			for (int i = 0; i < magic.length; i++) {
+				if ((header[i] & 0xff) != magic[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private SvnLogInput() {
+	}
+
+	/**
+	 * Detect the compression format of given file.
+	 *
+	 * @param logFile the log file
+	 * @return the detected compression format, {@link Compression#NONE} for plain files
+	 * @throws IOException when the file cannot be read
+	 */
+	public static Compression getCompression(File logFile) throws IOException {
+		try (InputStream in = new FileInputStream(logFile)) {
+			return getCompression(in);
+		}
+	}
+
+	/**
+	 * Open given log file, decompressing it if needed.
+	 *
+	 * @param logFile the log file
+	 * @return a stream providing the uncompressed XML
+	 * @throws IOException when the file cannot be read or uses an unsupported compression format
+	 */
+	public static InputStream open(File logFile) throws IOException {
+		return open(new FileInputStream(logFile));
+	}
+
+	/**
+	 * Wrap given stream, decompressing it if needed.
+	 *
+	 * @param in the log file stream, which is closed when the returned stream is closed
+	 * @return a stream providing the uncompressed XML
+	 * @throws IOException when the stream cannot be read or uses an unsupported compression format
+	 */
+	public static InputStream open(InputStream in) throws IOException {
+		InputStream bin = new BufferedInputStream(in, BUFFER_SIZE);
+		try {
+			bin.mark(16);
+			Compression compression = getCompression(bin);
+			bin.reset();
+			switch (compression) {
+				case GZIP:
+					return new ReadAheadInputStream(
+							new GZIPInputStream(bin, BUFFER_SIZE), READ_AHEAD_CHUNK_SIZE, READ_AHEAD_CHUNKS);
+				case ZIP:
+					ZipInputStream zin = new ZipInputStream(bin);
+					if (zin.getNextEntry() == null) {
+						throw new IOException("Zip file does not contain a log file");
+					}
+					return new ReadAheadInputStream(zin, READ_AHEAD_CHUNK_SIZE, READ_AHEAD_CHUNKS);
+				case NONE:
+					return bin;
+				default:
+					throw new IOException(compression.name().toLowerCase()
+							+ " compressed log files are not supported, decompress or recompress using gzip first");
+			}
+		} catch (IOException | RuntimeException e) {
+			bin.close();
+			throw e;
+		}
+	}
+
+	private static Compression getCompression(InputStream in) throws IOException {
+		byte[] header = new byte[6];
+		int length = 0;
+		int read;
+		while (length < header.length && (read = in.read(header, length, header.length - length)) != -1) {
+			length += read;
+		}
+		for (Compression compression : Compression.values()) {
+			if (compression.matches(header, length)) {
+				return compression;
+			}
+		}
+		return Compression.NONE;
+	}
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import static java.util.Objects.requireNonNull;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and timers describing a run of {@link SvnLogStats}: bytes read, log entries and paths processed, time spent
+ * in every stage, garbage collection time and heap use.
+ * <p>
+ * Metrics are collected by wrapping the input stream and the processor fed by a parser, see
+ * {@link #meter(InputStream)} and {@link #meter(SvnLogEntryProcessor)}, and by parsers that do not read from a stream
+ * reporting the bytes they scanned, see {@link SvnLogParser#setMetrics(SvnLogMetrics)}. When no metrics are used,
+ * nothing is wrapped and parsers only check for a missing metrics object once per stream or block, so disabled metrics
+ * cost next to nothing. Heap use is sampled, so the peak heap use is a lower bound.
+ * <p>
+ * The metrics can be printed as periodic progress lines, see {@link #startProgress(PrintStream, int)}, and published
+ * as a JMX MBean, see {@link #register(String)}. Counters can be updated from multiple threads.
+ *
+ * @author Erwin Vervaet
+ */
+public class SvnLogMetrics implements SvnLogMetricsMBean, Closeable {
+
+	private static final double MB = 1024 * 1024;
+	private static final String OBJECT_NAME = "com.ervacon.svn.logstats:type=SvnLogMetrics,name=";
+
+	/**
+	 * The stages of a run.
+	 */
+	public static enum Stage {
+		PARSE, SNAPSHOT, REPORT
+	}
+
+	private final LongAdder bytesRead = new LongAdder();
+	private final LongAdder logEntries = new LongAdder();
+	private final LongAdder paths = new LongAdder();
+	private final LongAdder aggregateNanos = new LongAdder();
+	private final LongAccumulator peakHeapUsed = new LongAccumulator(Math::max, 0);
+	private final long[] stageNanos = new long[Stage.values().length];
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+	private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+	private final long startGcMillis = getTotalGcMillis();
+	private Stage stage;
+	private long stageStartNanos;
+	private ScheduledExecutorService progress;
+	private ObjectName objectName;
+
+	/**
+	 * Start timing given stage, ending the stage in progress, if any.
+	 */
+	public synchronized void startStage(Stage stage) {
+		endStage();
+		this.stage = requireNonNull(stage);
+		this.stageStartNanos = System.nanoTime();
+	}
+
+	/**
+	 * End the stage in progress, if any.
+	 */
+	public synchronized void endStage() {
+		if (stage != null) {
+			stageNanos[stage.ordinal()] += System.nanoTime() - stageStartNanos;
+			stage = null;
+		}
+		sampleHeap();
+	}
+
+	/**
+	 * Returns a stream counting the bytes read from given stream.
+	 */
+	public InputStream meter(InputStream in) {
+		return new FilterInputStream(in) {
+
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if (b != -1) {
+					bytesRead.increment();
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int read = super.read(b, off, len);
+				if (read > 0) {
+					bytesRead.add(read);
+				}
+				return read;
+			}
+
+			@Override
+			public long skip(long n) throws IOException {
+				long skipped = super.skip(n);
+				bytesRead.add(skipped);
+				return skipped;
+			}
+
+			@Override
+			public boolean markSupported() {
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns a processor counting the log entries and paths passed on to given processor, as well as the time it
+	 * spends processing them.
+	 */
+	public SvnLogEntryProcessor meter(SvnLogEntryProcessor entryProcessor) {
+		requireNonNull(entryProcessor);
+		return logEntry -> {
+			long start = System.nanoTime();
+			entryProcessor.process(logEntry);
+			aggregateNanos.add(System.nanoTime() - start);
+			logEntries.increment();
+			paths.add(logEntry.paths.size());
+		};
+	}
+
+	/**
+	 * Count given number of bytes as read, for input that is not read through a {@link #meter(InputStream) metered}
+	 * stream.
+	 */
+	public void addBytesRead(long bytes) {
+		bytesRead.add(bytes);
+	}
+
+	/**
+	 * Print a progress line to given stream every given number of seconds, until these metrics are closed. Heap use
+	 * is sampled every second, also when no progress lines are printed.
+	 *
+	 * @param out where to print progress lines
+	 * @param intervalSeconds the number of seconds between progress lines, or 0 to not print progress lines
+	 */
+	public synchronized void startProgress(PrintStream out, int intervalSeconds) {
+		requireNonNull(out);
+		if (progress != null) {
+			throw new IllegalStateException("Progress already started");
+		}
+		progress = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "svn-logstats-metrics");
+			thread.setDaemon(true);
+			return thread;
+		});
+		progress.scheduleAtFixedRate(new Runnable() {
+
+			private long ticks = 0;
+
+			@Override
+			public void run() {
+				sampleHeap();
+				if (intervalSeconds > 0 && ++ticks % intervalSeconds == 0) {
+					out.println(formatProgress());
+				}
+			}
+		}, 1, 1, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Publish these metrics as a JMX MBean with given name, until these metrics are closed.
+	 *
+	 * @param name the name of the run, e.g. the name of the log file
+	 */
+	public synchronized void register(String name) {
+		try {
+			objectName = new ObjectName(OBJECT_NAME + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		} catch (JMException e) {
+			objectName = null;
+			throw new IllegalStateException("Cannot register metrics MBean for " + name, e);
+		}
+	}
+
+	/**
+	 * Stop printing progress lines and unregister the MBean, if any.
+	 */
+	@Override
+	public synchronized void close() {
+		if (progress != null) {
+			progress.shutdownNow();
+			progress = null;
+		}
+		if (objectName != null) {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			try {
+				server.unregisterMBean(objectName);
+			} catch (JMException e) {
+				// already gone
+			}
+			objectName = null;
+		}
+	}
+
+	/**
+	 * Returns a line describing the progress of the stage in progress, e.g.
+	 * <i>Read 1,024.0 MB (85.3 MB/s), 61,440 log entries (5,120/s), 307,200 paths (25,600/s), heap 212.4 MB, GC 0.3 s</i>.
+	 */
+	public String formatProgress() {
+		return String.format("Read %,.1f MB (%.1f MB/s), %,d log entries (%,.0f/s), %,d paths (%,.0f/s), "
+				+ "heap %,.1f MB, GC %.1f s", getBytesRead() / MB, getBytesReadPerSecond() / MB, getLogEntries(),
+				getLogEntriesPerSecond(), getPaths(), getPathsPerSecond(), getHeapUsedBytes() / MB,
+				getGcMillis() / 1e3);
+	}
+
+	/**
+	 * Returns a line summarizing the time spent in every stage and the resources used.
+	 */
+	public String formatSummary() {
+		return String.format("Parsing took %.1f s (%.1f s aggregating), saving the snapshot %.1f s, writing the report "
+				+ "%.1f s; read %,.1f MB, peak heap %,.1f MB, GC %.1f s", getParseMillis() / 1e3,
+				getAggregateMillis() / 1e3, getSnapshotMillis() / 1e3, getReportMillis() / 1e3, getBytesRead() / MB,
+				getPeakHeapUsedBytes() / MB, getGcMillis() / 1e3);
+	}
+
+	@Override
+	public synchronized String getStage() {
+		return stage == null ? null : stage.name();
+	}
+
+	@Override
+	public long getBytesRead() {
+		return bytesRead.sum();
+	}
+
+	@Override
+	public long getLogEntries() {
+		return logEntries.sum();
+	}
+
+	@Override
+	public long getPaths() {
+		return paths.sum();
+	}
+
+	@Override
+	public double getBytesReadPerSecond() {
+		return perSecond(getBytesRead());
+	}
+
+	@Override
+	public double getLogEntriesPerSecond() {
+		return perSecond(getLogEntries());
+	}
+
+	@Override
+	public double getPathsPerSecond() {
+		return perSecond(getPaths());
+	}
+
+	@Override
+	public long getParseMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(getStageNanos(Stage.PARSE));
+	}
+
+	/**
+	 * Returns the time spent processing parsed log entries, summed over all threads, which is part of the time spent
+	 * parsing.
+	 */
+	@Override
+	public long getAggregateMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(aggregateNanos.sum());
+	}
+
+	@Override
+	public long getSnapshotMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(getStageNanos(Stage.SNAPSHOT));
+	}
+
+	@Override
+	public long getReportMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(getStageNanos(Stage.REPORT));
+	}
+
+	/**
+	 * Returns the time spent collecting garbage since these metrics were created.
+	 */
+	@Override
+	public long getGcMillis() {
+		return getTotalGcMillis() - startGcMillis;
+	}
+
+	@Override
+	public long getHeapUsedBytes() {
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	@Override
+	public long getPeakHeapUsedBytes() {
+		sampleHeap();
+		return peakHeapUsed.get();
+	}
+
+	/**
+	 * Returns the time spent in given stage so far, including the time spent in the stage in progress.
+	 */
+	public synchronized long getStageNanos(Stage stage) {
+		long nanos = stageNanos[stage.ordinal()];
+		return stage == this.stage ? nanos + System.nanoTime() - stageStartNanos : nanos;
+	}
+
+	private void sampleHeap() {
+		peakHeapUsed.accumulate(getHeapUsedBytes());
+	}
+
+	private double perSecond(long count) {
+		// rates are relative to the time spent parsing, which is when bytes, log entries and paths are counted
+		long nanos = getStageNanos(Stage.PARSE);
+		return nanos == 0 ? 0 : count * 1e9 / nanos;
+	}
+
+	private long getTotalGcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean collector : collectors) {
+			millis += Math.max(0, collector.getCollectionTime()); // -1 when not supported
+		}
+		return millis;
+	}
+}
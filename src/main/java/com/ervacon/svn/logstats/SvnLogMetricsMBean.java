@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+/**
+ * JMX management interface of {@link SvnLogMetrics}.
+ *
+ * @author Erwin Vervaet
+ */
+public interface SvnLogMetricsMBean {
+
+	/**
+	 * Returns the stage currently in progress, or null when no stage is in progress.
+	 */
+	String getStage();
+
+	long getBytesRead();
+
+	long getLogEntries();
+
+	long getPaths();
+
+	double getBytesReadPerSecond();
+
+	double getLogEntriesPerSecond();
+
+	double getPathsPerSecond();
+
+	long getParseMillis();
+
+	long getAggregateMillis();
+
+	long getSnapshotMillis();
+
+	long getReportMillis();
+
+	long getGcMillis();
+
+	long getHeapUsedBytes();
+
+	long getPeakHeapUsedBytes();
+}
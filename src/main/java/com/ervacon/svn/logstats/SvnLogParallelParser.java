@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Parses a single large Subversion XML log file using multiple threads.
+ * <p>
+ * The log file is split into byte ranges on <code>&lt;logentry</code> boundaries. Each range is
+ * {@link SvnLogParser#parse(File, long, long) parsed} by a dedicated {@link SvnLogParser} feeding a private
+ * {@link SvnLogEntryAggregator}. All parsers and aggregators share the same {@link SvnLogSymbols symbols}, which are
+ * thread-safe. Once all ranges have been processed, the partial results are merged into a single
+ * aggregator. Since the XML declaration is not part of the parsed ranges, the log file is assumed to be UTF-8 encoded,
+ * which is what <code>svn log --xml</code> produces. Compressed log files cannot be split and are parsed on a single
+ * thread.
+ *
+ * @see SvnLogEntryAggregator#merge(SvnLogEntryAggregator)
+ *
+ * @author Erwin Vervaet
+ */
+public class SvnLogParallelParser {
+
+	private static final byte[] LOGENTRY_START = "<logentry".getBytes(UTF_8);
+	private static final byte[] LOG_END = "</log>".getBytes(UTF_8);
+	private static final int CHUNKS_PER_THREAD = 4;
+	private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+	private final BiFunction<SvnLogEntryProcessor, SvnLogSymbols, SvnLogParser> parserFactory;
+	private final Function<SvnLogSymbols, SvnLogEntryAggregator> aggregatorFactory;
+	private final int threads;
+
+	/**
+	 * Create a new parallel parser.
+	 *
+	 * @param parserFactory factory creating the parser used to parse a single byte range of the log file, given the
+	 * processor to feed and the symbols shared by all parsers
+	 * @param threads the number of worker threads to use
+	 */
+	public SvnLogParallelParser(BiFunction<SvnLogEntryProcessor, SvnLogSymbols, SvnLogParser> parserFactory,
+			int threads) {
+		this(parserFactory, SvnLogEntryAggregator::new, threads);
+	}
+
+	/**
+	 * Create a new parallel parser using configured aggregators.
+	 *
+	 * @param parserFactory factory creating the parser used to parse a single byte range of the log file, given the
+	 * processor to feed and the symbols shared by all parsers
+	 * @param aggregatorFactory factory creating the aggregators for the byte ranges and the merged result, given the
+	 * symbols shared by all parsers
+	 * @param threads the number of worker threads to use
+	 */
+	public SvnLogParallelParser(BiFunction<SvnLogEntryProcessor, SvnLogSymbols, SvnLogParser> parserFactory,
+			Function<SvnLogSymbols, SvnLogEntryAggregator> aggregatorFactory, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Need at least 1 thread");
+		}
+		this.parserFactory = requireNonNull(parserFactory);
+		this.aggregatorFactory = requireNonNull(aggregatorFactory);
+		this.threads = threads;
+	}
+
+	/**
+	 * Parse given log file and return the aggregated statistics.
+	 *
+	 * @param logFile the Subversion log file
+	 * @return the merged statistics of all log entries in the file
+	 * @throws IOException when given file cannot be read
+	 * @throws XMLStreamException when XML parsing fails
+	 */
+	public SvnLogEntryAggregator parse(File logFile) throws IOException, XMLStreamException {
+		boolean compressed = SvnLogInput.getCompression(logFile) != SvnLogInput.Compression.NONE;
+		List<long[]> ranges = compressed ? Collections.emptyList() : split(logFile, threads * CHUNKS_PER_THREAD);
+
+		SvnLogSymbols symbols = new SvnLogSymbols();
+		SvnLogEntryAggregator aggregator = aggregatorFactory.apply(symbols);
+		if (ranges.isEmpty()) {
+			// compressed or no log entries found: let a normal parser deal with whatever the file contains
+			parserFactory.apply(aggregator, symbols).parse(logFile);
+			return aggregator;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, ranges.size()));
+		try {
+			List<Future<SvnLogEntryAggregator>> results = new ArrayList<>();
+			for (long[] range : ranges) {
+				results.add(executor.submit(() -> parseRange(logFile, range[0], range[1], symbols)));
+			}
+			for (Future<SvnLogEntryAggregator> result : results) {
+				aggregator.merge(result.get());
+			}
+			return aggregator;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while parsing " + logFile, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof XMLStreamException) {
+				throw (XMLStreamException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private SvnLogEntryAggregator parseRange(File logFile, long start, long end, SvnLogSymbols symbols)
+			throws IOException, XMLStreamException {
+		SvnLogEntryAggregator aggregator = aggregatorFactory.apply(symbols);
+		parserFactory.apply(aggregator, symbols).parse(logFile, start, end);
+		return aggregator;
+	}
+
+	/**
+	 * Split given log file in at most the requested number of byte ranges. Each range starts with a
+	 * <code>&lt;logentry</code> element, and the last range ends right before the closing <code>&lt;/log&gt;</code>
+	 * tag. Returns an empty list when the file does not look like a Subversion log file.
+	 */
+	static List<long[]> split(File logFile, int maxRanges) throws IOException {
+		List<long[]> ranges = new ArrayList<>();
+		try (FileInputStream fin = new FileInputStream(logFile)) {
+			FileChannel channel = fin.getChannel();
+			long size = channel.size();
+
+			long first = indexOf(channel, LOGENTRY_START, 0, size);
+			long last = lastIndexOf(channel, LOG_END, size);
+			if (first == -1 || last == -1 || last < first) {
+				return ranges;
+			}
+
+			long start = first;
+			for (int i = 1; i < maxRanges && start < last; i++) {
+				long target = Math.max(first + ((last - first) * i) / maxRanges, start + 1);
+				long next = indexOf(channel, LOGENTRY_START, target, last);
+				if (next == -1) {
+					break;
+				}
+				if (next > start) {
+					ranges.add(new long[]{start, next});
+					start = next;
+				}
+			}
+			ranges.add(new long[]{start, last});
+		}
+		return ranges;
+	}
+
+	private static long indexOf(FileChannel channel, byte[] pattern, long from, long to) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		long pos = from;
+		while (pos < to) {
+			buf.clear();
+			int read = channel.read(buf, pos);
+			if (read < pattern.length) {
+				return -1;
+			}
+			for (int i = 0; i <= read - pattern.length && pos + i < to; i++) {
+				if (matches(buf, i, pattern)) {
+					return pos + i;
+				}
+			}
+			// overlap successive reads so we don't miss a pattern straddling the buffer boundary
+			pos += read - pattern.length + 1;
+		}
+		return -1;
+	}
+
+	private static long lastIndexOf(FileChannel channel, byte[] pattern, long size) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		long from = Math.max(0, size - SCAN_BUFFER_SIZE);
+		int read = channel.read(buf, from);
+		for (int i = read - pattern.length; i >= 0; i--) {
+			if (matches(buf, i, pattern)) {
+				return from + i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean matches(ByteBuffer buf, int offset, byte[] pattern) {
+		for (int j = 0; j < pattern.length; j++) {
+			if (buf.get(offset + j) != pattern[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
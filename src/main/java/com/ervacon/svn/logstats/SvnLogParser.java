@@ -16,16 +16,24 @@
 package com.ervacon.svn.logstats;
 
 import static java.lang.Integer.parseInt;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.time.format.DateTimeFormatter.ISO_ZONED_DATE_TIME;
 import static java.util.Objects.requireNonNull;
 
 import com.ervacon.svn.logstats.SvnLogEntryPath.PathAction;
 import com.ervacon.svn.logstats.SvnLogEntryPath.PathKind;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.io.SequenceInputStream;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
@@ -45,15 +53,21 @@ import javax.xml.stream.events.XMLEvent;
  * <pre>
  *	svn log --xml https://svnhost.com/my/repo/path > logfile.xml
  * </pre>
+ * The log file can also be gzip compressed, e.g. <code>svn log --xml ... | gzip > logfile.xml.gz</code>.
  *
  * @see SvnLogEntryProcessor
  * @see SvnLogEntryAggregator
+ * @see SvnLogCursorParser
  *
  * @author Erwin Vervaet
  */
 public class SvnLogParser {
 
-	private final SvnLogEntryProcessor entryProcessor;
+	protected final SvnLogEntryProcessor entryProcessor;
+	protected final SvnLogSymbols symbols;
+	protected SvnLogEntryFilter filter = new SvnLogEntryFilter();
+	protected SvnLogMetrics metrics; // optional
+	protected boolean includeMessages = true;
 
 	/**
 	 * Create a new parser which will push entries to given processor for processing.
@@ -61,22 +75,111 @@ public class SvnLogParser {
 	 * @param entryProcessor the processor to use to process log file entries
 	 */
 	public SvnLogParser(SvnLogEntryProcessor entryProcessor) {
+		this(entryProcessor, new SvnLogSymbols());
+	}
+
+	/**
+	 * Create a new parser which will push entries to given processor for processing, assigning ids from given symbols
+	 * to the authors and paths of those entries.
+	 *
+	 * @param entryProcessor the processor to use to process log file entries
+	 * @param symbols the symbols to use, typically the ones of the {@link SvnLogEntryAggregator} fed by this parser
+	 * @see SvnLogEntryAggregator#getSymbols()
+	 */
+	public SvnLogParser(SvnLogEntryProcessor entryProcessor, SvnLogSymbols symbols) {
 		this.entryProcessor = requireNonNull(entryProcessor);
+		this.symbols = requireNonNull(symbols);
+	}
+
+	/**
+	 * Only pass log entries accepted by given filter on to the processor. Other log entries are skipped as early as
+	 * possible, without reading their paths and commit message.
+	 *
+	 * @param filter the filter to use
+	 */
+	public void setFilter(SvnLogEntryFilter filter) {
+		this.filter = requireNonNull(filter);
+	}
+
+	public SvnLogEntryFilter getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Count the bytes read by this parser in given metrics.
+	 *
+	 * @param metrics the metrics to update, or null to not collect metrics
+	 */
+	public void setMetrics(SvnLogMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public SvnLogMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Set whether or not to keep the text of commit messages. Processors that only need the
+	 * {@link SvnLogEntry#getMessageLength() message length}, like a {@link SvnLogEntryAggregator}, can turn this off
+	 * so that no strings are created for the messages. Defaults to true.
+	 *
+	 * @param includeMessages whether or not to set {@link SvnLogEntry#msg}
+	 */
+	public void setIncludeMessages(boolean includeMessages) {
+		this.includeMessages = includeMessages;
+	}
+
+	public boolean isIncludeMessages() {
+		return includeMessages;
 	}
 
 	/**
-	 * Parse given log file and pass read entries on to the configured processor for processing.
+	 * Parse given log file and pass read entries on to the configured processor for processing. Gzip compressed log
+	 * files are decompressed on the fly.
 	 *
 	 * @param logFile the Subversion log file
 	 * @throws IOException when given file cannot be read
 	 * @throws XMLStreamException when XML parsing fails
+	 * @see SvnLogInput
 	 */
 	public void parse(File logFile) throws IOException, XMLStreamException {
-		try (Reader fin = new FileReader(logFile)) {
+		try (InputStream fin = SvnLogInput.open(logFile)) {
 			parse(fin);
 		}
 	}
 
+	/**
+	 * Parse the log entries in given byte range of an uncompressed, UTF-8 encoded log file and pass them on to the
+	 * configured processor. The range should start with a <i>logentry</i> element and end right after a log entry, like
+	 * the ranges a {@link SvnLogParallelParser} splits a log file into.
+	 *
+	 * @param logFile the Subversion log file
+	 * @param start the offset of the first byte of the range
+	 * @param end the offset right after the last byte of the range
+	 * @throws IOException when given file cannot be read
+	 * @throws XMLStreamException when XML parsing fails
+	 */
+	public void parse(File logFile, long start, long end) throws IOException, XMLStreamException {
+		try (FileInputStream fin = new FileInputStream(logFile)) {
+			fin.getChannel().position(start);
+			parse(new SequenceInputStream(Collections.enumeration(Arrays.asList(
+					new ByteArrayInputStream("<log>".getBytes(UTF_8)),
+					new BufferedInputStream(new RangeInputStream(fin, end - start), 64 * 1024),
+					new ByteArrayInputStream("</log>".getBytes(UTF_8))))));
+		}
+	}
+
+	/**
+	 * Parse entries from given byte stream and pass them on to the configured processor. The character encoding is
+	 * detected from the XML declaration, defaulting to UTF-8.
+	 *
+	 * @param logFileStream the Subversion log file stream
+	 * @throws XMLStreamException when XML parsing fails
+	 */
+	public void parse(InputStream logFileStream) throws XMLStreamException {
+		parse(XMLInputFactory.newFactory().createXMLEventReader(metered(logFileStream)));
+	}
+
 	/**
 	 * Parse entries from given stream and pass them on to the configured processor.
 	 *
@@ -84,12 +187,22 @@ public class SvnLogParser {
 	 * @throws XMLStreamException when XML parsing fails
 	 */
 	public void parse(Reader logFileReader) throws XMLStreamException {
+		parse(XMLInputFactory.newFactory().createXMLEventReader(logFileReader));
+	}
+
+	/**
+	 * Returns given stream, counting the bytes read from it when collecting metrics.
+	 */
+	protected InputStream metered(InputStream in) {
+		return metrics == null ? in : metrics.meter(in);
+	}
+
+	private void parse(XMLEventReader xmlEventReader) throws XMLStreamException {
 		SvnLogEntry logEntry = null;
 		SvnLogEntryPath logEntryPath = null;
 		StringBuilder buf = null;
 
 		// use StAX to process the XML log file
-		XMLEventReader xmlEventReader = XMLInputFactory.newFactory().createXMLEventReader(logFileReader);
 		try {
 			/*
 			<logentry revision="21955">
@@ -101,14 +214,21 @@ public class SvnLogParser {
 				<msg>Commit message</msg>
 			</logentry>
 			 */
+			boolean skipping = false; // skipping a log entry rejected by the filter
 			while (xmlEventReader.hasNext()) {
 				XMLEvent xmlEvent = xmlEventReader.nextEvent();
+				if (skipping) {
+					skipping = !xmlEvent.isEndElement()
+							|| !xmlEvent.asEndElement().getName().getLocalPart().equals("logentry");
+					continue;
+				}
 				if (xmlEvent.isStartElement()) {
 					StartElement startEl = xmlEvent.asStartElement();
 					switch (startEl.getName().getLocalPart()) {
 						case "logentry":
-							logEntry = new SvnLogEntry();
+							logEntry = newLogEntry();
 							logEntry.revision = parseInt(startEl.getAttributeByName(new QName("revision")).getValue());
+							skipping = !filter.acceptsRevision(logEntry.revision);
 							break;
 
 						case "author":
@@ -132,29 +252,33 @@ public class SvnLogParser {
 					EndElement endEl = xmlEvent.asEndElement();
 					switch (endEl.getName().getLocalPart()) {
 						case "logentry":
-							entryProcessor.process(logEntry);
+							if (filter.accepts(logEntry)) {
+								entryProcessor.process(logEntry);
+							}
 							logEntry = null;
 							break;
 
 						case "author":
-							logEntry.author = buf.toString().trim();
+							setAuthor(logEntry, buf);
 							buf = null;
+							skipping = !filter.acceptsAuthor(logEntry.author);
 							break;
 
 						case "date":
-							logEntry.date = ZonedDateTime.from(ISO_ZONED_DATE_TIME.parse(buf.toString().trim()));
+							parseDate(logEntry, buf);
 							buf = null;
+							skipping = !filter.acceptsTimestamp(logEntry.getTimestamp());
 							break;
 
 						case "path":
 							logEntryPath.path = buf.toString().trim();
-							logEntry.paths.add(logEntryPath);
+							addPath(logEntry, logEntryPath);
 							logEntryPath = null;
 							buf = null;
 							break;
 
 						case "msg":
-							logEntry.msg = buf.toString().trim();
+							setMessage(logEntry, buf);
 							buf = null;
 							break;
 					}
@@ -164,4 +288,112 @@ public class SvnLogParser {
 			xmlEventReader.close();
 		}
 	}
+
+	/**
+	 * Create a new log entry using the symbols of this parser.
+	 */
+	protected SvnLogEntry newLogEntry() {
+		SvnLogEntry logEntry = new SvnLogEntry();
+		logEntry.symbols = symbols;
+		return logEntry;
+	}
+
+	/**
+	 * Set the author of given log entry from the text of an <i>author</i> element. The author is looked up in the
+	 * symbols without creating a string, unless it is a new author.
+	 */
+	protected void setAuthor(SvnLogEntry logEntry, CharSequence text) {
+		int from = 0;
+		int to = text.length();
+		while (from < to && text.charAt(from) <= ' ') {
+			from++;
+		}
+		while (from < to && text.charAt(to - 1) <= ' ') {
+			to--;
+		}
+		logEntry.authorId = symbols.authors.intern(text, from, to);
+		logEntry.author = symbols.authors.get(logEntry.authorId);
+	}
+
+	/**
+	 * Set the commit message of given log entry from the text of a <i>msg</i> element, or only its length when
+	 * messages are not {@link #setIncludeMessages(boolean) included}.
+	 */
+	protected void setMessage(SvnLogEntry logEntry, CharSequence text) {
+		int from = 0;
+		int to = text.length();
+		while (from < to && text.charAt(from) <= ' ') {
+			from++;
+		}
+		while (from < to && text.charAt(to - 1) <= ' ') {
+			to--;
+		}
+		if (includeMessages) {
+			logEntry.msg = text.subSequence(from, to).toString();
+		} else {
+			logEntry.msgLength = to - from;
+		}
+	}
+
+	/**
+	 * Add given path to the log entry, assigning the id of its file name extension.
+	 */
+	protected void addPath(SvnLogEntry logEntry, SvnLogEntryPath logEntryPath) {
+		logEntryPath.extensionId = symbols.getExtensionId(logEntryPath.path);
+		logEntry.paths.add(logEntryPath);
+	}
+
+	/**
+	 * Set the commit date of given log entry from the text of a <i>date</i> element. The usual Subversion timestamp
+	 * format is parsed into a primitive timestamp without creating any objects, other formats are parsed as an ISO
+	 * date time.
+	 */
+	protected static void parseDate(SvnLogEntry logEntry, CharSequence text) {
+		logEntry.timestamp = Util.parseSvnTimestamp(text);
+		if (logEntry.timestamp == Util.NO_TIMESTAMP) {
+			logEntry.date = ZonedDateTime.from(ISO_ZONED_DATE_TIME.parse(text.toString().trim()));
+		}
+	}
+
+	/**
+	 * Input stream that reads at most a given number of bytes from an underlying stream.
+	 */
+	private static class RangeInputStream extends FilterInputStream {
+
+		private long remaining;
+
+		public RangeInputStream(InputStream in, long length) {
+			super(in);
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (remaining <= 0) {
+				return -1;
+			}
+			int b = in.read();
+			if (b != -1) {
+				remaining--;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (remaining <= 0) {
+				return -1;
+			}
+			int read = in.read(b, off, (int) Math.min(len, remaining));
+			if (read > 0) {
+				remaining -= read;
+			}
+			return read;
+		}
+
+		@Override
+		public void close() {
+			// the underlying stream is closed by its owner
+		}
+	}
 }
@@ -0,0 +1,756 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.ervacon.svn.logstats.SvnLogEntryPath.PathAction;
+import com.ervacon.svn.logstats.SvnLogEntryPath.PathKind;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Specialized {@link SvnLogParser} that scans a memory-mapped log file byte by byte instead of going through a general
+ * purpose XML parser.
+ * <p>
+ * The scanner only understands the small, fixed structure produced by <code>svn log --xml</code> (<i>logentry</i>,
+ * <i>author</i>, <i>date</i>, <i>paths/path</i> and <i>msg</i> elements) and tokenizes it straight from the UTF-8
+ * encoded bytes, decoding only the text of those elements. Log entries with an unexpected structure, e.g. because they
+ * contain revision properties, comments or CDATA sections, are handed to a regular {@link SvnLogParser}, as are log
+ * files that are not UTF-8 encoded or compressed. Byte ranges of a log file, e.g. those of a
+ * {@link SvnLogParallelParser}, are scanned in the same way. Streams passed to {@link #parse(java.io.InputStream)} or
+ * {@link #parse(java.io.Reader)} cannot be memory-mapped and are always parsed using the regular parser.
+ * <p>
+ * Instances of this class are not thread-safe.
+ *
+ * @author Erwin Vervaet
+ */
+public class SvnLogScanner extends SvnLogParser {
+
+	private static final byte[] LOGENTRY_START = bytes("<logentry");
+	private static final byte[] LOGENTRY_END = bytes("</logentry>");
+	private static final byte[] AUTHOR = bytes("author");
+	private static final byte[] DATE = bytes("date");
+	private static final byte[] PATHS = bytes("paths");
+	private static final byte[] PATH = bytes("path");
+	private static final byte[] MSG = bytes("msg");
+	private static final byte[] REVISION = bytes("revision");
+	private static final byte[] ACTION = bytes("action");
+	private static final byte[] KIND = bytes("kind");
+	private static final byte[] ENCODING = bytes("encoding=");
+
+	private static final int DEFAULT_WINDOW_SIZE = Integer.MAX_VALUE;
+
+	private static final SvnLogEntry SKIPPED = new SvnLogEntry(); // marks log entries rejected by the filter
+
+	private final int windowSize;
+	private final SvnLogParser fallbackParser;
+
+	private MappedByteBuffer buf;
+	private ByteBuffer view;
+	private int pos;
+	private int attrNameLength;
+	private int attrValueStart;
+	private int attrValueEnd;
+	private byte[] scratch = new byte[256];
+	private final BufferText text = new BufferText();
+
+	/**
+	 * Create a new scanner which will push entries to given processor for processing.
+	 *
+	 * @param entryProcessor the processor to use to process log file entries
+	 */
+	public SvnLogScanner(SvnLogEntryProcessor entryProcessor) {
+		this(entryProcessor, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Create a new scanner which will push entries to given processor for processing, assigning ids from given symbols
+	 * to the authors and paths of those entries.
+	 *
+	 * @param entryProcessor the processor to use to process log file entries
+	 * @param symbols the symbols to use
+	 */
+	public SvnLogScanner(SvnLogEntryProcessor entryProcessor, SvnLogSymbols symbols) {
+		this(entryProcessor, symbols, DEFAULT_WINDOW_SIZE);
+	}
+
+	SvnLogScanner(SvnLogEntryProcessor entryProcessor, int windowSize) {
+		this(entryProcessor, new SvnLogSymbols(), windowSize);
+	}
+
+	private SvnLogScanner(SvnLogEntryProcessor entryProcessor, SvnLogSymbols symbols, int windowSize) {
+		super(entryProcessor, symbols);
+		this.windowSize = windowSize;
+		this.fallbackParser = new SvnLogParser(entryProcessor, symbols);
+	}
+
+	@Override
+	public void parse(File logFile) throws IOException, XMLStreamException {
+		if (SvnLogInput.getCompression(logFile) != SvnLogInput.Compression.NONE) {
+			super.parse(logFile);
+			return;
+		}
+
+		try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			map(channel, 0, Math.min(size, windowSize));
+
+			if (!isUtf8() || indexOf(LOGENTRY_START, 0, buf.limit()) == -1) {
+				// not something we can scan: use the real XML parser instead
+				buf = null;
+				view = null;
+				super.parse(logFile);
+				return;
+			}
+			scan(channel, 0, size);
+		} finally {
+			buf = null;
+			view = null;
+		}
+	}
+
+	/**
+	 * Scan the log entries in given byte range of a log file straight from the memory-mapped file.
+	 */
+	@Override
+	public void parse(File logFile, long start, long end) throws IOException, XMLStreamException {
+		try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+			map(channel, start, Math.min(end - start, windowSize));
+			scan(channel, start, end);
+		} finally {
+			buf = null;
+			view = null;
+		}
+	}
+
+	/**
+	 * Scan the log entries between given file offsets, with the first window already mapped at the start offset.
+	 */
+	private void scan(FileChannel channel, long from, long to) throws IOException, XMLStreamException {
+		long windowStart = from;
+		int next = 0;
+		long counted = from; // bytes counted in the metrics
+		while (true) {
+			boolean lastWindow = windowStart + buf.limit() == to;
+			int start = indexOf(LOGENTRY_START, next, buf.limit());
+			int end = start == -1 ? -1 : indexOf(LOGENTRY_END, start, buf.limit());
+			if (end == -1) {
+				if (lastWindow) {
+					if (start != -1) {
+						// truncated log entry: let the XML parser report the problem
+						fallback(start, buf.limit());
+					}
+					break;
+				}
+				if (start == 0) {
+					throw new IOException("Log entry at offset " + windowStart + " does not fit in a mapping window");
+				}
+				// move the window so it starts with the log entry we're looking at
+				windowStart += start == -1 ? Math.max(next, buf.limit() - LOGENTRY_START.length) : start;
+				map(channel, windowStart, Math.min(to - windowStart, windowSize));
+				next = 0;
+				continue;
+			}
+
+			end += LOGENTRY_END.length;
+			SvnLogEntry logEntry = scanLogEntry(start, end);
+			if (logEntry == null) {
+				fallback(start, end);
+			} else if (logEntry != SKIPPED && filter.accepts(logEntry)) {
+				entryProcessor.process(logEntry);
+			}
+			next = end;
+			if (metrics != null) {
+				metrics.addBytesRead(windowStart + end - counted);
+				counted = windowStart + end;
+			}
+		}
+		if (metrics != null) {
+			metrics.addBytesRead(to - counted);
+		}
+	}
+
+	private void map(FileChannel channel, long position, long size) throws IOException {
+		buf = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+		view = buf.duplicate();
+	}
+
+	/**
+	 * Check the XML declaration, if any, for a non UTF-8 encoding.
+	 */
+	private boolean isUtf8() {
+		int limit = Math.min(buf.limit(), 256);
+		int idx = indexOf(ENCODING, 0, limit);
+		if (idx == -1) {
+			return true;
+		}
+		pos = idx + ENCODING.length;
+		if (pos >= limit) {
+			return false;
+		}
+		byte quote = buf.get(pos++);
+		int valueEnd = indexOf(quote, pos, limit);
+		if (valueEnd == -1) {
+			return false;
+		}
+		String encoding = new String(copy(pos, valueEnd), 0, valueEnd - pos, ISO_8859_1);
+		return encoding.equalsIgnoreCase("UTF-8") || encoding.equalsIgnoreCase("UTF8");
+	}
+
+	/**
+	 * Parse the log entry element between given positions using the regular XML parser.
+	 */
+	private void fallback(int start, int end) throws XMLStreamException {
+		byte[] logXml = new byte[end - start + 11];
+		System.arraycopy(bytes("<log>"), 0, logXml, 0, 5);
+		view.position(start);
+		view.get(logXml, 5, end - start);
+		System.arraycopy(bytes("</log>"), 0, logXml, logXml.length - 6, 6);
+		fallbackParser.parse(new ByteArrayInputStream(logXml));
+	}
+
+	@Override
+	public void setFilter(SvnLogEntryFilter filter) {
+		super.setFilter(filter);
+		fallbackParser.setFilter(filter);
+	}
+
+	@Override
+	public void setIncludeMessages(boolean includeMessages) {
+		super.setIncludeMessages(includeMessages);
+		fallbackParser.setIncludeMessages(includeMessages);
+	}
+
+	/**
+	 * Scan the log entry element between given positions. Returns null when the log entry has a structure we do not
+	 * expect, and {@link #SKIPPED} when it is rejected by the filter: the rest of the log entry is not scanned in that
+	 * case.
+	 */
+	private SvnLogEntry scanLogEntry(int start, int end) {
+		SvnLogEntry logEntry = newLogEntry();
+		boolean hasRevision = false;
+
+		pos = start + LOGENTRY_START.length;
+		int attr;
+		while ((attr = nextAttribute(end)) > 0) {
+			if (equals(attr, REVISION)) {
+				logEntry.revision = parseInt(attrValueStart, attrValueEnd);
+				hasRevision = logEntry.revision >= 0;
+			}
+		}
+		if (attr < 0 || !hasRevision) {
+			return null;
+		}
+		if (!filter.acceptsRevision(logEntry.revision)) {
+			return SKIPPED;
+		}
+
+		int endTag = end - LOGENTRY_END.length;
+		while (true) {
+			if (!skipWhitespace(end) || buf.get(pos) != '<') {
+				return null;
+			}
+			if (pos == endTag) {
+				return logEntry;
+			}
+			pos++;
+
+			if (isTag(AUTHOR, endTag)) {
+				if (!scanAuthor(logEntry, endTag)) {
+					return null;
+				}
+				if (!filter.acceptsAuthor(logEntry.author)) {
+					return SKIPPED;
+				}
+			} else if (isTag(DATE, endTag)) {
+				if (!scanDate(logEntry, endTag)) {
+					return null;
+				}
+				if (!filter.acceptsTimestamp(logEntry.getTimestamp())) {
+					return SKIPPED;
+				}
+			} else if (isTag(MSG, endTag)) {
+				if (!scanMessage(logEntry, endTag)) {
+					return null;
+				}
+			} else if (isTag(PATHS, endTag)) {
+				if (!scanPaths(logEntry, endTag)) {
+					return null;
+				}
+			} else {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Scan the path elements inside a paths element, with the current position right after the element name.
+	 */
+	private boolean scanPaths(SvnLogEntry logEntry, int end) {
+		pos += PATHS.length;
+		if (buf.get(pos) == '/' && pos + 1 < end && buf.get(pos + 1) == '>') {
+			pos += 2;
+			return true;
+		}
+		if (buf.get(pos++) != '>') {
+			return false;
+		}
+
+		while (true) {
+			if (!skipWhitespace(end) || buf.get(pos++) != '<' || pos >= end) {
+				return false;
+			}
+			if (buf.get(pos) == '/') {
+				pos++;
+				return matchesEndTag(PATHS, end);
+			}
+			if (!isTag(PATH, end)) {
+				return false;
+			}
+
+			SvnLogEntryPath logEntryPath = new SvnLogEntryPath();
+			pos += PATH.length;
+			int attr;
+			while ((attr = nextAttribute(end)) > 0) {
+				if (equals(attr, ACTION)) {
+					logEntryPath.action = toPathAction();
+				} else if (equals(attr, KIND)) {
+					logEntryPath.kind = toPathKind();
+				}
+			}
+			if (attr < 0 || logEntryPath.action == null || logEntryPath.kind == null) {
+				return false;
+			}
+			logEntryPath.path = scanTextContent(PATH, end);
+			if (logEntryPath.path == null) {
+				return false;
+			}
+			addPath(logEntry, logEntryPath);
+		}
+	}
+
+	/**
+	 * Locate the text of a simple element without attributes, with the current position right after the element name.
+	 * The range of the element text is available through {@link #text} when this returns true.
+	 */
+	private boolean scanTextRange(byte[] name, int end) {
+		pos += name.length;
+		if (pos + 1 < end && buf.get(pos) == '/' && buf.get(pos + 1) == '>') {
+			pos += 2;
+			text.from = pos;
+			text.to = pos;
+			return true;
+		}
+		if (pos >= end || buf.get(pos++) != '>') {
+			return false;
+		}
+		int textStart = pos;
+		int textEnd = scanToEndTag(name, end);
+		if (textEnd == -1) {
+			return false;
+		}
+		text.from = textStart;
+		text.to = textEnd;
+		return true;
+	}
+
+	/**
+	 * Scan the author element, with the current position right after the element name. Plain ASCII author names are
+	 * looked up in the symbols straight from the mapped bytes.
+	 */
+	private boolean scanAuthor(SvnLogEntry logEntry, int end) {
+		if (!scanTextRange(AUTHOR, end)) {
+			return false;
+		}
+		if (isPlainAscii(text.from, text.to)) {
+			setAuthor(logEntry, text);
+		} else {
+			String author = decodeText(text.from, text.to);
+			if (author == null) {
+				return false;
+			}
+			setAuthor(logEntry, author);
+		}
+		return true;
+	}
+
+	/**
+	 * Scan the msg element, with the current position right after the element name. When messages are not included,
+	 * the length of plain ASCII messages is taken straight from the mapped bytes without decoding them.
+	 */
+	private boolean scanMessage(SvnLogEntry logEntry, int end) {
+		if (!scanTextRange(MSG, end)) {
+			return false;
+		}
+		if (!includeMessages && isPlainAscii(text.from, text.to)) {
+			setMessage(logEntry, text);
+		} else {
+			String msg = decodeText(text.from, text.to);
+			if (msg == null) {
+				return false;
+			}
+			setMessage(logEntry, msg);
+		}
+		return true;
+	}
+
+	/**
+	 * Scan element text up to the end tag of the element, with the current position right after the start tag.
+	 */
+	private String scanTextContent(byte[] name, int end) {
+		int textStart = pos;
+		int textEnd = scanToEndTag(name, end);
+		if (textEnd == -1) {
+			return null;
+		}
+		return decodeText(textStart, textEnd);
+	}
+
+	/**
+	 * Scan the date element, with the current position right after the element name. The timestamp is parsed straight
+	 * from the mapped bytes, falling back to regular date parsing when it does not have the usual format.
+	 */
+	private boolean scanDate(SvnLogEntry logEntry, int end) {
+		if (!scanTextRange(DATE, end)) {
+			return false;
+		}
+		parseDate(logEntry, text);
+		return true;
+	}
+
+	/**
+	 * Check whether given range only contains ASCII characters that do not need any decoding.
+	 */
+	private boolean isPlainAscii(int from, int to) {
+		for (int i = from; i < to; i++) {
+			byte b = buf.get(i);
+			if (b < 0 || b == '&' || b == '\r') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Move past the end tag of given element, returning the position where the element text ends or -1 when the
+	 * element contains markup.
+	 */
+	private int scanToEndTag(byte[] name, int end) {
+		int textEnd = indexOf((byte) '<', pos, end);
+		if (textEnd == -1 || textEnd + 1 >= end || buf.get(textEnd + 1) != '/') {
+			return -1; // nested elements, comments or CDATA
+		}
+		pos = textEnd + 2;
+		if (!matchesEndTag(name, end)) {
+			return -1;
+		}
+		return textEnd;
+	}
+
+	/**
+	 * Decode given range of UTF-8 encoded element text like an XML parser would, and trim it.
+	 */
+	private String decodeText(int from, int to) {
+		while (from < to && (buf.get(from) & 0xff) <= ' ') {
+			from++;
+		}
+		while (from < to && (buf.get(to - 1) & 0xff) <= ' ') {
+			to--;
+		}
+
+		boolean ascii = true;
+		boolean entities = false;
+		boolean carriageReturns = false;
+		byte[] bytes = copy(from, to);
+		for (int i = 0; i < to - from; i++) {
+			byte b = bytes[i];
+			ascii &= b >= 0;
+			entities |= b == '&';
+			carriageReturns |= b == '\r';
+		}
+
+		String text = new String(bytes, 0, to - from, ascii ? ISO_8859_1 : UTF_8);
+		if (carriageReturns) {
+			text = text.replace("\r\n", "\n").replace('\r', '\n');
+		}
+		if (entities) {
+			text = unescape(text);
+			if (text == null) {
+				return null;
+			}
+			text = text.trim();
+		}
+		return text;
+	}
+
+	/**
+	 * Replace predefined entities and character references in given text. Returns null when the text contains other
+	 * entity references.
+	 */
+	private static String unescape(String text) {
+		StringBuilder result = new StringBuilder(text.length());
+		int idx = 0;
+		int amp;
+		while ((amp = text.indexOf('&', idx)) != -1) {
+			int semicolon = text.indexOf(';', amp);
+			if (semicolon == -1) {
+				return null;
+			}
+			result.append(text, idx, amp);
+			String entity = text.substring(amp + 1, semicolon);
+			switch (entity) {
+				case "amp":
+					result.append('&');
+					break;
+				case "lt":
+					result.append('<');
+					break;
+				case "gt":
+					result.append('>');
+					break;
+				case "quot":
+					result.append('"');
+					break;
+				case "apos":
+					result.append('\'');
+					break;
+				default:
+					try {
+						if (entity.startsWith("#x")) {
+							result.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+						} else if (entity.startsWith("#")) {
+							result.appendCodePoint(Integer.parseInt(entity.substring(1)));
+						} else {
+							return null;
+						}
+					} catch (IllegalArgumentException e) {
+						return null;
+					}
+			}
+			idx = semicolon + 1;
+		}
+		return result.append(text, idx, text.length()).toString();
+	}
+
+	/**
+	 * Move to the next attribute of the current start tag. Returns the start position of the attribute name, 0 when the
+	 * start tag was closed, or -1 on unexpected input. The length of the name and the range of the attribute value are
+	 * kept in {@link #attrNameLength}, {@link #attrValueStart} and {@link #attrValueEnd}.
+	 */
+	private int nextAttribute(int end) {
+		if (!skipWhitespace(end)) {
+			return -1;
+		}
+		if (buf.get(pos) == '>') {
+			pos++;
+			return 0;
+		}
+		int nameStart = pos;
+		while (pos < end && buf.get(pos) != '=' && (buf.get(pos) & 0xff) > ' ' && buf.get(pos) != '>') {
+			pos++;
+		}
+		int nameEnd = pos;
+		if (nameEnd == nameStart || !skipWhitespace(end) || buf.get(pos++) != '=' || !skipWhitespace(end)) {
+			return -1;
+		}
+		byte quote = buf.get(pos++);
+		if (quote != '"' && quote != '\'') {
+			return -1;
+		}
+		attrValueStart = pos;
+		attrValueEnd = indexOf(quote, pos, end);
+		if (attrValueEnd == -1) {
+			return -1;
+		}
+		pos = attrValueEnd + 1;
+		attrNameLength = nameEnd - nameStart;
+		return nameStart;
+	}
+
+	private boolean equals(int nameStart, byte[] name) {
+		if (attrNameLength != name.length) {
+			return false;
+		}
+		for (int i = 0; i < name.length; i++) {
+			if (buf.get(nameStart + i) != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private PathAction toPathAction() {
+		if (attrValueEnd - attrValueStart != 1) {
+			return null;
+		}
+		switch (buf.get(attrValueStart)) {
+			case 'M':
+				return PathAction.M;
+			case 'D':
+				return PathAction.D;
+			case 'A':
+				return PathAction.A;
+			case 'R':
+				return PathAction.R;
+			default:
+				return null;
+		}
+	}
+
+	private PathKind toPathKind() {
+		String kind = new String(copy(attrValueStart, attrValueEnd), 0, attrValueEnd - attrValueStart, ISO_8859_1);
+		if (kind.equalsIgnoreCase("file")) {
+			return PathKind.FILE;
+		} else if (kind.equalsIgnoreCase("dir")) {
+			return PathKind.DIR;
+		}
+		return null;
+	}
+
+	private int parseInt(int from, int to) {
+		if (from == to || to - from > 9) {
+			return -1;
+		}
+		int value = 0;
+		for (int i = from; i < to; i++) {
+			byte b = buf.get(i);
+			if (b < '0' || b > '9') {
+				return -1;
+			}
+			value = value * 10 + (b - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Is the current position at the start of given element name, followed by the end of the name?
+	 */
+	private boolean isTag(byte[] name, int end) {
+		if (pos + name.length >= end) {
+			return false;
+		}
+		for (int i = 0; i < name.length; i++) {
+			if (buf.get(pos + i) != name[i]) {
+				return false;
+			}
+		}
+		byte next = buf.get(pos + name.length);
+		return next == '>' || next == '/' || (next & 0xff) <= ' ';
+	}
+
+	/**
+	 * Match the rest of an end tag (the element name and '&gt;'), with the current position right after "&lt;/".
+	 */
+	private boolean matchesEndTag(byte[] name, int end) {
+		if (!isTag(name, end)) {
+			return false;
+		}
+		pos += name.length;
+		if (!skipWhitespace(end) || buf.get(pos) != '>') {
+			return false;
+		}
+		pos++;
+		return true;
+	}
+
+	/**
+	 * Skip whitespace, returning false when the end position was reached.
+	 */
+	private boolean skipWhitespace(int end) {
+		while (pos < end && (buf.get(pos) & 0xff) <= ' ') {
+			pos++;
+		}
+		return pos < end;
+	}
+
+	private int indexOf(byte b, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (buf.get(i) == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private int indexOf(byte[] pattern, int from, int to) {
+		int last = to - pattern.length;
+		for (int i = from; i <= last; i++) {
+			if (buf.get(i) == pattern[0]) {
+				int j = 1;
+				while (j < pattern.length && buf.get(i + j) == pattern[j]) {
+					j++;
+				}
+				if (j == pattern.length) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Copy given range of the mapped file into the scratch buffer, which is returned.
+	 */
+	private byte[] copy(int from, int to) {
+		if (scratch.length < to - from) {
+			scratch = new byte[Math.max(to - from, scratch.length * 2)];
+		}
+		view.position(from);
+		view.get(scratch, 0, to - from);
+		return scratch;
+	}
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(UTF_8);
+	}
+
+	/**
+	 * Reusable view on a range of the mapped bytes as Latin-1 characters.
+	 */
+	private class BufferText implements CharSequence {
+
+		private int from;
+		private int to;
+
+		@Override
+		public int length() {
+			return to - from;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) (buf.get(from + index) & 0xff);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new String(copy(from + start, from + end), 0, end - start, ISO_8859_1);
+		}
+
+		@Override
+		public String toString() {
+			return subSequence(0, length()).toString();
+		}
+	}
+}
@@ -16,6 +16,20 @@
 package com.ervacon.svn.logstats;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * SvnLogStats command line program.
@@ -24,35 +38,533 @@ import java.io.File;
  */
 public class SvnLogStats {
 
+	private static final String STDIN = "-";
+	private static final List<String> REPORT_FORMATS = Arrays.asList("html", "json", "csv");
+	private static final List<String> ANALYSES = Arrays.asList("hotspots", "distinct", "cochanges");
+	private static final List<String> LOG_FILE_EXTENSIONS = Arrays.asList("xml", "log", "gz", "zip", "xz", "bz2");
+
 	public static void main(String[] args) throws Exception {
-		if (args.length != 2) {
-			System.out.println("Usage: SvnLogStats logfile reportfile");
-			System.out.println("\tlogfile\tThe path to the Subversion XML log file");
-			System.out.println("\treportfile\tThe path of the HTML report file to write");
+		String parserType = "event";
+		int threads = 1;
+		int pipelineWorkers = 0;
+		File snapshotFile = null;
+		File cacheFile = null;
+		int hotspotDepth = DirectoryHotspots.DEFAULT_MAX_DEPTH;
+		int hotspotBudget = DirectoryHotspots.DEFAULT_NODE_BUDGET;
+		int distinctPrecision = HyperLogLog.DEFAULT_PRECISION;
+		int coChangeMaxPaths = CoChangeAnalyzer.DEFAULT_MAX_PATHS_PER_COMMIT;
+		int coChangeMinSupport = CoChangeAnalyzer.DEFAULT_MIN_SUPPORT;
+		List<String> analyses = ANALYSES;
+		SvnLogEntryFilter filter = new SvnLogEntryFilter();
+		long since = Long.MIN_VALUE;
+		long until = Long.MAX_VALUE;
+		List<String> formats = Arrays.asList("html");
+		int metricsInterval = -1; // no metrics
+		File batchDir = null;
+		File combinedFile = null;
+
+		int argIdx = 0;
+		while (argIdx < args.length && args[argIdx].startsWith("-") && !args[argIdx].equals(STDIN)) {
+			String option = args[argIdx++];
+			if (argIdx == args.length) {
+				usage();
+			}
+			switch (option) {
+				case "-parser":
+					parserType = args[argIdx++];
+					break;
+				case "-parallel":
+					threads = Integer.parseInt(args[argIdx++]);
+					break;
+				case "-pipeline":
+					pipelineWorkers = Integer.parseInt(args[argIdx++]);
+					break;
+				case "-snapshot":
+					snapshotFile = new File(args[argIdx++]).getCanonicalFile();
+					break;
+				case "-cache":
+					cacheFile = new File(args[argIdx++]).getCanonicalFile();
+					break;
+				case "-revisions":
+					String[] range = args[argIdx++].split(":", -1);
+					if (range.length != 2) {
+						usage();
+					}
+					filter.setRevisions(range[0].isEmpty() ? 0 : Integer.parseInt(range[0]),
+							range[1].isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(range[1]));
+					break;
+				case "-since":
+					since = toTimestamp(parseDay(args[argIdx++]));
+					break;
+				case "-until":
+					until = toTimestamp(parseDay(args[argIdx++]).plusDays(1));
+					break;
+				case "-authors":
+					filter.setAuthors(Arrays.asList(args[argIdx++].split(",")));
+					break;
+				case "-format":
+					formats = Arrays.asList(args[argIdx++].split(","));
+					if (!REPORT_FORMATS.containsAll(formats)) {
+						usage();
+					}
+					break;
+				case "-analyses":
+					analyses = args[argIdx].equals("none") ? Collections.emptyList()
+							: Arrays.asList(args[argIdx].split(","));
+					argIdx++;
+					if (!ANALYSES.containsAll(analyses)) {
+						usage();
+					}
+					break;
+				case "-metrics":
+					metricsInterval = Integer.parseInt(args[argIdx++]);
+					break;
+				case "-batch":
+					batchDir = new File(args[argIdx++]).getCanonicalFile();
+					break;
+				case "-combined":
+					combinedFile = new File(args[argIdx++]).getCanonicalFile();
+					break;
+				case "-hotspotDepth":
+					hotspotDepth = Integer.parseInt(args[argIdx++]);
+					break;
+				case "-hotspotBudget":
+					hotspotBudget = Integer.parseInt(args[argIdx++]);
+					break;
+				case "-distinctPrecision":
+					distinctPrecision = Integer.parseInt(args[argIdx++]);
+					break;
+				case "-coChangeMaxPaths":
+					coChangeMaxPaths = Integer.parseInt(args[argIdx++]);
+					break;
+				case "-coChangeMinSupport":
+					coChangeMinSupport = Integer.parseInt(args[argIdx++]);
+					break;
+				default:
+					usage();
+			}
+		}
+		if (batchDir == null ? args.length - argIdx != 2 || combinedFile != null : args.length == argIdx) {
+			usage();
+		}
+		filter.setTimeWindow(since, until);
+		if (snapshotFile != null && !filter.acceptsAll()) {
+			// a snapshot would permanently miss the filtered out revisions older than its last revision
+			System.out.println("Options -revisions, -since, -until and -authors cannot be used with -snapshot");
 			System.exit(1);
 		}
+		Function<SvnLogSymbols, SvnLogEntryAggregator> newAggregator = newAggregatorFactory(analyses,
+				hotspotDepth, hotspotBudget, distinctPrecision, coChangeMaxPaths, coChangeMinSupport);
+
+		if (batchDir != null) {
+			if (snapshotFile != null || cacheFile != null || pipelineWorkers > 0) {
+				System.out.println("Options -snapshot, -cache and -pipeline cannot be used in batch mode");
+				System.exit(1);
+			}
+			List<File> logFiles = new ArrayList<>();
+			for (int i = argIdx; i < args.length; i++) {
+				if (args[i].startsWith("@")) {
+					logFiles.addAll(readManifest(new File(args[i].substring(1)).getCanonicalFile()));
+				} else {
+					logFiles.add(new File(args[i]).getCanonicalFile());
+				}
+			}
+			processBatch(logFiles, batchDir, combinedFile, formats, parserType, filter, newAggregator, threads,
+					metricsInterval);
+			return;
+		}
+
+		File logFile = null; // standard input
+		if (args[argIdx].equals(STDIN)) {
+			if (cacheFile != null) {
+				// a cache of standard input can never be checked against the log it was created from
+				System.out.println("Option -cache cannot be used when reading standard input");
+				System.exit(1);
+			}
+		} else {
+			logFile = new File(args[argIdx]).getCanonicalFile();
+			if (!logFile.exists() && !logFile.canRead()) {
+				System.out.println("Log file " + logFile + " does not exist or cannot be read");
+				System.exit(1);
+			}
+		}
 
-		File logFile = new File(args[0]).getCanonicalFile();
-		if (!logFile.exists() && !logFile.canRead()) {
-			System.out.println("Log file " + logFile + " does not exist or cannot be read");
+		List<File> reportFiles = getReportFiles(new File(args[argIdx + 1]).getCanonicalFile(), formats);
+
+		try (SvnLogMetrics metrics = metricsInterval >= 0 ? new SvnLogMetrics() : null) {
+			SvnLogEntryAggregator aggregator = newAggregator.apply(new SvnLogSymbols());
+			if (metrics != null) {
+				metrics.register(logFile == null ? STDIN : logFile.getName());
+				metrics.startProgress(System.out, metricsInterval);
+			}
+			if (snapshotFile != null && snapshotFile.exists()) {
+				SvnLogEntryAggregator snapshot = SvnLogStatsSnapshot.load(snapshotFile);
+				// the snapshot is updated like a new aggregator, e.g. by merging the results of parallel parsing
+				if (!snapshot.getAnalysesDescription().equals(aggregator.getAnalysesDescription())) {
+					System.out.println("Snapshot " + snapshotFile + " tracks " + snapshot.getAnalysesDescription()
+							+ ", but the options ask for " + aggregator.getAnalysesDescription());
+					System.exit(1);
+				}
+				aggregator = snapshot;
+				System.out.println("Loaded snapshot " + snapshotFile + " up to revision " + aggregator.getLastRevision());
+			}
+			if (aggregator.getLastRevision() > 0) {
+				// only process revisions newer than the ones in the snapshot
+				filter.setRevisions(Math.max(filter.getFromRevision(), aggregator.getLastRevision() + 1),
+						filter.getToRevision());
+			}
+
+			boolean useCache = cacheFile != null && SvnLogCacheReader.isUpToDate(cacheFile, logFile);
+			SvnLogCacheWriter cacheWriter = cacheFile != null && !useCache
+					? new SvnLogCacheWriter(cacheFile, logFile, true) : null;
+			try {
+				startStage(metrics, SvnLogMetrics.Stage.PARSE);
+				System.out.println("Reading " + (useCache ? "cache " + cacheFile
+						: logFile == null ? "standard input" : logFile));
+				if (threads > 1 && logFile != null && cacheFile == null) {
+					String type = parserType;
+					aggregator.merge(new SvnLogParallelParser(
+							(processor, symbols) -> newParser(type, metered(metrics, processor), symbols, filter, metrics),
+							newAggregator, threads)
+						.parse(logFile));
+				} else {
+					if (threads > 1) {
+						System.out.println("Warning: " + (logFile == null ? "standard input" : "a cached log")
+								+ " cannot be parsed in parallel");
+					}
+					try (SvnLogEntryPipeline pipeline = pipelineWorkers > 0
+							? new SvnLogEntryPipeline(metered(metrics, aggregator), pipelineWorkers, 256, 16) : null) {
+						SvnLogEntryProcessor processor = pipeline != null ? pipeline : metered(metrics, aggregator);
+						if (useCache) {
+							SvnLogCacheReader cacheReader = new SvnLogCacheReader(processor, aggregator.getSymbols());
+							cacheReader.setFilter(filter);
+							cacheReader.setMetrics(metrics);
+							cacheReader.replay(cacheFile);
+						} else {
+							// when writing the cache all log entries are parsed, and only filtered afterwards
+							SvnLogParser parser = cacheWriter != null
+									? newParser(parserType, writeTo(cacheWriter, filtered(filter, processor)), aggregator.getSymbols())
+									: newParser(parserType, processor, aggregator.getSymbols(), filter, metrics);
+							parser.setMetrics(metrics);
+							if (logFile == null) {
+								// metrics print their own progress lines
+								try (InputStream in = metrics != null ? SvnLogInput.open(System.in)
+										: new ProgressInputStream(SvnLogInput.open(System.in), System.out, 10)) {
+									parser.parse(in);
+								}
+							} else {
+								parser.parse(logFile);
+							}
+						}
+					}
+				}
+				if (cacheWriter != null) {
+					System.out.println("Saving cache to " + cacheFile);
+					cacheWriter.close();
+				}
+			} finally {
+				if (cacheWriter != null) {
+					// a failed parse must not leave a partial cache behind
+					cacheWriter.discard();
+				}
+			}
+
+			System.out.println("Processed " + aggregator.getTotalNumberOfCommits() + " commits made by "
+					+ aggregator.getAuthors().size() + " authors");
+
+			if (snapshotFile != null) {
+				startStage(metrics, SvnLogMetrics.Stage.SNAPSHOT);
+				System.out.println("Saving snapshot up to revision " + aggregator.getLastRevision() + " to " + snapshotFile);
+				SvnLogStatsSnapshot.save(aggregator, snapshotFile);
+			}
+
+			startStage(metrics, SvnLogMetrics.Stage.REPORT);
+			writeReports(aggregator, formats, reportFiles, threads);
+			if (metrics != null) {
+				metrics.endStage();
+				System.out.println(metrics.formatSummary());
+			}
+		}
+	}
+
+	private static void processBatch(List<File> logFiles, File batchDir, File combinedFile, List<String> formats,
+			String parserType, SvnLogEntryFilter filter, Function<SvnLogSymbols, SvnLogEntryAggregator> newAggregator,
+			int threads, int metricsInterval) throws Exception {
+		// every log file gets its own reports in the batch directory, named after the log file
+		Map<File, List<File>> reportFiles = new HashMap<>();
+		Map<String, File> names = new HashMap<>();
+		for (File logFile : logFiles) {
+			if (!logFile.canRead()) {
+				System.out.println("Log file " + logFile + " does not exist or cannot be read");
+				System.exit(1);
+			}
+			String name = getRepositoryName(logFile);
+			File other = names.put(name, logFile);
+			if (other != null) {
+				System.out.println("Log files " + other + " and " + logFile + " would write the same reports");
+				System.exit(1);
+			}
+			List<File> files = new ArrayList<>();
+			for (String format : formats) {
+				files.add(new File(batchDir, name + "." + format));
+			}
+			reportFiles.put(logFile, files);
+		}
+		List<File> combinedReportFiles = combinedFile != null ? getReportFiles(combinedFile, formats) : null;
+		if (!batchDir.isDirectory() && !batchDir.mkdirs()) {
+			System.out.println("Cannot create batch directory " + batchDir);
 			System.exit(1);
 		}
 
-		File reportFile = new File(args[1]).getCanonicalFile();
-		if (reportFile.exists()) {
-			System.out.println("Warning: report file " + reportFile + " exists and will be overwritten");
+		try (SvnLogMetrics metrics = metricsInterval >= 0 ? new SvnLogMetrics() : null) {
+			if (metrics != null) {
+				metrics.register("batch");
+				metrics.startProgress(System.out, metricsInterval);
+			}
+			SvnLogEntryAggregator combined = combinedFile != null ? newAggregator.apply(new SvnLogSymbols()) : null;
+
+			startStage(metrics, SvnLogMetrics.Stage.PARSE);
+			System.out.println("Reading " + logFiles.size() + " log files using " + threads + " threads");
+			new SvnLogBatch((processor, symbols) -> newParser(parserType, metered(metrics, processor), symbols, filter,
+					metrics), newAggregator, threads).process(logFiles, (logFile, aggregator) -> {
+						System.out.println("Processed " + aggregator.getTotalNumberOfCommits() + " commits made by "
+								+ aggregator.getAuthors().size() + " authors in " + logFile);
+						writeReports(aggregator, formats, reportFiles.get(logFile), 1);
+					}, combined);
+
+			if (combined != null) {
+				System.out.println("Processed " + combined.getTotalNumberOfCommits() + " commits made by "
+						+ combined.getAuthors().size() + " authors in all log files");
+				startStage(metrics, SvnLogMetrics.Stage.REPORT);
+				writeReports(combined, formats, combinedReportFiles, threads);
+			}
+			if (metrics != null) {
+				metrics.endStage();
+				System.out.println(metrics.formatSummary());
+			}
+		}
+	}
+
+	/**
+	 * Read the log files listed in given manifest file: one log file per line, relative to the directory of the
+	 * manifest. Empty lines and lines starting with # are ignored.
+	 */
+	private static List<File> readManifest(File manifestFile) throws IOException {
+		List<File> logFiles = new ArrayList<>();
+		for (String line : Files.readAllLines(manifestFile.toPath(), UTF_8)) {
+			line = line.trim();
+			if (!line.isEmpty() && !line.startsWith("#")) {
+				File logFile = new File(line);
+				if (!logFile.isAbsolute()) {
+					logFile = new File(manifestFile.getParentFile(), line);
+				}
+				logFiles.add(logFile.getCanonicalFile());
+			}
+		}
+		return logFiles;
+	}
+
+	/**
+	 * Returns the name of the repository of given log file: the file name without log file and compression
+	 * extensions, e.g. <i>project</i> for <i>project.xml.gz</i>.
+	 */
+	static String getRepositoryName(File logFile) {
+		String name = logFile.getName();
+		while (true) {
+			String extension = Util.getFilenameExtension(name);
+			if (extension == null || name.length() == extension.length() + 1
+					|| !LOG_FILE_EXTENSIONS.contains(extension.toLowerCase())) {
+				return name;
+			}
+			name = name.substring(0, name.length() - extension.length() - 1);
 		}
+	}
 
-		System.out.println("Reading " + logFile);
-		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator();
-		SvnLogParser parser = new SvnLogParser(aggregator);
-		parser.parse(logFile);
+	/**
+	 * Returns the files to write the reports in given formats to: the first format is written to given report file,
+	 * the others next to it, using the format as extension.
+	 */
+	private static List<File> getReportFiles(File reportFile, List<String> formats) {
+		List<File> reportFiles = new ArrayList<>();
+		for (String format : formats) {
+			File file = reportFiles.isEmpty() ? reportFile : withExtension(reportFile, format);
+			if (reportFiles.contains(file)) {
+				System.out.println("Cannot write more than one report to " + file);
+				System.exit(1);
+			}
+			if (file.exists()) {
+				System.out.println("Warning: report file " + file + " exists and will be overwritten");
+			}
+			reportFiles.add(file);
+		}
+		return reportFiles;
+	}
 
-		System.out.println("Processed " + aggregator.getTotalNumberOfCommits() + " commits made by "
-				+ aggregator.getAuthors().size() + " authors");
+	private static void writeReports(SvnLogEntryAggregator aggregator, List<String> formats, List<File> reportFiles,
+			int threads) throws IOException {
+		for (int i = 0; i < formats.size(); i++) {
+			String format = formats.get(i);
+			System.out.println("Writing " + format.toUpperCase() + " report to " + reportFiles.get(i));
+			newReportWriter(format, aggregator, reportFiles.get(i), threads).writeReport();
+		}
+	}
+
+	private static void usage() {
+		System.out.println("Usage: SvnLogStats [options] logfile reportfile");
+		System.out.println("   or: SvnLogStats [options] -batch dir logfile|@manifest...");
+		System.out.println("\tlogfile\tThe path to the Subversion XML log file, optionally gzip compressed, or - to read "
+				+ "the log from standard input, e.g. svn log --xml URL | java -jar svn-logstats.jar - report.html");
+		System.out.println("\treportfile\tThe path of the report file to write");
+		System.out.println("\tmanifest\tA file listing log files, one per line, relative to the manifest file");
+		System.out.println("Options:");
+		System.out.println("\t-parser event|cursor|scan\tThe XML parsing engine to use (default: event)");
+		System.out.println("\t-parallel n\tParse the log file and render the report using n threads, or process n "
+				+ "log files at a time in batch mode (default: 1)");
+		System.out.println("\t-pipeline n\tAggregate parsed log entries on n separate threads (default: 0)");
+		System.out.println("\t-batch dir\tProcess all given log files concurrently, using the -parallel threads, and "
+				+ "write their reports to given directory, named after the log files, e.g. dir/project.html for "
+				+ "project.xml.gz");
+		System.out.println("\t-combined file\tIn batch mode, also write a combined report of all log files to given "
+				+ "report file");
+		System.out.println("\t-format f,...\tThe report formats to write: html, json and/or csv (default: html). The "
+				+ "first format is written to the report file, other formats to the same path with the format as "
+				+ "extension");
+		System.out.println("\t-metrics n\tCollect metrics, publish them as a JMX MBean and print a progress line "
+				+ "every n seconds, or only a summary when n is 0 (default: no metrics)");
+		System.out.println("\t-snapshot file\tStatistics snapshot to update incrementally: only revisions newer than the "
+				+ "ones in the snapshot are processed, cannot be combined with filters and needs the analysis options the "
+				+ "snapshot was created with");
+		System.out.println("\t-revisions from:to\tOnly process the revisions in given range, e.g. 150000:200000 or "
+				+ "150000: (default: all revisions)");
+		System.out.println("\t-since date\tOnly process commits made on or after given date, e.g. 2017-06-07, or within "
+				+ "given period before today, e.g. P12M for the last 12 months");
+		System.out.println("\t-until date\tOnly process commits made on or before given date");
+		System.out.println("\t-authors a,b,...\tOnly process commits made by given authors");
+		System.out.println("\t-cache file\tBinary cache of the parsed log: replayed instead of parsing the log file when "
+				+ "it is up to date with the log file, (re)written otherwise");
+		System.out.println("\t-analyses a,...\tThe optional analyses to run: hotspots (most changed directories and "
+				+ "files), distinct (distinct paths and active authors per month) and/or cochanges (files changed "
+				+ "together), or none: -pipeline scales better with fewer analyses (default: all)");
+		System.out.println("\t-hotspotDepth n\tThe number of directory levels to count changes for (default: "
+				+ DirectoryHotspots.DEFAULT_MAX_DEPTH + ")");
+		System.out.println("\t-hotspotBudget n\tThe maximum number of directories counted exactly, other directories "
+				+ "are counted approximately (default: " + DirectoryHotspots.DEFAULT_NODE_BUDGET + ")");
+		System.out.println("\t-coChangeMaxPaths n\tCommits changing more files are ignored when looking for files that "
+				+ "are changed together (default: " + CoChangeAnalyzer.DEFAULT_MAX_PATHS_PER_COMMIT + ")");
+		System.out.println("\t-coChangeMinSupport n\tThe number of commits files need to be changed together in to be "
+				+ "reported (default: " + CoChangeAnalyzer.DEFAULT_MIN_SUPPORT + ")");
+		System.out.println("\t-distinctPrecision n\tThe precision of the sketches counting distinct paths and authors, "
+				+ "from " + HyperLogLog.MIN_PRECISION + " to " + HyperLogLog.MAX_PRECISION + ": each step up doubles "
+				+ "memory use and improves accuracy (default: " + HyperLogLog.DEFAULT_PRECISION + ")");
+		System.exit(1);
+	}
+
+	private static Function<SvnLogSymbols, SvnLogEntryAggregator> newAggregatorFactory(List<String> analyses,
+			int hotspotDepth, int hotspotBudget, int distinctPrecision, int coChangeMaxPaths, int coChangeMinSupport) {
+		return symbols -> {
+			SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator(symbols);
+			aggregator.setDistinctCountPrecision(distinctPrecision);
+			if (analyses.contains("hotspots")) {
+				aggregator.setDirectoryHotspots(new DirectoryHotspots(
+						hotspotDepth, hotspotBudget, DirectoryHotspots.DEFAULT_SKETCH_CAPACITY));
+			}
+			if (analyses.contains("distinct")) {
+				aggregator.setDistinctTimeline(new DistinctTimeSeries(TimeSeries.Resolution.MONTH, distinctPrecision));
+			}
+			if (analyses.contains("cochanges")) {
+				aggregator.setCoChanges(new CoChangeAnalyzer(coChangeMaxPaths, coChangeMinSupport,
+						CoChangeAnalyzer.DEFAULT_SKETCH_WIDTH, CoChangeAnalyzer.DEFAULT_CAPACITY));
+			}
+			return aggregator;
+		};
+	}
+
+	static SvnLogParser newParser(String parserType, SvnLogEntryProcessor entryProcessor, SvnLogSymbols symbols,
+			SvnLogEntryFilter filter) {
+		SvnLogParser parser = newParser(parserType, entryProcessor, symbols);
+		parser.setFilter(filter);
+		return parser;
+	}
+
+	/**
+	 * Create a parser feeding an aggregator, which only needs the lengths of the commit messages.
+	 */
+	static SvnLogParser newParser(String parserType, SvnLogEntryProcessor entryProcessor, SvnLogSymbols symbols,
+			SvnLogEntryFilter filter, SvnLogMetrics metrics) {
+		SvnLogParser parser = newParser(parserType, entryProcessor, symbols, filter);
+		parser.setMetrics(metrics);
+		parser.setIncludeMessages(false);
+		return parser;
+	}
+
+	static SvnLogParser newParser(String parserType, SvnLogEntryProcessor entryProcessor, SvnLogSymbols symbols) {
+		switch (parserType) {
+			case "event":
+				return new SvnLogParser(entryProcessor, symbols);
+			case "cursor":
+				return new SvnLogCursorParser(entryProcessor, symbols);
+			case "scan":
+				return new SvnLogScanner(entryProcessor, symbols);
+			default:
+				System.out.println("Unknown parser type " + parserType);
+				System.exit(1);
+				return null;
+		}
+	}
+
+	static ReportWriter newReportWriter(String format, SvnLogEntryAggregator aggregator, File reportFile,
+			int threads) {
+		switch (format) {
+			case "json":
+				return new JsonReportWriter(aggregator, reportFile);
+			case "csv":
+				return new CsvReportWriter(aggregator, reportFile);
+			default:
+				HtmlReportWriter reportWriter = new HtmlReportWriter(aggregator, reportFile);
+				reportWriter.setThreads(threads);
+				return reportWriter;
+		}
+	}
+
+	private static File withExtension(File file, String extension) {
+		String name = file.getName();
+		int idx = name.lastIndexOf('.');
+		return new File(file.getParentFile(), (idx > 0 ? name.substring(0, idx) : name) + "." + extension);
+	}
+
+	private static SvnLogEntryProcessor metered(SvnLogMetrics metrics, SvnLogEntryProcessor entryProcessor) {
+		return metrics == null ? entryProcessor : metrics.meter(entryProcessor);
+	}
+
+	private static void startStage(SvnLogMetrics metrics, SvnLogMetrics.Stage stage) {
+		if (metrics != null) {
+			metrics.startStage(stage);
+		}
+	}
+
+	private static SvnLogEntryProcessor writeTo(SvnLogCacheWriter cacheWriter, SvnLogEntryProcessor entryProcessor) {
+		// all log entries go to the cache, regardless of what the processor does with them
+		return logEntry -> {
+			cacheWriter.process(logEntry);
+			entryProcessor.process(logEntry);
+		};
+	}
+
+	private static SvnLogEntryProcessor filtered(SvnLogEntryFilter filter, SvnLogEntryProcessor entryProcessor) {
+		return logEntry -> {
+			if (filter.accepts(logEntry)) {
+				entryProcessor.process(logEntry);
+			}
+		};
+	}
+
+	private static LocalDate parseDay(String text) {
+		// either a date like 2017-06-07, or a period before today like P12M
+		return text.startsWith("P") ? LocalDate.now(ZoneOffset.UTC).minus(Period.parse(text)) : LocalDate.parse(text);
+	}
 
-		System.out.println("Writing HTML report to " + reportFile);
-		new HtmlReportWriter(aggregator, reportFile).writeReport();
+	private static long toTimestamp(LocalDate day) {
+		return Util.toTimestamp(day.atStartOfDay(ZoneOffset.UTC));
 	}
 
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Saves and loads the state of a {@link SvnLogEntryAggregator} to and from a snapshot file.
+ * <p>
+ * A snapshot records the statistics aggregated so far together with the highest processed revision, allowing later
+ * runs to only process newer log entries, e.g. the output of <code>svn log -r N:HEAD --xml</code>.
+ *
+ * @see SvnLogEntryAggregator#getLastRevision()
+ *
+ * @author Erwin Vervaet
+ */
+public final class SvnLogStatsSnapshot {
+
+	private static final String MAGIC = "svn-logstats-snapshot";
+	private static final int VERSION = 9;
+
+	private SvnLogStatsSnapshot() {
+	}
+
+	/**
+	 * Save the state of given aggregator to given snapshot file, replacing any existing snapshot.
+	 *
+	 * @param aggregator the aggregator to save
+	 * @param snapshotFile the snapshot file to write
+	 * @throws IOException when the snapshot cannot be written
+	 */
+	public static void save(SvnLogEntryAggregator aggregator, File snapshotFile) throws IOException {
+		// write to a temporary file first so a failure does not destroy the previous snapshot
+		File tmpFile = new File(snapshotFile.getPath() + ".tmp");
+		try (ObjectOutputStream out = new ObjectOutputStream(
+				new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile))))) {
+			out.writeUTF(MAGIC);
+			out.writeInt(VERSION);
+			out.writeObject(aggregator);
+		}
+		Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Load the aggregator state saved in given snapshot file.
+	 *
+	 * @param snapshotFile the snapshot file to read
+	 * @return the restored aggregator
+	 * @throws IOException when the snapshot cannot be read or was written by an incompatible version
+	 */
+	public static SvnLogEntryAggregator load(File snapshotFile) throws IOException {
+		try (ObjectInputStream in = new ObjectInputStream(
+				new GZIPInputStream(new BufferedInputStream(new FileInputStream(snapshotFile))))) {
+			if (!MAGIC.equals(in.readUTF()) || in.readInt() != VERSION) {
+				throw new IOException("File " + snapshotFile + " is not a compatible snapshot");
+			}
+			return (SvnLogEntryAggregator) in.readObject();
+		} catch (ClassNotFoundException | ClassCastException e) {
+			throw new IOException("File " + snapshotFile + " is not a compatible snapshot", e);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.Serializable;
+
+/**
+ * The {@link SymbolTable symbol tables} for the authors and file name extensions found in a Subversion log.
+ * <p>
+ * Parsers assign the ids of these symbols to the log entries they produce. When an {@link SvnLogEntryAggregator} uses
+ * the same symbols as the parser feeding it, it can work with those ids instead of hashing and comparing strings.
+ *
+ * @author Erwin Vervaet
+ */
+public class SvnLogSymbols implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Extension used for files without a file name extension.
+	 */
+	public static final String OTHER_EXTENSION = "other";
+
+	public final SymbolTable authors = new SymbolTable();
+	public final SymbolTable extensions = new SymbolTable();
+
+	/**
+	 * Returns the id of the file name extension of given path, like {@link Util#getFilenameExtension(String)}, or the
+	 * id of {@link #OTHER_EXTENSION} when the path does not have an extension.
+	 */
+	public int getExtensionId(CharSequence path) {
+		return getExtensionId(extensions, path);
+	}
+
+	static int getExtensionId(SymbolTable extensions, CharSequence path) {
+		int idx = lastIndexOf(path, '.');
+		if (idx == -1) {
+			return extensions.intern(OTHER_EXTENSION);
+		}
+		return extensions.intern(path, idx + 1, path.length());
+	}
+
+	private static int lastIndexOf(CharSequence text, char c) {
+		for (int i = text.length() - 1; i >= 0; i--) {
+			if (text.charAt(i) == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Maps strings to dense int ids, starting at 0, and back.
+ * <p>
+ * Known symbols can be looked up straight from a character buffer without creating a string. Lookups do not lock and
+ * can be done from several threads at the same time; only adding a new symbol is synchronized.
+ *
+ * @author Erwin Vervaet
+ */
+public class SymbolTable implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private static final class Symbol {
+
+		private final String text;
+		private final int hash;
+		private final int id;
+
+		private Symbol(String text, int hash, int id) {
+			this.text = text;
+			this.hash = hash;
+			this.id = id;
+		}
+	}
+
+	// open addressing hash table, replaced as a whole when it needs to grow
+	private transient volatile AtomicReferenceArray<Symbol> table;
+	private transient volatile AtomicReferenceArray<String> symbols;
+	private transient int size;
+
+	public SymbolTable() {
+		init(INITIAL_CAPACITY);
+	}
+
+	private void init(int capacity) {
+		table = new AtomicReferenceArray<>(capacity * 2);
+		symbols = new AtomicReferenceArray<>(capacity);
+		size = 0;
+	}
+
+	/**
+	 * Returns the id of given symbol, adding it to the table if needed.
+	 */
+	public int intern(CharSequence text) {
+		return intern(text, 0, text.length());
+	}
+
+	/**
+	 * Returns the id of the symbol formed by given range of characters, adding it to the table if needed. No objects
+	 * are created when the symbol is already known.
+	 *
+	 * @param text the characters
+	 * @param from the start of the symbol, inclusive
+	 * @param to the end of the symbol, exclusive
+	 * @return the id of the symbol
+	 */
+	public int intern(CharSequence text, int from, int to) {
+		int hash = hash(text, from, to);
+		int id = find(text, from, to, hash);
+		if (id != -1) {
+			return id;
+		}
+		synchronized (this) {
+			id = find(text, from, to, hash);
+			if (id == -1) {
+				id = add(text.subSequence(from, to).toString(), hash);
+			}
+			return id;
+		}
+	}
+
+	/**
+	 * Returns the id of the symbol formed by given range of characters, or -1 when it is not in the table.
+	 *
+	 * @param text the characters
+	 * @param from the start of the symbol, inclusive
+	 * @param to the end of the symbol, exclusive
+	 * @return the id of the symbol, or -1
+	 */
+	public int find(CharSequence text, int from, int to) {
+		return find(text, from, to, hash(text, from, to));
+	}
+
+	/**
+	 * Returns the symbol with given id.
+	 *
+	 * @throws IndexOutOfBoundsException when there is no such symbol
+	 */
+	public String get(int id) {
+		AtomicReferenceArray<String> symbols = this.symbols;
+		String symbol = id >= 0 && id < symbols.length() ? symbols.get(id) : null;
+		if (symbol == null) {
+			throw new IndexOutOfBoundsException("Unknown symbol " + id);
+		}
+		return symbol;
+	}
+
+	/**
+	 * Returns the number of symbols in this table, which is also the next id that will be handed out.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	private int find(CharSequence text, int from, int to, int hash) {
+		AtomicReferenceArray<Symbol> table = this.table;
+		int mask = table.length() - 1;
+		for (int i = hash & mask; ; i = (i + 1) & mask) {
+			Symbol symbol = table.get(i);
+			if (symbol == null) {
+				return -1;
+			}
+			if (symbol.hash == hash && matches(symbol.text, text, from, to)) {
+				return symbol.id;
+			}
+		}
+	}
+
+	private int add(String text, int hash) {
+		int id = size;
+		if (id == symbols.length()) {
+			AtomicReferenceArray<String> grown = new AtomicReferenceArray<>(id * 2);
+			AtomicReferenceArray<Symbol> rehashed = new AtomicReferenceArray<>(id * 4);
+			for (int i = 0; i < id; i++) {
+				grown.set(i, symbols.get(i));
+				insert(rehashed, new Symbol(symbols.get(i), spread(symbols.get(i).hashCode()), i));
+			}
+			symbols = grown;
+			table = rehashed;
+		}
+		// publish the symbol before it can be found in the table
+		symbols.set(id, text);
+		size = id + 1;
+		insert(table, new Symbol(text, hash, id));
+		return id;
+	}
+
+	private static void insert(AtomicReferenceArray<Symbol> table, Symbol symbol) {
+		int mask = table.length() - 1;
+		int i = symbol.hash & mask;
+		while (table.get(i) != null) {
+			i = (i + 1) & mask;
+		}
+		table.set(i, symbol);
+	}
+
+	private static int hash(CharSequence text, int from, int to) {
+		// same as String.hashCode() so hashes of existing symbols can be recalculated cheaply
+		int hash = 0;
+		for (int i = from; i < to; i++) {
+			hash = 31 * hash + text.charAt(i);
+		}
+		return spread(hash);
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean matches(String symbol, CharSequence text, int from, int to) {
+		if (symbol.length() != to - from) {
+			return false;
+		}
+		for (int i = 0; i < symbol.length(); i++) {
+			if (symbol.charAt(i) != text.charAt(from + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(size);
+		for (int i = 0; i < size; i++) {
+			out.writeUTF(symbols.get(i));
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int count = in.readInt();
+		init(Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, count)) * 2));
+		for (int i = 0; i < count; i++) {
+			intern(in.readUTF());
+		}
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Objects;
+
+/**
+ * Number of commits, changed paths and commit message length per time bucket (day, week or month).
+ * <p>
+ * Buckets are numbered relative to the epoch (1970-01-01, UTC) and the counts are kept in primitive arrays covering
+ * the range of buckets seen so far, so memory use only depends on the time span of the history: about 220KB for 25
+ * years of daily buckets and about 7KB for 25 years of monthly buckets. Time series can be
+ * {@link #merge(TimeSeries) merged}, and daily series can be {@link #resample(Resolution) resampled} to weeks or
+ * months.
+ * <p>
+ * Updating and merging time series is thread-safe.
+ *
+ * @author Erwin Vervaet
+ */
+public class TimeSeries implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long MICROS_PER_DAY = 86400L * 1000000L;
+
+	/**
+	 * The size of a time bucket.
+	 */
+	public static enum Resolution {
+		DAY, WEEK, MONTH;
+
+		/**
+		 * Returns the bucket containing given day, in days since the epoch.
+		 */
+		public int toBucket(long epochDay) {
+			switch (this) {
+				case DAY:
+					return (int) epochDay;
+				case WEEK:
+					return (int) Math.floorDiv(epochDay + 3, 7); // weeks start on monday, 1970-01-01 is a thursday
+				default:
+					return toEpochMonth(epochDay);
+			}
+		}
+
+		/**
+		 * Returns the first day of given bucket.
+		 */
+		public LocalDate toDate(int bucket) {
+			switch (this) {
+				case DAY:
+					return LocalDate.ofEpochDay(bucket);
+				case WEEK:
+					return LocalDate.ofEpochDay(bucket * 7L - 3);
+				default:
+					return LocalDate.of(1970 + Math.floorDiv(bucket, 12), Math.floorMod(bucket, 12) + 1, 1);
+			}
+		}
+
+		/**
+		 * Returns a label for given bucket, e.g. <i>2017-06-07</i> for days and weeks or <i>2017-06</i> for months.
+		 */
+		public String getLabel(int bucket) {
+			return this == MONTH ? YearMonth.from(toDate(bucket)).toString() : toDate(bucket).toString();
+		}
+	}
+
+	private final Resolution resolution;
+	private int offset; // the bucket stored at index 0
+	private int first = Integer.MAX_VALUE; // first bucket in use
+	private int last = Integer.MIN_VALUE; // last bucket in use
+	private long[] commits = new long[0];
+	private long[] paths = new long[0];
+	private long[] msgLength = new long[0];
+
+	public TimeSeries(Resolution resolution) {
+		this.resolution = Objects.requireNonNull(resolution);
+	}
+
+	public Resolution getResolution() {
+		return resolution;
+	}
+
+	/**
+	 * Count a commit. Commits without a timestamp are ignored.
+	 *
+	 * @param timestamp the commit timestamp in microseconds since the epoch
+	 * @param paths the number of paths changed by the commit
+	 * @param msgLength the length of the commit message
+	 */
+	public synchronized void add(long timestamp, long paths, long msgLength) {
+		if (timestamp == Util.NO_TIMESTAMP) {
+			return;
+		}
+		add(resolution.toBucket(Math.floorDiv(timestamp, MICROS_PER_DAY)), 1, paths, msgLength);
+	}
+
+	private void add(int bucket, long commits, long paths, long msgLength) {
+		ensureCapacity(bucket);
+		int idx = bucket - offset;
+		this.commits[idx] += commits;
+		this.paths[idx] += paths;
+		this.msgLength[idx] += msgLength;
+	}
+
+	/**
+	 * Merge the counts of given time series into this time series. Daily time series can be merged into time series
+	 * of any resolution. The other time series is not modified.
+	 *
+	 * @param other the time series to merge
+	 */
+	public void merge(TimeSeries other) {
+		TimeSeries source = other.resolution == resolution ? other.copy() : other.resample(resolution);
+		synchronized (this) {
+			for (int bucket = source.first; bucket <= source.last; bucket++) {
+				int idx = bucket - source.offset;
+				if (source.commits[idx] != 0 || source.paths[idx] != 0 || source.msgLength[idx] != 0) {
+					add(bucket, source.commits[idx], source.paths[idx], source.msgLength[idx]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a copy of this daily time series using given, coarser, resolution.
+	 *
+	 * @throws IllegalArgumentException when this time series cannot be resampled to given resolution
+	 */
+	public synchronized TimeSeries resample(Resolution resolution) {
+		if (this.resolution != resolution && this.resolution != Resolution.DAY) {
+			throw new IllegalArgumentException("Cannot resample " + this.resolution + " time series to " + resolution);
+		}
+		TimeSeries resampled = new TimeSeries(resolution);
+		for (int bucket = first; bucket <= last; bucket++) {
+			int idx = bucket - offset;
+			if (commits[idx] != 0 || paths[idx] != 0 || msgLength[idx] != 0) {
+				resampled.add(this.resolution == resolution ? bucket : resolution.toBucket(bucket),
+						commits[idx], paths[idx], msgLength[idx]);
+			}
+		}
+		return resampled;
+	}
+
+	private synchronized TimeSeries copy() {
+		return resample(resolution);
+	}
+
+	public synchronized boolean isEmpty() {
+		return first > last;
+	}
+
+	/**
+	 * Returns the first bucket with counts, only meaningful if the time series is not empty.
+	 */
+	public synchronized int getFirstBucket() {
+		return first;
+	}
+
+	/**
+	 * Returns the last bucket with counts, only meaningful if the time series is not empty.
+	 */
+	public synchronized int getLastBucket() {
+		return last;
+	}
+
+	public synchronized long getCommits(int bucket) {
+		return get(commits, bucket);
+	}
+
+	public synchronized long getPaths(int bucket) {
+		return get(paths, bucket);
+	}
+
+	public synchronized long getMsgLength(int bucket) {
+		return get(msgLength, bucket);
+	}
+
+	private long get(long[] counts, int bucket) {
+		return bucket < first || bucket > last ? 0 : counts[bucket - offset];
+	}
+
+	private void ensureCapacity(int bucket) {
+		if (bucket >= offset && bucket < offset + commits.length) {
+			first = Math.min(first, bucket);
+			last = Math.max(last, bucket);
+			return;
+		}
+
+		int newFirst = Math.min(first, bucket);
+		int newLast = Math.max(last, bucket);
+		int span = newLast - newFirst + 1;
+		int capacity = Math.max(span, Math.max(16, commits.length * 2));
+		// leave the free space on the side we're growing towards: log entries typically come in time order
+		int newOffset = isEmpty() || bucket > last ? newFirst : newLast - capacity + 1;
+
+		commits = grow(commits, capacity, newOffset);
+		paths = grow(paths, capacity, newOffset);
+		msgLength = grow(msgLength, capacity, newOffset);
+		offset = newOffset;
+		first = newFirst;
+		last = newLast;
+	}
+
+	private long[] grow(long[] counts, int capacity, int newOffset) {
+		long[] grown = new long[capacity];
+		if (!isEmpty()) {
+			System.arraycopy(counts, first - offset, grown, first - newOffset, last - first + 1);
+		}
+		return grown;
+	}
+
+	private static int toEpochMonth(long epochDay) {
+		// see http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+		long z = epochDay + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long mp = (5 * dayOfYear + 2) / 153;
+		long month = mp < 10 ? mp + 3 : mp - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		return (int) ((year - 1970) * 12 + month - 1);
+	}
+}
@@ -16,8 +16,17 @@
 package com.ervacon.svn.logstats;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.stream.Collectors;
 
 /**
@@ -27,9 +36,23 @@ import java.util.stream.Collectors;
  */
 public final class Util {
 
+	/**
+	 * Marker value for a missing timestamp.
+	 */
+	public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
 	private Util() {
 	}
 
+	/**
+	 * Open a large buffered writer writing UTF-8 to given file, replacing any existing file.
+	 */
+	public static Writer openUtf8Writer(File file) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF_8), WRITE_BUFFER_SIZE);
+	}
+
 	public static String readClassPathResource(String name) throws IOException {
 		try (BufferedReader bin = new BufferedReader(new InputStreamReader(Util.class.getResourceAsStream(name)))) {
 			return bin.lines().collect(Collectors.joining("\n"));
@@ -44,21 +67,124 @@ public final class Util {
 		return path.substring(idx + 1);
 	}
 
+	/**
+	 * Parse a timestamp in the fixed <code>YYYY-MM-DDTHH:MM:SS.ffffffZ</code> format used by Subversion, without
+	 * creating any intermediate objects. The fraction of a second is optional and can have up to 6 digits. Leading and
+	 * trailing whitespace is ignored.
+	 *
+	 * @param text the text to parse
+	 * @return the number of microseconds since the epoch, or {@link #NO_TIMESTAMP} when the text does not use the
+	 * expected format
+	 */
+	public static long parseSvnTimestamp(CharSequence text) {
+		int from = 0;
+		int to = text.length();
+		while (from < to && text.charAt(from) <= ' ') {
+			from++;
+		}
+		while (from < to && text.charAt(to - 1) <= ' ') {
+			to--;
+		}
+		int fractionDigits = to - from - 21;
+		if (to - from < 20 || fractionDigits == 0 || fractionDigits > 6 || text.charAt(to - 1) != 'Z'
+				|| text.charAt(from + 4) != '-' || text.charAt(from + 7) != '-' || text.charAt(from + 10) != 'T'
+				|| text.charAt(from + 13) != ':' || text.charAt(from + 16) != ':'
+				|| (fractionDigits > 0 && text.charAt(from + 19) != '.')) {
+			return NO_TIMESTAMP;
+		}
+		int year = digits(text, from, 4);
+		int month = digits(text, from + 5, 2);
+		int day = digits(text, from + 8, 2);
+		int hour = digits(text, from + 11, 2);
+		int minute = digits(text, from + 14, 2);
+		int second = digits(text, from + 17, 2);
+		long micros = 0;
+		if (fractionDigits > 0) {
+			micros = digits(text, from + 20, fractionDigits);
+			for (int i = fractionDigits; i < 6; i++) {
+				micros *= 10;
+			}
+		}
+		if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+				|| hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || micros < 0) {
+			return NO_TIMESTAMP;
+		}
+		long seconds = toEpochDay(year, month, day) * 86400L + hour * 3600L + minute * 60L + second;
+		return seconds * 1000000L + micros;
+	}
+
+	/**
+	 * Returns the value of given number of decimal digits, or -1 when one of the characters is not a digit.
+	 */
+	private static int digits(CharSequence text, int from, int count) {
+		int value = 0;
+		for (int i = from; i < from + count; i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	private static int lengthOfMonth(int year, int month) {
+		switch (month) {
+			case 2:
+				return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+			default:
+				return 31;
+		}
+	}
+
+	/**
+	 * Days since 1970-01-01 of given date in the proleptic Gregorian calendar.
+	 */
+	static long toEpochDay(int year, int month, int day) {
+		// see http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+		int y = month <= 2 ? year - 1 : year;
+		int era = Math.floorDiv(y, 400);
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+
+	/**
+	 * Convert a number of microseconds since the epoch to a UTC date time.
+	 */
+	public static ZonedDateTime toZonedDateTime(long timestamp) {
+		return ZonedDateTime.ofInstant(Instant.ofEpochSecond(Math.floorDiv(timestamp, 1000000L),
+				Math.floorMod(timestamp, 1000000L) * 1000L), ZoneOffset.UTC);
+	}
+
+	/**
+	 * Convert given date time to a number of microseconds since the epoch.
+	 */
+	public static long toTimestamp(ZonedDateTime date) {
+		return date.toEpochSecond() * 1000000L + date.getNano() / 1000;
+	}
+
 	/**
 	 * Simple key-value pair.
 	 */
 	public static class KeyValuePair {
 
 		public String key;
-		public int value;
+		public long value;
 
-		public KeyValuePair(String key, int value) {
+		public KeyValuePair(String key, long value) {
 			this.key = key;
 			this.value = value;
 		}
 
 		public static int orderByValueDesc(KeyValuePair kv1, KeyValuePair kv2) {
-			return kv2.value - kv1.value;
+			return Long.compare(kv2.value, kv1.value);
 		}
 	}
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import com.ervacon.svn.logstats.CoChangeAnalyzer.CoChange;
+import java.time.ZonedDateTime;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class CoChangeAnalyzerTest {
+
+	private final ZonedDateTime now = ZonedDateTime.now();
+
+	@Test
+	public void testProcess() {
+		CoChangeAnalyzer analyzer = new CoChangeAnalyzer(10, 2, 1024, 10);
+		for (int i = 0; i < 3; i++) {
+			analyzer.process(SvnAuthorStatsTest.newLogEntry("john", now, "Test", "M/b.java", "M/a.java", "M/c" + i));
+		}
+		analyzer.process(SvnAuthorStatsTest.newLogEntry("john", now, "Test", "M/a.java"));
+
+		List<CoChange> top = analyzer.getTopCoChanges(10);
+		assertEquals(1, top.size());
+		assertEquals("M/a.java", top.get(0).path1);
+		assertEquals("M/b.java", top.get(0).path2);
+		assertEquals(3, top.get(0).count);
+		assertEquals(4, analyzer.getCommits());
+		assertEquals(0, analyzer.getSkippedCommits());
+	}
+
+	@Test
+	public void testProcess_maxPathsPerCommit() {
+		CoChangeAnalyzer analyzer = new CoChangeAnalyzer(3, 1, 1024, 10);
+		analyzer.process(SvnAuthorStatsTest.newLogEntry("john", now, "Test", "A/a", "A/b", "A/c", "A/d"));
+		analyzer.process(SvnAuthorStatsTest.newLogEntry("john", now, "Test", "M/a", "M/b", "M/c"));
+		assertEquals(1, analyzer.getSkippedCommits());
+		assertEquals(3, analyzer.getTopCoChanges(10).size());
+		assertEquals(1, analyzer.getTopCoChanges(10).get(0).count);
+	}
+
+	@Test
+	public void testProcess_pruning() {
+		CoChangeAnalyzer analyzer = new CoChangeAnalyzer(10, 1, 1 << 12, 20);
+		for (int i = 0; i < 5000; i++) {
+			// a few coupled pairs hidden between many pairs that are only changed together once
+			analyzer.process(SvnAuthorStatsTest.newLogEntry("john", now, "Test",
+					"M/hot" + (i % 5) + ".java", "M/hot" + (i % 5) + "Test.java", "M/cold" + i + ".java"));
+		}
+		List<CoChange> top = analyzer.getTopCoChanges(5);
+		assertEquals(5, top.size());
+		for (CoChange coChange : top) {
+			assertTrue(coChange.path1.startsWith("M/hot"));
+			assertTrue(coChange.path2.startsWith("M/hot"));
+			assertTrue(coChange.count >= 1000);
+		}
+	}
+
+	@Test
+	public void testMerge() {
+		CoChangeAnalyzer all = new CoChangeAnalyzer(10, 2, 1024, 10);
+		CoChangeAnalyzer a = new CoChangeAnalyzer(10, 2, 1024, 10);
+		CoChangeAnalyzer b = new CoChangeAnalyzer(10, 2, 512, 10);
+		for (int i = 0; i < 10; i++) {
+			SvnLogEntry logEntry = SvnAuthorStatsTest.newLogEntry("john", now, "Test", "M/a", "M/b" + (i % 2));
+			all.process(logEntry);
+			(i < 3 ? a : b).process(logEntry);
+		}
+		a.merge(b);
+		List<CoChange> expected = all.getTopCoChanges(10);
+		List<CoChange> actual = a.getTopCoChanges(10);
+		assertEquals(2, actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).path1, actual.get(i).path1);
+			assertEquals(expected.get(i).path2, actual.get(i).path2);
+			assertEquals(expected.get(i).count, actual.get(i).count);
+		}
+		assertEquals(10, a.getCommits());
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static com.ervacon.svn.logstats.SvnAuthorStatsTest.newLogEntry;
+import java.io.File;
+import java.io.StringWriter;
+import java.time.ZonedDateTime;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class CsvReportWriterTest {
+
+	@Test
+	public void testWriteReport() throws Exception {
+		ZonedDateTime date = ZonedDateTime.parse("2017-06-07T12:04:04.132787Z");
+		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator();
+		aggregator.process(newLogEntry("doe, \"john\"", date, "Test", "Afile1.c", "Mfile2.h"));
+		aggregator.process(newLogEntry("jane", date.minusDays(1), null, "Mfile1.c"));
+
+		StringWriter out = new StringWriter();
+		new CsvReportWriter(aggregator, new File("report.csv")).writeReport(out);
+		String[] rows = out.toString().split("\r\n");
+		assertEquals(3, rows.length);
+		assertTrue(rows[0].startsWith("author,commits,firstCommit,lastCommit,added,deleted,modified,replaced,"));
+		assertTrue(rows[1].startsWith("\"doe, \"\"john\"\"\",1,2017-06-07T12:04:04.132787Z,"
+				+ "2017-06-07T12:04:04.132787Z,1,0,1,0,0,2,"));
+		assertTrue(rows[2].startsWith("jane,1,2017-06-06T12:04:04.132787Z,2017-06-06T12:04:04.132787Z,0,0,1,0,1,1,0,"));
+		assertEquals(rows[0].split(",").length, rows[2].split(",").length);
+	}
+}
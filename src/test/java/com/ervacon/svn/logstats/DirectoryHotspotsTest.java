@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import com.ervacon.svn.logstats.SpaceSaving.Counter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class DirectoryHotspotsTest {
+
+	@Test
+	public void testAdd() {
+		DirectoryHotspots hotspots = new DirectoryHotspots(2, 100, 100);
+		hotspots.add(newLogEntry("M/trunk/src/main/Foo.java", "M/trunk/src/main/Bar.java"));
+		hotspots.add(newLogEntry("M/trunk/pom.xml", "M/trunk/src/main/Foo.java"));
+
+		List<Counter<String>> directories = hotspots.getTopDirectories(10);
+		assertEquals(2, directories.size());
+		assertEquals("/trunk", directories.get(0).key);
+		assertEquals(4, directories.get(0).count);
+		assertEquals("/trunk/src", directories.get(1).key);
+		assertEquals(3, directories.get(1).count);
+		assertTrue(hotspots.isExact());
+
+		List<Counter<String>> files = hotspots.getTopFiles(1);
+		assertEquals("/trunk/src/main/Foo.java", files.get(0).key);
+		assertEquals(2, files.get(0).count);
+	}
+
+	@Test
+	public void testAdd_overBudget() {
+		DirectoryHotspots hotspots = new DirectoryHotspots(3, 10, 5);
+		for (int i = 0; i < 1000; i++) {
+			hotspots.add(newLogEntry("M/trunk/module" + (i % 100) + "/src/File.java",
+					"M/trunk/hot/src/File" + i + ".java"));
+		}
+		assertFalse(hotspots.isExact());
+		List<Counter<String>> directories = hotspots.getTopDirectories(3);
+		assertEquals("/trunk", directories.get(0).key);
+		assertEquals(2000, directories.get(0).count);
+		assertEquals(1000, directories.get(1).count);
+		assertEquals(1000, directories.get(2).count);
+		assertTrue(directories.get(1).key.startsWith("/trunk/hot"));
+		assertTrue(directories.get(2).key.startsWith("/trunk/hot"));
+	}
+
+	@Test
+	public void testMerge() {
+		DirectoryHotspots a = new DirectoryHotspots();
+		DirectoryHotspots b = new DirectoryHotspots();
+		a.add(newLogEntry("M/trunk/src/Foo.java"));
+		b.add(newLogEntry("M/trunk/src/Foo.java", "D/trunk/doc"));
+		a.merge(b);
+		assertEquals(3, a.getTopDirectories(1).get(0).count);
+		assertEquals(2, a.getTopFiles(1).get(0).count);
+		assertEquals(2, b.getTopDirectories(1).get(0).count);
+	}
+
+	@Test
+	public void testMerge_approximate() {
+		DirectoryHotspots exact = new DirectoryHotspots(3, 1000, 5);
+		exact.add(newLogEntry("M/trunk/hot/Foo.java"));
+		DirectoryHotspots approximate = new DirectoryHotspots(3, 2, 5);
+		for (int i = 0; i < 100; i++) {
+			approximate.add(newLogEntry("M/trunk/module" + (i % 20) + "/File.java", "M/trunk/hot/File" + i + ".java"));
+		}
+		assertTrue(exact.isExact());
+		assertFalse(approximate.isExact());
+
+		exact.merge(approximate);
+		assertFalse(exact.isExact());
+		Map<String, Counter<String>> merged = new HashMap<>();
+		for (Counter<String> directory : exact.getTopDirectories(1000)) {
+			merged.put(directory.key, directory);
+		}
+		int estimated = 0;
+		for (Counter<String> directory : approximate.getTopDirectories(1000)) {
+			Counter<String> mergedDirectory = merged.get(directory.key);
+			boolean inExact = directory.key.equals("/trunk") || directory.key.equals("/trunk/hot");
+			assertEquals(inExact ? directory.count + 1 : directory.count, mergedDirectory.count);
+			assertEquals(directory.error, mergedDirectory.error);
+			if (directory.error > 0) {
+				estimated++;
+			}
+		}
+		assertTrue(estimated > 0);
+		assertEquals(201, merged.get("/trunk").count);
+
+		// merging into empty hotspots with room for all directories still yields estimates
+		DirectoryHotspots empty = new DirectoryHotspots(3, 1000, 5);
+		empty.merge(approximate);
+		assertFalse(empty.isExact());
+		empty.merge(new DirectoryHotspots());
+		assertFalse(empty.isExact());
+	}
+
+	private static SvnLogEntry newLogEntry(String... paths) {
+		SvnLogEntry logEntry = new SvnLogEntry();
+		for (String path : paths) {
+			SvnLogEntryPath logEntryPath = new SvnLogEntryPath();
+			logEntryPath.action = SvnLogEntryPath.PathAction.M;
+			logEntryPath.kind = path.startsWith("D") ? SvnLogEntryPath.PathKind.DIR : SvnLogEntryPath.PathKind.FILE;
+			logEntryPath.path = path.substring(1);
+			logEntry.paths.add(logEntryPath);
+		}
+		return logEntry;
+	}
+}
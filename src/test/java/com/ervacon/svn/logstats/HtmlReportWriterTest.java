@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static com.ervacon.svn.logstats.SvnAuthorStatsTest.newLogEntry;
+import java.io.File;
+import java.io.StringWriter;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.nio.file.Files;
+import java.time.ZonedDateTime;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HtmlReportWriterTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testWriteReport() throws Exception {
+		ZonedDateTime now = ZonedDateTime.now();
+		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator();
+		aggregator.process(newLogEntry("josé", now, "Test", "Afile1.c", "Mfile2.h"));
+		aggregator.process(newLogEntry("jane", now.minusDays(1), "Test", "Mfile1.c"));
+
+		File reportFile = tmp.newFile();
+		new HtmlReportWriter(aggregator, reportFile).writeReport();
+		String report = new String(Files.readAllBytes(reportFile.toPath()), UTF_8);
+		assertTrue(report.contains("<meta charset='utf-8'>"));
+		assertTrue(report.contains("<h3>josé</h3>"));
+		assertTrue(report.indexOf("<h3>jane</h3>") < report.indexOf("<h3>josé</h3>"));
+		assertTrue(report.endsWith("</html>" + System.lineSeparator()));
+
+		StringWriter out = new StringWriter();
+		new HtmlReportWriter(aggregator, reportFile).writeReport(out);
+		assertEquals(report, out.toString());
+	}
+
+	@Test
+	public void testWriteReport_threads() throws Exception {
+		ZonedDateTime now = ZonedDateTime.now();
+		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator();
+		for (int i = 0; i < 50; i++) {
+			aggregator.process(newLogEntry("author" + i, now.minusDays(i), "Test", "Afile" + i + ".c", "Mfile.h"));
+		}
+
+		HtmlReportWriter reportWriter = new HtmlReportWriter(aggregator, tmp.newFile());
+		StringWriter expected = new StringWriter();
+		reportWriter.writeReport(expected);
+
+		reportWriter.setThreads(3);
+		StringWriter actual = new StringWriter();
+		reportWriter.writeReport(actual);
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	@Test
+	public void testWriteReport_escaping() throws Exception {
+		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator();
+		aggregator.setDirectoryHotspots(new DirectoryHotspots());
+		SvnLogEntry logEntry = newLogEntry("o'neil", ZonedDateTime.now(), "Test", "M");
+		logEntry.paths.get(0).path = "/trunk/R&D/<new>.txt";
+		aggregator.process(logEntry);
+
+		StringWriter out = new StringWriter();
+		new HtmlReportWriter(aggregator, tmp.newFile()).writeReport(out);
+		String report = out.toString();
+		assertTrue(report.contains("'>/trunk/R&amp;D/&lt;new&gt;.txt (1)</div>"));
+		assertTrue(report.contains("'>/trunk/R&amp;D (1)</div>"));
+		assertTrue(report.contains("<h3>o&#39;neil</h3>"));
+		assertFalse(report.contains("R&D"));
+		assertFalse(report.contains("<new>"));
+		assertFalse(report.contains("o'neil"));
+	}
+
+	@Test
+	public void testEscape() {
+		assertEquals("plain", HtmlReportWriter.escape("plain"));
+		assertEquals("a &amp; b &lt;c&gt; &quot;d&quot; &#39;e&#39;", HtmlReportWriter.escape("a & b <c> \"d\" 'e'"));
+	}
+
+	@Test
+	public void testWriteReport_escapingCoChanges() throws Exception {
+		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator();
+		aggregator.setCoChanges(new CoChangeAnalyzer());
+		for (int i = 0; i < CoChangeAnalyzer.DEFAULT_MIN_SUPPORT; i++) {
+			SvnLogEntry logEntry = newLogEntry("john", ZonedDateTime.now(), "Test", "M", "M");
+			logEntry.paths.get(0).path = "/trunk/R&D/a.c";
+			logEntry.paths.get(1).path = "/trunk/R&D/a.h";
+			aggregator.process(logEntry);
+		}
+
+		StringWriter out = new StringWriter();
+		new HtmlReportWriter(aggregator, tmp.newFile()).writeReport(out);
+		String report = out.toString();
+		assertTrue(report.contains("Files most often changed together"));
+		assertTrue(report.contains("/trunk/R&amp;D/a.c + /trunk/R&amp;D/a.h (3)")
+				|| report.contains("/trunk/R&amp;D/a.h + /trunk/R&amp;D/a.c (3)"));
+		assertFalse(report.contains("R&D"));
+	}
+}
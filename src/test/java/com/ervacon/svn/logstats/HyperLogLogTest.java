@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.time.ZonedDateTime;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class HyperLogLogTest {
+
+	@Test
+	public void testEstimate_small() {
+		HyperLogLog hll = new HyperLogLog();
+		assertEquals(0, hll.estimate());
+		for (int i = 0; i < 100; i++) {
+			hll.add(HyperLogLog.hash("/trunk/File" + i + ".java"));
+			hll.add(HyperLogLog.hash("/trunk/File" + i + ".java"));
+		}
+		assertEquals(100, hll.estimate(), 2);
+	}
+
+	@Test
+	public void testEstimate_large() {
+		for (int precision : new int[] { 10, 12, 14 }) {
+			HyperLogLog hll = new HyperLogLog(precision);
+			for (int i = 0; i < 1000000; i++) {
+				hll.add(HyperLogLog.hash("/trunk/src/main/java/File" + i + ".java"));
+			}
+			double error = 1.04 / Math.sqrt(1 << precision);
+			assertEquals(1000000, hll.estimate(), 1000000 * 4 * error);
+		}
+	}
+
+	@Test
+	public void testMerge() {
+		HyperLogLog all = new HyperLogLog();
+		HyperLogLog a = new HyperLogLog();
+		HyperLogLog b = new HyperLogLog();
+		for (int i = 0; i < 50000; i++) {
+			long hash = HyperLogLog.hash("path" + i);
+			all.add(hash);
+			(i % 3 == 0 ? a : b).add(hash);
+		}
+		a.merge(b);
+		assertEquals(all.estimate(), a.estimate());
+	}
+
+	@Test
+	public void testMerge_differentPrecision() {
+		HyperLogLog low = new HyperLogLog(10);
+		HyperLogLog high = new HyperLogLog(14);
+		HyperLogLog expected = new HyperLogLog(10);
+		for (int i = 0; i < 50000; i++) {
+			long hash = HyperLogLog.hash("path" + i);
+			expected.add(hash);
+			(i % 2 == 0 ? low : high).add(hash);
+		}
+		high.merge(low);
+		assertEquals(10, high.getPrecision());
+		assertEquals(expected.estimate(), high.estimate());
+	}
+
+	@Test
+	public void testDistinctTimeSeries() {
+		DistinctTimeSeries series = new DistinctTimeSeries(TimeSeries.Resolution.MONTH, 10);
+		ZonedDateTime date = ZonedDateTime.parse("2017-06-07T10:00:00Z");
+		series.add(SvnAuthorStatsTest.newLogEntry("john", date, "Test", "M/trunk/a", "M/trunk/b"));
+		series.add(SvnAuthorStatsTest.newLogEntry("jane", date, "Test", "M/trunk/a"));
+		series.add(SvnAuthorStatsTest.newLogEntry("jane", date.plusMonths(1), "Test", "M/trunk/c"));
+		int bucket = TimeSeries.Resolution.MONTH.toBucket(date.toLocalDate().toEpochDay());
+		assertEquals(2, series.getDistinctPaths(bucket));
+		assertEquals(2, series.getDistinctAuthors(bucket));
+		assertEquals(1, series.getDistinctPaths(bucket + 1));
+		assertEquals(0, series.getDistinctPaths(bucket + 2));
+
+		DistinctTimeSeries other = new DistinctTimeSeries(TimeSeries.Resolution.MONTH, 10);
+		other.add(SvnAuthorStatsTest.newLogEntry("mary", date, "Test", "M/trunk/a", "M/trunk/d"));
+		series.merge(other);
+		assertEquals(3, series.getDistinctPaths(bucket));
+		assertEquals(3, series.getDistinctAuthors(bucket));
+		assertEquals(0, other.getDistinctAuthors(bucket + 1));
+	}
+}
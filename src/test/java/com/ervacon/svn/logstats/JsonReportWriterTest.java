@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static com.ervacon.svn.logstats.SvnAuthorStatsTest.newLogEntry;
+import java.io.File;
+import java.io.StringWriter;
+import java.time.ZonedDateTime;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class JsonReportWriterTest {
+
+	@Test
+	public void testWriteReport() throws Exception {
+		ZonedDateTime date = ZonedDateTime.parse("2017-06-07T12:04:04.132787Z");
+		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator();
+		aggregator.setDirectoryHotspots(new DirectoryHotspots());
+		aggregator.setDistinctTimeline(new DistinctTimeSeries(TimeSeries.Resolution.MONTH, HyperLogLog.DEFAULT_PRECISION));
+		aggregator.setCoChanges(new CoChangeAnalyzer());
+		aggregator.process(newLogEntry("john \"j\" doe", date, "Test", "Afile1.c", "Mfile2.h"));
+		aggregator.process(newLogEntry("jane", date.minusDays(1), null, "Mfile1.c"));
+
+		StringWriter out = new StringWriter();
+		new JsonReportWriter(aggregator, new File("report.json")).writeReport(out);
+		String report = out.toString();
+		assertTrue(report.startsWith("{\"commits\":2,"));
+		assertTrue(report.endsWith("]}"));
+		assertTrue(report.contains("\"months\":[{\"month\":\"2017-06\",\"commits\":2,\"paths\":3,"
+				+ "\"distinctPaths\":3,\"activeAuthors\":2}]"));
+		assertTrue(report.contains("\"directories\":"));
+		assertTrue(report.contains("\"coChanges\":[]"));
+		assertTrue(report.contains("\"authors\":[{\"author\":\"jane\",\"commits\":1,"
+				+ "\"firstCommit\":\"2017-06-06T12:04:04.132787Z\""));
+		assertTrue(report.contains("{\"author\":\"john \\\"j\\\" doe\",\"commits\":1,"));
+		assertTrue(report.contains("\"added\":1,\"deleted\":0,\"modified\":1,\"replaced\":0,\"emptyMessages\":0,"));
+		assertTrue(report.contains("\"fileTypes\":{\"c\":2,\"h\":1}"));
+	}
+
+	@Test
+	public void testWriteReport_analysesNotTracked() throws Exception {
+		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator();
+		aggregator.process(newLogEntry("john", ZonedDateTime.parse("2017-06-07T12:04:04Z"), "Test", "Afile1.c"));
+
+		StringWriter out = new StringWriter();
+		new JsonReportWriter(aggregator, new File("report.json")).writeReport(out);
+		String report = out.toString();
+		assertTrue(report.contains("\"months\":[{\"month\":\"2017-06\",\"commits\":1,\"paths\":1}]"));
+		assertFalse(report.contains("\"directories\":"));
+		assertFalse(report.contains("\"files\":"));
+		assertFalse(report.contains("\"coChanges\":"));
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.StringWriter;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class JsonWriterTest {
+
+	@Test
+	public void testNesting() throws Exception {
+		StringWriter out = new StringWriter();
+		JsonWriter json = new JsonWriter(out);
+		json.beginObject();
+		json.name("a").value(1);
+		json.name("b").beginArray().value(true).value((String) null).beginObject().endObject().endArray();
+		json.name("c").beginObject().name("d").beginArray().endArray().endObject();
+		json.endObject();
+		assertEquals("{\"a\":1,\"b\":[true,null,{}],\"c\":{\"d\":[]}}", out.toString());
+	}
+
+	@Test
+	public void testEscaping() throws Exception {
+		StringWriter out = new StringWriter();
+		new JsonWriter(out).value("a\"b\\c\nd\u0001é");
+		assertEquals("\"a\\\"b\\\\c\\nd\\u0001é\"", out.toString());
+	}
+}
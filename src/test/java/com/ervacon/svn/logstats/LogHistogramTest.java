@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class LogHistogramTest {
+
+	@Test
+	public void testEmpty() {
+		LogHistogram histogram = new LogHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getValueAtPercentile(50));
+	}
+
+	@Test
+	public void testSmallValues() {
+		LogHistogram histogram = new LogHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.add(i);
+		}
+		assertEquals(100, histogram.getCount());
+		assertEquals(1, histogram.getMin());
+		assertEquals(100, histogram.getMax());
+		assertEquals(50.5, histogram.getMean(), 0.001);
+		assertEquals(50, histogram.getValueAtPercentile(50));
+		assertEquals(90, histogram.getValueAtPercentile(90));
+		assertEquals(99, histogram.getValueAtPercentile(99));
+		assertEquals(100, histogram.getValueAtPercentile(100));
+		assertEquals(1, histogram.getValueAtPercentile(0));
+	}
+
+	@Test
+	public void testLargeValues() {
+		LogHistogram histogram = new LogHistogram();
+		for (long i = 1; i <= 1000000; i++) {
+			histogram.add(i);
+		}
+		histogram.add(50000000000L); // a huge outlier does not skew the percentiles
+		for (int percentile : new int[] { 50, 90, 99 }) {
+			long expected = 10000L * percentile;
+			long actual = histogram.getValueAtPercentile(percentile);
+			assertTrue(actual >= expected);
+			assertTrue(actual <= expected * 1.016);
+		}
+		assertEquals(50000000000L, histogram.getMax());
+		assertEquals(50000000000L, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void testMerge() {
+		LogHistogram all = new LogHistogram();
+		LogHistogram a = new LogHistogram();
+		LogHistogram b = new LogHistogram();
+		for (int i = 0; i < 10000; i++) {
+			long value = (i * 7919L) % 5000;
+			all.add(value);
+			(i % 2 == 0 ? a : b).add(value);
+		}
+		a.merge(b);
+		assertEquals(all.getCount(), a.getCount());
+		assertEquals(all.getMin(), a.getMin());
+		assertEquals(all.getMax(), a.getMax());
+		assertEquals(all.getMean(), a.getMean(), 0.0);
+		for (int percentile = 0; percentile <= 100; percentile++) {
+			assertEquals(all.getValueAtPercentile(percentile), a.getValueAtPercentile(percentile));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAdd_negative() {
+		new LogHistogram().add(-1);
+	}
+}
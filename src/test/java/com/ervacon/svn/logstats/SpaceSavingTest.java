@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import com.ervacon.svn.logstats.SpaceSaving.Counter;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class SpaceSavingTest {
+
+	@Test
+	public void testAdd_exact() {
+		SpaceSaving<String> sketch = new SpaceSaving<>(10);
+		for (int i = 0; i < 10; i++) {
+			sketch.add("key" + i, i + 1);
+		}
+		sketch.add("key0", 100);
+		assertTrue(sketch.isExact());
+		List<Counter<String>> top = sketch.getTop(3);
+		assertEquals(3, top.size());
+		assertEquals("key0", top.get(0).key);
+		assertEquals(101, top.get(0).count);
+		assertEquals("key9", top.get(1).key);
+		assertEquals("key8", top.get(2).key);
+		assertEquals(0, top.get(2).error);
+	}
+
+	@Test
+	public void testAdd_heavyHitters() {
+		SpaceSaving<String> sketch = new SpaceSaving<>(50);
+		Random random = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			// 3 frequent keys hidden in a long tail of rare keys
+			sketch.add(i % 10 < 3 ? "hot" + (i % 10) : "cold" + random.nextInt(100000), 1);
+		}
+		assertFalse(sketch.isExact());
+		List<Counter<String>> top = sketch.getTop(3);
+		for (Counter<String> counter : top) {
+			assertTrue(counter.key.startsWith("hot"));
+			assertTrue(counter.count >= 10000);
+			assertTrue(counter.count - counter.error <= 10000);
+		}
+		assertEquals(50, sketch.size());
+	}
+
+	@Test
+	public void testMerge() {
+		SpaceSaving<String> a = new SpaceSaving<>(10);
+		SpaceSaving<String> b = new SpaceSaving<>(10);
+		a.add("x", 5);
+		a.add("y", 1);
+		b.add("x", 2);
+		b.add("z", 3);
+		a.merge(b);
+		assertEquals(7, a.get("x").count);
+		assertEquals(3, a.get("z").count);
+		assertEquals(2, b.get("x").count);
+		assertNull(b.get("y"));
+	}
+
+	@Test
+	public void testAddCounter() {
+		SpaceSaving<String> sketch = new SpaceSaving<>(10);
+		sketch.add("x", 5);
+		sketch.add(new Counter<>("x", 2, 0));
+		assertTrue(sketch.isExact());
+		sketch.add(new Counter<>("y", 4, 1));
+		assertFalse(sketch.isExact());
+		assertEquals(7, sketch.get("x").count);
+		assertEquals(0, sketch.get("x").error);
+		assertEquals(4, sketch.get("y").count);
+		assertEquals(1, sketch.get("y").error);
+	}
+}
@@ -40,19 +40,18 @@ public class SvnAuthorStatsTest {
 			}
 		}
 		assertEquals(4, stats.pathsInCommits);
-		assertEquals(3, stats.fileTypesInCommits.size());
-		assertEquals(2, stats.fileTypesInCommits.get("c").intValue());
-		assertEquals(1, stats.fileTypesInCommits.get("h").intValue());
-		assertEquals(1, stats.fileTypesInCommits.get("other").intValue());
+		assertEquals(3, stats.getFileTypesInCommits().size());
+		assertEquals(2, stats.getFileTypesInCommits().get("c").intValue());
+		assertEquals(1, stats.getFileTypesInCommits().get("h").intValue());
+		assertEquals(1, stats.getFileTypesInCommits().get("other").intValue());
 		assertEquals(0, stats.emptyMsgs);
 		assertEquals(4, stats.msgLength);
-		assertEquals(now, stats.firstCommit);
-		assertEquals(now, stats.lastCommit);
-		assertEquals(4, stats.actionCounts.size());
-		assertEquals(1, stats.actionCounts.get(SvnLogEntryPath.PathAction.A).intValue());
-		assertEquals(1, stats.actionCounts.get(SvnLogEntryPath.PathAction.D).intValue());
-		assertEquals(1, stats.actionCounts.get(SvnLogEntryPath.PathAction.M).intValue());
-		assertEquals(1, stats.actionCounts.get(SvnLogEntryPath.PathAction.R).intValue());
+		assertEquals(now, stats.getFirstCommit());
+		assertEquals(now, stats.getLastCommit());
+		assertEquals(1, stats.getActionCount(SvnLogEntryPath.PathAction.A));
+		assertEquals(1, stats.getActionCount(SvnLogEntryPath.PathAction.D));
+		assertEquals(1, stats.getActionCount(SvnLogEntryPath.PathAction.M));
+		assertEquals(1, stats.getActionCount(SvnLogEntryPath.PathAction.R));
 
 		stats.updateWith(newLogEntry("test", now.plusHours(1), null, "Mfile3.c"));
 
@@ -65,19 +64,18 @@ public class SvnAuthorStatsTest {
 			}
 		}
 		assertEquals(5, stats.pathsInCommits);
-		assertEquals(3, stats.fileTypesInCommits.size());
-		assertEquals(3, stats.fileTypesInCommits.get("c").intValue());
-		assertEquals(1, stats.fileTypesInCommits.get("h").intValue());
-		assertEquals(1, stats.fileTypesInCommits.get("other").intValue());
+		assertEquals(3, stats.getFileTypesInCommits().size());
+		assertEquals(3, stats.getFileTypesInCommits().get("c").intValue());
+		assertEquals(1, stats.getFileTypesInCommits().get("h").intValue());
+		assertEquals(1, stats.getFileTypesInCommits().get("other").intValue());
 		assertEquals(1, stats.emptyMsgs);
 		assertEquals(4, stats.msgLength);
-		assertEquals(now, stats.firstCommit);
-		assertEquals(now.plusHours(1), stats.lastCommit);
-		assertEquals(4, stats.actionCounts.size());
-		assertEquals(1, stats.actionCounts.get(SvnLogEntryPath.PathAction.A).intValue());
-		assertEquals(1, stats.actionCounts.get(SvnLogEntryPath.PathAction.D).intValue());
-		assertEquals(2, stats.actionCounts.get(SvnLogEntryPath.PathAction.M).intValue());
-		assertEquals(1, stats.actionCounts.get(SvnLogEntryPath.PathAction.R).intValue());
+		assertEquals(now, stats.getFirstCommit());
+		assertEquals(now.plusHours(1), stats.getLastCommit());
+		assertEquals(1, stats.getActionCount(SvnLogEntryPath.PathAction.A));
+		assertEquals(1, stats.getActionCount(SvnLogEntryPath.PathAction.D));
+		assertEquals(2, stats.getActionCount(SvnLogEntryPath.PathAction.M));
+		assertEquals(1, stats.getActionCount(SvnLogEntryPath.PathAction.R));
 	}
 
 	@Test
@@ -107,7 +105,38 @@ public class SvnAuthorStatsTest {
 		assertEquals(1, stats.getActionCount(SvnLogEntryPath.PathAction.R));
 	}
 
-	private SvnLogEntry newLogEntry(String author, ZonedDateTime date, String msg, String... paths) {
+	@Test
+	public void testMerge() {
+		ZonedDateTime now = ZonedDateTime.now();
+
+		SvnAuthorStats stats1 = new SvnAuthorStats("test");
+		stats1.updateWith(newLogEntry("test", now, "Test", "Afile1.c", "Mfile2.h"));
+		SvnAuthorStats stats2 = new SvnAuthorStats("test");
+		stats2.updateWith(newLogEntry("test", now.minusDays(1), null, "Mfile1.c"));
+		stats2.updateWith(newLogEntry("test", now.plusDays(1), "Tester", "Dfile3"));
+
+		stats1.merge(stats2);
+
+		assertEquals(3, stats1.commits);
+		assertEquals(4, stats1.pathsInCommits);
+		assertEquals(2, stats1.getFileTypesInCommits().get("c").intValue());
+		assertEquals(1, stats1.getFileTypesInCommits().get("h").intValue());
+		assertEquals(1, stats1.getFileTypesInCommits().get("other").intValue());
+		assertEquals(1, stats1.emptyMsgs);
+		assertEquals(10, stats1.msgLength);
+		assertEquals(now.minusDays(1), stats1.getFirstCommit());
+		assertEquals(now.plusDays(1), stats1.getLastCommit());
+		assertEquals(1, stats1.getActionCount(SvnLogEntryPath.PathAction.A));
+		assertEquals(1, stats1.getActionCount(SvnLogEntryPath.PathAction.D));
+		assertEquals(2, stats1.getActionCount(SvnLogEntryPath.PathAction.M));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMerge_otherAuthor() {
+		new SvnAuthorStats("test").merge(new SvnAuthorStats("other"));
+	}
+
+	static SvnLogEntry newLogEntry(String author, ZonedDateTime date, String msg, String... paths) {
 		SvnLogEntry logEntry = new SvnLogEntry();
 		logEntry.revision = 1;
 		logEntry.author = author;
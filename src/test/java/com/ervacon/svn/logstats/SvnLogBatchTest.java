@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.stream.XMLStreamException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SvnLogBatchTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testProcess() throws Exception {
+		File logFile1 = writeLogFile(Util.readClassPathResource("/sampleSvnLogFile.xml"));
+		File logFile2 = writeLogFile("<?xml version=\"1.0\"?><log><logentry revision=\"1\"><author>other</author>"
+				+ "<date>2017-06-07T12:04:04.132787Z</date><paths><path action=\"A\" kind=\"file\">/a.c</path>"
+				+ "</paths><msg>Test</msg></logentry></log>");
+
+		Map<File, SvnLogEntryAggregator> aggregators = new ConcurrentHashMap<>();
+		SvnLogEntryAggregator combined = new SvnLogEntryAggregator();
+		new SvnLogBatch(SvnLogParser::new, SvnLogEntryAggregator::new, 2)
+				.process(Arrays.asList(logFile1, logFile2, logFile1), aggregators::put, combined);
+
+		assertEquals(2, aggregators.size());
+		SvnLogEntryAggregator expected = new SvnLogEntryAggregator();
+		new SvnLogParser(expected).parse(logFile1);
+		assertEquals(expected.getTotalNumberOfCommits(), aggregators.get(logFile1).getTotalNumberOfCommits());
+		assertEquals(Arrays.asList("other"), aggregators.get(logFile2).getAuthors());
+		assertEquals(2 * expected.getTotalNumberOfCommits() + 1, combined.getTotalNumberOfCommits());
+		assertTrue(combined.getAuthors().contains("other"));
+	}
+
+	@Test
+	public void testProcess_failure() throws Exception {
+		File logFile1 = writeLogFile("<log><logentry revision=\"1\">");
+		File logFile2 = writeLogFile(Util.readClassPathResource("/sampleSvnLogFile.xml"));
+
+		Map<File, SvnLogEntryAggregator> aggregators = new ConcurrentHashMap<>();
+		try {
+			new SvnLogBatch(SvnLogParser::new, SvnLogEntryAggregator::new, 1)
+					.process(Arrays.asList(logFile1, logFile2), aggregators::put, null);
+			fail();
+		} catch (XMLStreamException e) {
+			assertTrue(e.getMessage().contains(logFile1.toString()));
+		}
+		// other log files are still processed
+		assertEquals(1, aggregators.size());
+		assertTrue(aggregators.containsKey(logFile2));
+	}
+
+	private File writeLogFile(String content) throws Exception {
+		File logFile = tmp.newFile();
+		try (OutputStream out = new FileOutputStream(logFile)) {
+			out.write(content.getBytes(UTF_8));
+		}
+		return logFile;
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SvnLogCacheReaderTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testReplay() throws Exception {
+		File logFile = tmp.newFile("log.xml");
+		SvnLogGenerator generator = new SvnLogGenerator();
+		generator.setEntries(20000); // more than 2 blocks
+		generator.generate(logFile);
+
+		MockSvnLogEntryProcessor parsed = new MockSvnLogEntryProcessor();
+		File cacheFile = new File(tmp.getRoot(), "log.cache");
+		try (SvnLogCacheWriter cacheWriter = new SvnLogCacheWriter(cacheFile, logFile, true)) {
+			new SvnLogParser(logEntry -> {
+				cacheWriter.process(logEntry);
+				parsed.process(logEntry);
+			}).parse(logFile);
+		}
+		assertTrue(SvnLogCacheReader.isUpToDate(cacheFile, logFile));
+
+		MockSvnLogEntryProcessor replayed = new MockSvnLogEntryProcessor();
+		SvnLogSymbols symbols = new SvnLogSymbols();
+		new SvnLogCacheReader(replayed, symbols).replay(cacheFile);
+
+		List<SvnLogEntry> expected = parsed.getLogEntries();
+		List<SvnLogEntry> actual = replayed.getLogEntries();
+		assertEquals(20000, actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			SvnLogEntry expectedEntry = expected.get(i);
+			SvnLogEntry actualEntry = actual.get(i);
+			assertEquals(expectedEntry.revision, actualEntry.revision);
+			assertEquals(expectedEntry.author, actualEntry.author);
+			assertEquals(symbols.authors.intern(expectedEntry.author), actualEntry.authorId);
+			assertSame(symbols, actualEntry.symbols);
+			assertEquals(expectedEntry.getTimestamp(), actualEntry.getTimestamp());
+			assertEquals(expectedEntry.msg, actualEntry.msg);
+			assertEquals(expectedEntry.paths.size(), actualEntry.paths.size());
+			for (int j = 0; j < expectedEntry.paths.size(); j++) {
+				SvnLogEntryPath expectedPath = expectedEntry.paths.get(j);
+				SvnLogEntryPath actualPath = actualEntry.paths.get(j);
+				assertEquals(expectedPath.path, actualPath.path);
+				assertEquals(expectedPath.action, actualPath.action);
+				assertEquals(expectedPath.kind, actualPath.kind);
+				assertEquals(symbols.getExtensionId(expectedPath.path), actualPath.extensionId);
+			}
+		}
+	}
+
+	@Test
+	public void testReplay_withoutMessages() throws Exception {
+		File cacheFile = new File(tmp.getRoot(), "log.cache");
+		try (SvnLogCacheWriter cacheWriter = new SvnLogCacheWriter(cacheFile, null, false)) {
+			cacheWriter.process(SvnAuthorStatsTest.newLogEntry("john", null, "Test", "M/trunk/Foo.java"));
+		}
+		MockSvnLogEntryProcessor replayed = new MockSvnLogEntryProcessor();
+		new SvnLogCacheReader(replayed).replay(cacheFile);
+		assertEquals(1, replayed.getLogEntries().size());
+		assertEquals("john", replayed.getLogEntries().get(0).author);
+		assertNull(replayed.getLogEntries().get(0).msg);
+		assertNull(replayed.getLogEntries().get(0).getDate());
+	}
+
+	@Test
+	public void testReplay_parsedWithoutMessages() throws Exception {
+		File logFile = tmp.newFile("log.xml");
+		new SvnLogGenerator().generate(logFile);
+
+		SvnLogEntryAggregator parsed = new SvnLogEntryAggregator();
+		new SvnLogParser(parsed, parsed.getSymbols()).parse(logFile);
+		assertTrue(parsed.getMessageLengths().getMax() > 0);
+
+		File cacheFile = new File(tmp.getRoot(), "log.cache");
+		File cacheFileWithoutMessages = new File(tmp.getRoot(), "log-without-messages.cache");
+		try (SvnLogCacheWriter cacheWriter = new SvnLogCacheWriter(cacheFile, logFile, true);
+				SvnLogCacheWriter cacheWriterWithoutMessages = new SvnLogCacheWriter(cacheFileWithoutMessages, logFile,
+						false)) {
+			SvnLogParser parser = new SvnLogParser(logEntry -> {
+				assertNull(logEntry.msg);
+				cacheWriter.process(logEntry);
+				cacheWriterWithoutMessages.process(logEntry);
+			});
+			parser.setIncludeMessages(false);
+			parser.parse(logFile);
+		}
+
+		for (File file : new File[] { cacheFile, cacheFileWithoutMessages }) {
+			SvnLogEntryAggregator replayed = new SvnLogEntryAggregator();
+			new SvnLogCacheReader(replayed, replayed.getSymbols()).replay(file);
+			assertEquals(parsed.getMessageLengths().getCount(), replayed.getMessageLengths().getCount());
+			assertEquals(parsed.getMessageLengths().getMean(), replayed.getMessageLengths().getMean(), 0.0);
+			assertEquals(parsed.getMessageLengths().getMax(), replayed.getMessageLengths().getMax());
+		}
+	}
+
+	@Test
+	public void testIsUpToDate() throws Exception {
+		File logFile = tmp.newFile("log.xml");
+		File cacheFile = new File(tmp.getRoot(), "log.cache");
+		assertFalse(SvnLogCacheReader.isUpToDate(cacheFile, logFile));
+
+		new SvnLogCacheWriter(cacheFile, logFile, true).close();
+		assertTrue(SvnLogCacheReader.isUpToDate(cacheFile, logFile));
+		assertFalse(SvnLogCacheReader.isUpToDate(cacheFile, null));
+
+		logFile.setLastModified(logFile.lastModified() - 60000);
+		assertFalse(SvnLogCacheReader.isUpToDate(cacheFile, logFile));
+
+		try (FileOutputStream out = new FileOutputStream(cacheFile)) {
+			out.write("not a cache".getBytes());
+		}
+		assertFalse(SvnLogCacheReader.isUpToDate(cacheFile, logFile));
+	}
+
+	@Test
+	public void testDiscard() throws Exception {
+		File logFile = tmp.newFile("log.xml");
+		File cacheFile = new File(tmp.getRoot(), "log.cache");
+		new SvnLogCacheWriter(cacheFile, logFile, true).close();
+		long cacheLength = cacheFile.length();
+
+		SvnLogCacheWriter cacheWriter = new SvnLogCacheWriter(cacheFile, logFile, true);
+		cacheWriter.process(SvnAuthorStatsTest.newLogEntry("john", null, "Test", "M/trunk/Foo.java"));
+		cacheWriter.discard();
+		cacheWriter.close(); // no-op once discarded
+		assertFalse(new File(tmp.getRoot(), "log.cache.tmp").exists());
+		assertEquals(cacheLength, cacheFile.length());
+		assertTrue(SvnLogCacheReader.isUpToDate(cacheFile, logFile));
+
+		cacheWriter = new SvnLogCacheWriter(cacheFile, logFile, true);
+		cacheWriter.close();
+		cacheWriter.discard(); // no-op once closed
+		assertTrue(SvnLogCacheReader.isUpToDate(cacheFile, logFile));
+	}
+
+	@Test(expected = IOException.class)
+	public void testReplay_incomplete() throws Exception {
+		File cacheFile = new File(tmp.getRoot(), "log.cache");
+		try (SvnLogCacheWriter cacheWriter = new SvnLogCacheWriter(cacheFile, null, true)) {
+			cacheWriter.process(SvnAuthorStatsTest.newLogEntry("john", null, "Test", "M/trunk/Foo.java"));
+		}
+		try (RandomAccessFile file = new RandomAccessFile(cacheFile, "rw")) {
+			file.setLength(file.length() - 4); // drop the end marker
+		}
+		new SvnLogCacheReader(new MockSvnLogEntryProcessor()).replay(cacheFile);
+	}
+}
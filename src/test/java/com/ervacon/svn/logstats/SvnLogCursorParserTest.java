@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+import javax.xml.stream.XMLStreamException;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class SvnLogCursorParserTest {
+
+	@Test
+	public void testSvnLogFileParsing() throws Exception {
+		String xml = Util.readClassPathResource("/sampleSvnLogFile.xml");
+		assertSameEntries(parse(new SvnLogParser(new MockSvnLogEntryProcessor()), xml),
+				parse(new SvnLogCursorParser(new MockSvnLogEntryProcessor()), xml));
+	}
+
+	@Test
+	public void testSvnLogFileParsing_specialContent() throws Exception {
+		String xml = "<?xml version='1.0' encoding='UTF-8'?><log>"
+				+ "<logentry revision='2'><author>jo &amp; co</author><date>2017-06-07T12:04:04.132787Z</date>"
+				+ "<paths><path kind='dir' action='D' copyfrom-rev='1'> /trunk/a&lt;b </path></paths>"
+				+ "<msg><![CDATA[cdata <msg>]]> &#x41;</msg></logentry>"
+				+ "<logentry revision='1'><date>2017-06-06T01:00:00.000000Z</date><paths/><msg/></logentry>"
+				+ "</log>";
+		List<SvnLogEntry> entries = parse(new SvnLogCursorParser(new MockSvnLogEntryProcessor()), xml);
+		assertSameEntries(parse(new SvnLogParser(new MockSvnLogEntryProcessor()), xml), entries);
+		assertEquals("jo & co", entries.get(0).author);
+		assertEquals("/trunk/a<b", entries.get(0).paths.get(0).path);
+		assertEquals("cdata <msg> A", entries.get(0).msg);
+	}
+
+	@Test
+	public void testSvnLogFileParsing_noLogEntries() throws Exception {
+		MockSvnLogEntryProcessor entryProcessor = new MockSvnLogEntryProcessor();
+		SvnLogParser processor = new SvnLogCursorParser(entryProcessor);
+		try (Reader in = new StringReader("<?xml version='1.0' encoding='UTF-8'?><log></log>")) {
+			processor.parse(in);
+		}
+		assertEquals(0, entryProcessor.getLogEntries().size());
+	}
+
+	@Test
+	public void testSvnLogFileParsing_badXml() throws Exception {
+		MockSvnLogEntryProcessor entryProcessor = new MockSvnLogEntryProcessor();
+		SvnLogParser processor = new SvnLogCursorParser(entryProcessor);
+		try (Reader in = new StringReader("this is not xml")) {
+			processor.parse(in);
+		} catch (XMLStreamException e) {
+			// expected
+		}
+		assertEquals(0, entryProcessor.getLogEntries().size());
+	}
+
+	private List<SvnLogEntry> parse(SvnLogParser parser, String xml) throws Exception {
+		try (Reader in = new StringReader(xml)) {
+			parser.parse(in);
+		}
+		return ((MockSvnLogEntryProcessor) parser.entryProcessor).getLogEntries();
+	}
+
+	static void assertSameEntries(List<SvnLogEntry> expected, List<SvnLogEntry> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			SvnLogEntry expectedEntry = expected.get(i);
+			SvnLogEntry actualEntry = actual.get(i);
+			assertEquals(expectedEntry.revision, actualEntry.revision);
+			assertEquals(expectedEntry.author, actualEntry.author);
+			assertEquals(expectedEntry.getDate(), actualEntry.getDate());
+			assertEquals(expectedEntry.msg, actualEntry.msg);
+			assertEquals(expectedEntry.paths.size(), actualEntry.paths.size());
+			for (int j = 0; j < expectedEntry.paths.size(); j++) {
+				assertEquals(expectedEntry.paths.get(j).action, actualEntry.paths.get(j).action);
+				assertEquals(expectedEntry.paths.get(j).kind, actualEntry.paths.get(j).kind);
+				assertEquals(expectedEntry.paths.get(j).path, actualEntry.paths.get(j).path);
+			}
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static com.ervacon.svn.logstats.SvnAuthorStatsTest.newLogEntry;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class SvnLogEntryAggregatorTest {
+
+	private final ZonedDateTime now = ZonedDateTime.now();
+
+	@Test
+	public void testProcess() {
+		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator();
+		aggregator.process(newLogEntry("john", now, "Test", "Afile1.c"));
+		aggregator.process(newLogEntry("jane", now, "Test", "Mfile1.c", "Mfile2.c"));
+		aggregator.process(newLogEntry("john", now, "Test", "Dfile1.c"));
+
+		assertEquals(3, aggregator.getTotalNumberOfCommits());
+		assertEquals(Arrays.asList("jane", "john"), aggregator.getAuthors());
+		assertEquals(2, aggregator.getStatsFor("john").commits);
+		assertEquals(2, aggregator.getStatsFor("jane").pathsInCommits);
+		assertEquals(0, aggregator.getStatsFor("nobody").commits);
+	}
+
+	@Test
+	public void testProcess_concurrently() throws Exception {
+		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator();
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			threads.add(new Thread(() -> {
+				for (int j = 0; j < 1000; j++) {
+					aggregator.process(newLogEntry("author" + (j % 3), now.plusMinutes(j), "Test", "Mfile.c"));
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(4000, aggregator.getTotalNumberOfCommits());
+		assertEquals(4000, aggregator.getStats().stream().mapToLong(stats -> stats.pathsInCommits).sum());
+		assertEquals(4000, aggregator.getStats().stream().mapToLong(stats -> stats.getFileTypesInCommits().get("c")).sum());
+	}
+
+	@Test
+	public void testProcess_sharedSymbols() throws Exception {
+		SvnLogGenerator generator = new SvnLogGenerator();
+		generator.setEntries(500);
+		StringWriter xml = new StringWriter();
+		generator.generate(xml);
+
+		SvnLogEntryAggregator expected = new SvnLogEntryAggregator();
+		new SvnLogParser(expected).parse(new StringReader(xml.toString()));
+		SvnLogEntryAggregator actual = new SvnLogEntryAggregator();
+		new SvnLogParser(actual, actual.getSymbols()).parse(new StringReader(xml.toString()));
+		assertSameStats(expected, actual);
+
+		// merging aggregators using different symbols
+		SvnLogEntryAggregator merged = new SvnLogEntryAggregator();
+		merged.merge(actual);
+		assertSameStats(expected, merged);
+	}
+
+	@Test
+	public void testMerge() {
+		SvnLogEntryAggregator a = newAggregator(0, 10);
+		SvnLogEntryAggregator b = newAggregator(10, 25);
+		SvnLogEntryAggregator c = newAggregator(25, 40);
+
+		// (a + b) + c
+		SvnLogEntryAggregator left = new SvnLogEntryAggregator();
+		left.merge(a);
+		left.merge(b);
+		left.merge(c);
+
+		// c + (b + a)
+		SvnLogEntryAggregator bc = new SvnLogEntryAggregator();
+		bc.merge(b);
+		bc.merge(a);
+		SvnLogEntryAggregator right = new SvnLogEntryAggregator();
+		right.merge(c);
+		right.merge(bc);
+
+		SvnLogEntryAggregator expected = newAggregator(0, 40);
+		assertSameStats(expected, left);
+		assertSameStats(expected, right);
+
+		// merging does not modify the merged aggregator
+		assertEquals(10, a.getTotalNumberOfCommits());
+	}
+
+	@Test
+	public void testOptInAnalyses() {
+		SvnLogEntryAggregator aggregator = newAggregator(0, 10);
+		assertNull(aggregator.getDirectoryHotspots());
+		assertNull(aggregator.getDistinctTimeline());
+		assertNull(aggregator.getCoChanges());
+
+		SvnLogEntryAggregator tracking = new SvnLogEntryAggregator();
+		tracking.setDirectoryHotspots(new DirectoryHotspots());
+		tracking.setDistinctTimeline(new DistinctTimeSeries(TimeSeries.Resolution.MONTH, HyperLogLog.DEFAULT_PRECISION));
+		tracking.setCoChanges(new CoChangeAnalyzer());
+		ZonedDateTime date = ZonedDateTime.parse("2017-06-07T12:00:00Z");
+		tracking.process(newLogEntry("john", date, "Test", "M/trunk/a.c", "M/trunk/a.h"));
+		assertEquals(1, tracking.getCoChanges().getCommits());
+		assertEquals(2, tracking.getDistinctTimeline().getDistinctPaths(
+				TimeSeries.Resolution.MONTH.toBucket(date.toLocalDate().toEpochDay())));
+		assertEquals(2, tracking.getDirectoryHotspots().getTopFiles(10).size());
+		assertEquals("hotspots (depth 4, budget 50000), distinct (precision 12), cochanges (max paths 50, min support 3), "
+				+ "distinct paths per author (precision 12)", tracking.getAnalysesDescription());
+		assertEquals("distinct paths per author (precision 12)", aggregator.getAnalysesDescription());
+	}
+
+	@Test
+	public void testMerge_otherAnalyses() {
+		SvnLogEntryAggregator aggregator = newAggregator(0, 10);
+		SvnLogEntryAggregator tracking = new SvnLogEntryAggregator();
+		tracking.setDirectoryHotspots(new DirectoryHotspots());
+		try {
+			tracking.merge(aggregator);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected: the hotspots would miss the log entries of the other aggregator
+		}
+		try {
+			aggregator.merge(tracking);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected: the hotspots of the other aggregator would be dropped
+		}
+		assertEquals(10, aggregator.getTotalNumberOfCommits());
+	}
+
+	private SvnLogEntryAggregator newAggregator(int from, int to) {
+		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator();
+		for (int i = from; i < to; i++) {
+			aggregator.process(newLogEntry("author" + (i % 3), now.plusHours(i), i % 4 == 0 ? null : "Commit " + i,
+					"Mfile" + i + ".c", "Afile" + i + (i % 2 == 0 ? ".h" : "")));
+		}
+		return aggregator;
+	}
+
+	private void assertSameStats(SvnLogEntryAggregator expected, SvnLogEntryAggregator actual) {
+		assertEquals(expected.getAuthors(), actual.getAuthors());
+		assertSameTimeline(expected.getTimeline(), actual.getTimeline());
+		for (String author : expected.getAuthors()) {
+			SvnAuthorStats expectedStats = expected.getStatsFor(author);
+			SvnAuthorStats actualStats = actual.getStatsFor(author);
+			assertEquals(expectedStats.commits, actualStats.commits);
+			assertArrayEquals(expectedStats.commitsPerHour, actualStats.commitsPerHour);
+			assertEquals(expectedStats.pathsInCommits, actualStats.pathsInCommits);
+			assertEquals(expectedStats.getFileTypesInCommits(), actualStats.getFileTypesInCommits());
+			assertEquals(expectedStats.emptyMsgs, actualStats.emptyMsgs);
+			assertEquals(expectedStats.msgLength, actualStats.msgLength);
+			assertEquals(expectedStats.getFirstCommit(), actualStats.getFirstCommit());
+			assertEquals(expectedStats.getLastCommit(), actualStats.getLastCommit());
+			assertArrayEquals(expectedStats.actionCounts, actualStats.actionCounts);
+			assertSameTimeline(expectedStats.timeline, actualStats.timeline);
+			assertEquals(expectedStats.getDistinctPathCount(), actualStats.getDistinctPathCount());
+			assertEquals(expectedStats.commitSizes.getValueAtPercentile(90), actualStats.commitSizes.getValueAtPercentile(90));
+			assertEquals(expectedStats.messageLengths.getMax(), actualStats.messageLengths.getMax());
+		}
+	}
+
+	private void assertSameTimeline(TimeSeries expected, TimeSeries actual) {
+		assertEquals(expected.getFirstBucket(), actual.getFirstBucket());
+		assertEquals(expected.getLastBucket(), actual.getLastBucket());
+		for (int bucket = expected.getFirstBucket(); bucket <= expected.getLastBucket(); bucket++) {
+			assertEquals(expected.getCommits(bucket), actual.getCommits(bucket));
+			assertEquals(expected.getPaths(bucket), actual.getPaths(bucket));
+			assertEquals(expected.getMsgLength(bucket), actual.getMsgLength(bucket));
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.File;
+import java.io.StringReader;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SvnLogEntryFilterTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testAccepts() {
+		SvnLogEntryFilter filter = new SvnLogEntryFilter();
+		assertTrue(filter.acceptsAll());
+		assertTrue(filter.acceptsTimestamp(Util.NO_TIMESTAMP));
+		assertTrue(filter.acceptsAuthor(null));
+
+		filter.setRevisions(10, 20);
+		filter.setTimeWindow(1000, 2000);
+		filter.setAuthors(Arrays.asList("john", "jane"));
+		assertFalse(filter.acceptsAll());
+		assertTrue(filter.acceptsRevision(10));
+		assertTrue(filter.acceptsRevision(20));
+		assertFalse(filter.acceptsRevision(21));
+		assertTrue(filter.acceptsTimestamp(1000));
+		assertFalse(filter.acceptsTimestamp(2000));
+		assertFalse(filter.acceptsTimestamp(Util.NO_TIMESTAMP));
+		assertTrue(filter.acceptsAuthor("jane"));
+		assertFalse(filter.acceptsAuthor("mary"));
+		assertFalse(filter.acceptsAuthor(null));
+	}
+
+	@Test
+	public void testParse() throws Exception {
+		File logFile = tmp.newFile("log.xml");
+		SvnLogGenerator generator = new SvnLogGenerator();
+		generator.setEntries(2000);
+		generator.generate(logFile);
+
+		MockSvnLogEntryProcessor all = new MockSvnLogEntryProcessor();
+		new SvnLogParser(all).parse(logFile);
+		SvnLogEntry middle = all.getLogEntries().get(1000);
+		long since = middle.getTimestamp() - 30L * 86400 * 1000000;
+
+		SvnLogEntryFilter filter = new SvnLogEntryFilter();
+		filter.setRevisions(0, middle.revision + 100);
+		filter.setTimeWindow(since, Long.MAX_VALUE);
+		filter.setAuthors(Arrays.asList(middle.author, all.getLogEntries().get(0).author));
+		List<Integer> expected = all.getLogEntries().stream()
+				.filter(filter::accepts).map(logEntry -> logEntry.revision).collect(toList());
+		assertFalse(expected.isEmpty());
+		assertTrue(expected.size() < 1000);
+
+		File cacheFile = new File(tmp.getRoot(), "log.cache");
+		try (SvnLogCacheWriter cacheWriter = new SvnLogCacheWriter(cacheFile, logFile, true)) {
+			all.getLogEntries().forEach(cacheWriter::process);
+		}
+
+		for (String parserType : new String[] { "event", "cursor", "scan", "cache" }) {
+			MockSvnLogEntryProcessor filtered = new MockSvnLogEntryProcessor();
+			if (parserType.equals("cache")) {
+				SvnLogCacheReader cacheReader = new SvnLogCacheReader(filtered);
+				cacheReader.setFilter(filter);
+				cacheReader.replay(cacheFile);
+			} else {
+				SvnLogStats.newParser(parserType, filtered, new SvnLogSymbols(), filter).parse(logFile);
+			}
+			assertEquals(parserType, expected,
+					filtered.getLogEntries().stream().map(logEntry -> logEntry.revision).collect(toList()));
+		}
+	}
+
+	@Test
+	public void testParse_missingDate() throws Exception {
+		String xml = "<log><logentry revision='1'><author>john</author><msg>Test</msg></logentry></log>";
+		SvnLogEntryFilter filter = new SvnLogEntryFilter();
+		filter.setTimeWindow(Util.toTimestamp(ZonedDateTime.parse("2017-01-01T00:00:00Z")), Long.MAX_VALUE);
+		MockSvnLogEntryProcessor filtered = new MockSvnLogEntryProcessor();
+		SvnLogParser parser = new SvnLogCursorParser(filtered);
+		parser.setFilter(filter);
+		parser.parse(new StringReader(xml));
+		assertTrue(filtered.getLogEntries().isEmpty());
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static com.ervacon.svn.logstats.SvnAuthorStatsTest.newLogEntry;
+import java.time.ZonedDateTime;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class SvnLogEntryPipelineTest {
+
+	private final ZonedDateTime now = ZonedDateTime.now();
+
+	@Test
+	public void testProcess() {
+		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator();
+		try (SvnLogEntryPipeline pipeline = new SvnLogEntryPipeline(aggregator, 3, 10, 2)) {
+			for (int i = 0; i < 1005; i++) {
+				pipeline.process(newLogEntry("author" + (i % 4), now, "Test", "Mfile.c"));
+			}
+		}
+		assertEquals(1005, aggregator.getTotalNumberOfCommits());
+	}
+
+	@Test
+	public void testProcess_singleWorkerKeepsOrder() {
+		MockSvnLogEntryProcessor target = new MockSvnLogEntryProcessor();
+		try (SvnLogEntryPipeline pipeline = new SvnLogEntryPipeline(target)) {
+			for (int i = 0; i < 1000; i++) {
+				SvnLogEntry logEntry = newLogEntry("test", now, "Test");
+				logEntry.revision = i;
+				pipeline.process(logEntry);
+			}
+		}
+		assertEquals(1000, target.getLogEntries().size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, target.getLogEntries().get(i).revision);
+		}
+	}
+
+	@Test
+	public void testProcess_failure() {
+		try (SvnLogEntryPipeline pipeline = new SvnLogEntryPipeline(logEntry -> {
+			throw new IllegalArgumentException("Bad log entry");
+		}, 2, 5, 1)) {
+			for (int i = 0; i < 1000; i++) {
+				pipeline.process(newLogEntry("test", now, "Test"));
+			}
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("Bad log entry", e.getMessage());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testProcess_closed() {
+		SvnLogEntryPipeline pipeline = new SvnLogEntryPipeline(new MockSvnLogEntryProcessor());
+		pipeline.close();
+		pipeline.process(newLogEntry("test", now, "Test"));
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static com.ervacon.svn.logstats.SvnLogCursorParserTest.assertSameEntries;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SvnLogGeneratorTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testGenerate() throws Exception {
+		SvnLogGenerator generator = new SvnLogGenerator();
+		generator.setEntries(200);
+		generator.setAuthors(5);
+		generator.setPaths(50);
+		generator.setPathDepth(2);
+
+		MockSvnLogEntryProcessor entryProcessor = new MockSvnLogEntryProcessor();
+		new SvnLogParser(entryProcessor).parse(new StringReader(generate(generator)));
+
+		List<SvnLogEntry> entries = entryProcessor.getLogEntries();
+		assertEquals(200, entries.size());
+		assertEquals(200, entries.get(0).revision);
+		assertEquals(1, entries.get(199).revision);
+		assertTrue(entries.get(0).getDate().isAfter(entries.get(199).getDate()));
+		assertTrue(entries.stream().map(entry -> entry.author).distinct().count() <= 5);
+		assertTrue(entries.stream().flatMap(entry -> entry.paths.stream()).map(path -> path.path).distinct().count() <= 50);
+		assertEquals("/trunk/dir/dir/File".split("/").length, entries.get(0).paths.get(0).path.split("/").length);
+	}
+
+	@Test
+	public void testGenerate_deterministic() throws Exception {
+		SvnLogGenerator generator = new SvnLogGenerator();
+		String log = generate(generator);
+		assertEquals(log, generate(generator));
+		generator.setSeed(7);
+		assertNotEquals(log, generate(generator));
+	}
+
+	@Test
+	public void testGenerate_parsersAgree() throws Exception {
+		SvnLogGenerator generator = new SvnLogGenerator();
+		generator.setEntries(2000);
+		File logFile = tmp.newFile();
+		generator.generate(logFile);
+
+		MockSvnLogEntryProcessor expected = new MockSvnLogEntryProcessor();
+		new SvnLogParser(expected).parse(logFile);
+		MockSvnLogEntryProcessor cursor = new MockSvnLogEntryProcessor();
+		new SvnLogCursorParser(cursor).parse(logFile);
+		MockSvnLogEntryProcessor scanner = new MockSvnLogEntryProcessor();
+		new SvnLogScanner(scanner).parse(logFile);
+
+		assertSameEntries(expected.getLogEntries(), cursor.getLogEntries());
+		assertSameEntries(expected.getLogEntries(), scanner.getLogEntries());
+	}
+
+	private String generate(SvnLogGenerator generator) throws Exception {
+		StringWriter out = new StringWriter();
+		generator.generate(out);
+		return out.toString();
+	}
+}
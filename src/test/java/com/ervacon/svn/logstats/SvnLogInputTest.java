@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static com.ervacon.svn.logstats.SvnLogCursorParserTest.assertSameEntries;
+import com.ervacon.svn.logstats.SvnLogInput.Compression;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SvnLogInputTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testParseGzipCompressed() throws Exception {
+		SvnLogGenerator generator = new SvnLogGenerator();
+		File logFile = tmp.newFile("log.xml");
+		generator.generate(logFile);
+		File gzipFile = tmp.newFile("log.xml.gz");
+		try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gzipFile))) {
+			out.write(Files.readAllBytes(logFile.toPath()));
+		}
+
+		assertEquals(Compression.NONE, SvnLogInput.getCompression(logFile));
+		assertEquals(Compression.GZIP, SvnLogInput.getCompression(gzipFile));
+
+		MockSvnLogEntryProcessor expected = new MockSvnLogEntryProcessor();
+		new SvnLogParser(expected).parse(logFile);
+		MockSvnLogEntryProcessor actual = new MockSvnLogEntryProcessor();
+		new SvnLogCursorParser(actual).parse(gzipFile);
+		assertSameEntries(expected.getLogEntries(), actual.getLogEntries());
+
+		actual = new MockSvnLogEntryProcessor();
+		new SvnLogScanner(actual).parse(gzipFile);
+		assertSameEntries(expected.getLogEntries(), actual.getLogEntries());
+
+		assertEquals(1000, new SvnLogParallelParser(SvnLogParser::new, 2).parse(gzipFile).getTotalNumberOfCommits());
+	}
+
+	@Test(expected = IOException.class)
+	public void testOpenUnsupported() throws Exception {
+		File xzFile = tmp.newFile("log.xml.xz");
+		try (OutputStream out = new FileOutputStream(xzFile)) {
+			out.write(new byte[]{(byte) 0xfd, '7', 'z', 'X', 'Z', 0, 0, 0});
+		}
+		SvnLogInput.open(xzFile);
+	}
+
+	@Test
+	public void testOpenShortStream() throws Exception {
+		try (InputStream in = SvnLogInput.open(new ByteArrayInputStream(new byte[]{'<'}))) {
+			assertEquals('<', in.read());
+			assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	public void testProgress() throws Exception {
+		ByteArrayOutputStream progress = new ByteArrayOutputStream();
+		try (ProgressInputStream in = new ProgressInputStream(new ByteArrayInputStream(new byte[3 * 1024 * 1024]),
+				new PrintStream(progress, true), 0)) {
+			byte[] buf = new byte[1024 * 1024];
+			while (in.read(buf) != -1) {
+				// keep reading
+			}
+			assertEquals(3 * 1024 * 1024, in.getBytesRead());
+		}
+		assertTrue(progress.toString().contains("Read 3.0 MB"));
+	}
+
+	@Test
+	public void testReadAhead() throws Exception {
+		byte[] data = new byte[1000000];
+		new Random(42).nextBytes(data);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = new ReadAheadInputStream(new ByteArrayInputStream(data), 4096, 4)) {
+			byte[] buf = new byte[1000];
+			int read;
+			while ((read = in.read(buf)) != -1) {
+				out.write(buf, 0, read);
+			}
+		}
+		assertArrayEquals(data, out.toByteArray());
+	}
+
+	@Test
+	public void testReadAhead_failure() throws Exception {
+		InputStream failing = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				throw new IOException("Broken");
+			}
+		};
+		try (InputStream in = new ReadAheadInputStream(failing, 16, 1)) {
+			in.read();
+		} catch (IOException e) {
+			assertEquals("Broken", e.getMessage());
+			return;
+		}
+		throw new AssertionError("Expected failure");
+	}
+
+	@Test
+	public void testReadAhead_unexpectedFailure() throws Exception {
+		InputStream failing = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				throw new IllegalStateException("Broken");
+			}
+		};
+		try (InputStream in = new ReadAheadInputStream(failing, 16, 1)) {
+			in.read();
+		} catch (IllegalStateException e) {
+			assertEquals("Broken", e.getMessage());
+			return;
+		}
+		throw new AssertionError("Expected failure");
+	}
+}
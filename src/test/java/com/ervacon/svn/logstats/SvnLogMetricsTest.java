@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static com.ervacon.svn.logstats.SvnAuthorStatsTest.newLogEntry;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.lang.management.ManagementFactory;
+import java.time.ZonedDateTime;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SvnLogMetricsTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testMeterProcessor() {
+		SvnLogMetrics metrics = new SvnLogMetrics();
+		MockSvnLogEntryProcessor target = new MockSvnLogEntryProcessor();
+		SvnLogEntryProcessor processor = metrics.meter(target);
+		processor.process(newLogEntry("john", ZonedDateTime.now(), "Test", "Afile1.c", "Mfile2.h"));
+		processor.process(newLogEntry("jane", ZonedDateTime.now(), "Test", "Mfile1.c"));
+		assertEquals(2, target.getLogEntries().size());
+		assertEquals(2, metrics.getLogEntries());
+		assertEquals(3, metrics.getPaths());
+	}
+
+	@Test
+	public void testStages() throws Exception {
+		SvnLogMetrics metrics = new SvnLogMetrics();
+		assertNull(metrics.getStage());
+		metrics.startStage(SvnLogMetrics.Stage.PARSE);
+		assertEquals("PARSE", metrics.getStage());
+		Thread.sleep(5);
+		metrics.startStage(SvnLogMetrics.Stage.REPORT);
+		assertTrue(metrics.getParseMillis() >= 5);
+		metrics.endStage();
+		assertNull(metrics.getStage());
+		long reportMillis = metrics.getReportMillis();
+		Thread.sleep(5);
+		assertEquals(reportMillis, metrics.getReportMillis());
+		assertEquals(0, metrics.getSnapshotMillis());
+		assertTrue(metrics.getPeakHeapUsedBytes() > 0);
+	}
+
+	@Test
+	public void testBytesRead() throws Exception {
+		File logFile = tmp.newFile();
+		try (OutputStream out = new FileOutputStream(logFile)) {
+			out.write(Util.readClassPathResource("/sampleSvnLogFile.xml").getBytes(UTF_8));
+		}
+		for (SvnLogParser parser : new SvnLogParser[] { new SvnLogParser(new MockSvnLogEntryProcessor()),
+				new SvnLogCursorParser(new MockSvnLogEntryProcessor()),
+				new SvnLogScanner(new MockSvnLogEntryProcessor()) }) {
+			SvnLogMetrics metrics = new SvnLogMetrics();
+			parser.setMetrics(metrics);
+			parser.parse(logFile);
+			assertEquals(parser.getClass().getSimpleName(), logFile.length(), metrics.getBytesRead());
+		}
+	}
+
+	@Test
+	public void testRegister() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("com.ervacon.svn.logstats:type=SvnLogMetrics,name=\"test.xml\"");
+		try (SvnLogMetrics metrics = new SvnLogMetrics()) {
+			metrics.register("test.xml");
+			metrics.addBytesRead(42);
+			assertEquals(42L, server.getAttribute(name, "BytesRead"));
+		}
+		assertFalse(server.isRegistered(name));
+	}
+}
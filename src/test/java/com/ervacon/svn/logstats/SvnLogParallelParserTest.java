@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.List;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SvnLogParallelParserTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testSplit() throws Exception {
+		File logFile = writeLogFile(100);
+		List<long[]> ranges = SvnLogParallelParser.split(logFile, 8);
+		assertEquals(8, ranges.size());
+		for (int i = 1; i < ranges.size(); i++) {
+			assertEquals(ranges.get(i - 1)[1], ranges.get(i)[0]);
+		}
+	}
+
+	@Test
+	public void testParse() throws Exception {
+		File logFile = writeLogFile(500);
+
+		SvnLogEntryAggregator expected = new SvnLogEntryAggregator();
+		new SvnLogParser(expected).parse(logFile);
+
+		SvnLogEntryAggregator actual = new SvnLogParallelParser(SvnLogCursorParser::new, 3).parse(logFile);
+
+		assertEquals(500, actual.getTotalNumberOfCommits());
+		assertEquals(expected.getAuthors(), actual.getAuthors());
+		for (String author : expected.getAuthors()) {
+			SvnAuthorStats expectedStats = expected.getStatsFor(author);
+			SvnAuthorStats actualStats = actual.getStatsFor(author);
+			assertEquals(expectedStats.commits, actualStats.commits);
+			assertEquals(expectedStats.pathsInCommits, actualStats.pathsInCommits);
+			assertEquals(expectedStats.msgLength, actualStats.msgLength);
+			assertEquals(expectedStats.getFileTypesInCommits(), actualStats.getFileTypesInCommits());
+			assertArrayEquals(expectedStats.actionCounts, actualStats.actionCounts);
+			assertEquals(expectedStats.getFirstCommit(), actualStats.getFirstCommit());
+			assertEquals(expectedStats.getLastCommit(), actualStats.getLastCommit());
+		}
+	}
+
+	@Test
+	public void testParse_scanner() throws Exception {
+		File logFile = writeLogFile(500);
+
+		SvnLogEntryAggregator expected = new SvnLogEntryAggregator();
+		new SvnLogParser(expected).parse(logFile);
+
+		// the scanner works on memory-mapped byte ranges rather than falling back to parsing a stream
+		SvnLogEntryAggregator actual = new SvnLogParallelParser((processor, symbols) -> new SvnLogScanner(processor, symbols) {
+			@Override
+			public void parse(InputStream logFileStream) {
+				throw new AssertionError("Byte range parsed as a stream");
+			}
+		}, 3).parse(logFile);
+
+		assertEquals(500, actual.getTotalNumberOfCommits());
+		assertEquals(expected.getAuthors(), actual.getAuthors());
+		for (String author : expected.getAuthors()) {
+			assertEquals(expected.getStatsFor(author).commits, actual.getStatsFor(author).commits);
+			assertEquals(expected.getStatsFor(author).pathsInCommits, actual.getStatsFor(author).pathsInCommits);
+			assertEquals(expected.getStatsFor(author).msgLength, actual.getStatsFor(author).msgLength);
+		}
+	}
+
+	@Test
+	public void testParse_noLogEntries() throws Exception {
+		File logFile = tmp.newFile("empty.xml");
+		try (PrintWriter out = new PrintWriter(logFile, "UTF-8")) {
+			out.println("<?xml version='1.0' encoding='UTF-8'?><log></log>");
+		}
+		assertEquals(0, new SvnLogParallelParser(SvnLogParser::new, 2).parse(logFile).getTotalNumberOfCommits());
+	}
+
+	private File writeLogFile(int entries) throws Exception {
+		File logFile = tmp.newFile("log.xml");
+		try (PrintWriter out = new PrintWriter(logFile, "UTF-8")) {
+			out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			out.println("<log>");
+			for (int i = entries; i > 0; i--) {
+				out.println("<logentry\n   revision=\"" + i + "\">");
+				out.println("<author>author" + (i % 7) + "</author>");
+				out.println("<date>2017-06-" + String.format("%02d", 1 + i % 28) + "T" + String.format("%02d", i % 24)
+						+ ":04:04.132787Z</date>");
+				out.println("<paths>");
+				for (int j = 0; j <= i % 3; j++) {
+					out.println("<path action=\"" + "MADR".charAt(j) + "\" kind=\"file\">/trunk/src/File" + j
+							+ (j == 1 ? ".java" : ".c") + "</path>");
+				}
+				out.println("</paths>");
+				out.println("<msg>Commit &lt;" + i + "&gt; éè</msg>");
+				out.println("</logentry>");
+			}
+			out.println("</log>");
+		}
+		return logFile;
+	}
+}
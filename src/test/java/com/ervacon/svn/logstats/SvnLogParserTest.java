@@ -37,13 +37,13 @@ public class SvnLogParserTest {
 		SvnLogEntry entry = entryProcessor.getLogEntries().get(0);
 		assertEquals(21955, entry.revision);
 		assertEquals("johnc", entry.author);
-		assertEquals(2003, entry.date.get(ChronoField.YEAR));
-		assertEquals(6, entry.date.get(ChronoField.MONTH_OF_YEAR));
-		assertEquals(7, entry.date.get(ChronoField.DAY_OF_MONTH));
-		assertEquals(12, entry.date.get(ChronoField.HOUR_OF_DAY));
-		assertEquals(4, entry.date.get(ChronoField.MINUTE_OF_HOUR));
-		assertEquals(4, entry.date.get(ChronoField.SECOND_OF_MINUTE));
-		assertEquals(132787000, entry.date.get(ChronoField.NANO_OF_SECOND));
+		assertEquals(2003, entry.getDate().get(ChronoField.YEAR));
+		assertEquals(6, entry.getDate().get(ChronoField.MONTH_OF_YEAR));
+		assertEquals(7, entry.getDate().get(ChronoField.DAY_OF_MONTH));
+		assertEquals(12, entry.getDate().get(ChronoField.HOUR_OF_DAY));
+		assertEquals(4, entry.getDate().get(ChronoField.MINUTE_OF_HOUR));
+		assertEquals(4, entry.getDate().get(ChronoField.SECOND_OF_MINUTE));
+		assertEquals(132787000, entry.getDate().get(ChronoField.NANO_OF_SECOND));
 		assertEquals(2, entry.paths.size());
 		assertEquals(PathAction.A, entry.paths.get(0).action);
 		assertEquals(PathKind.FILE, entry.paths.get(0).kind);
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static com.ervacon.svn.logstats.SvnLogCursorParserTest.assertSameEntries;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.List;
+import javax.xml.stream.XMLStreamException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SvnLogScannerTest {
+
+	private static final String SPECIAL_CONTENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n<log>\r\n"
+			+ "<logentry revision=\"4\">\r\n<author>jo &amp; co</author>\r\n<date>2017-06-07T12:04:04.132787Z</date>\r\n"
+			+ "<paths>\r\n<path copyfrom-path=\"/x\" kind=\"dir\" action=\"D\" copyfrom-rev=\"1\"> /trunk/a&lt;b </path>\r\n"
+			+ "<path\r\n action='R'\r\n kind='file'>/trunk/été.txt</path></paths>\r\n"
+			+ "<msg>line 1\r\nline 2 &#x41;&#65;€</msg>\r\n</logentry>\r\n"
+			+ "<logentry revision=\"3\"><author>unexpected</author><date>2017-06-06T01:00:00.000000Z</date>"
+			+ "<msg><![CDATA[cdata <msg>]]></msg><revprops><property name='x'>y</property></revprops></logentry>"
+			+ "<logentry revision=\"2\"><date>2017-06-06T01:00:00.000000Z</date><paths/><msg/></logentry>\n"
+			+ "<logentry revision=\"1\"><!-- comment --><author>c</author><date>2017-06-05T01:00:00Z</date>"
+			+ "<msg></msg></logentry>\n"
+			+ "</log>";
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testSvnLogFileParsing() throws Exception {
+		File logFile = writeLogFile(Util.readClassPathResource("/sampleSvnLogFile.xml"));
+		assertSameEntries(parse(new SvnLogParser(new MockSvnLogEntryProcessor()), logFile),
+				parse(new SvnLogScanner(new MockSvnLogEntryProcessor()), logFile));
+	}
+
+	@Test
+	public void testSvnLogFileParsing_specialContent() throws Exception {
+		File logFile = writeLogFile(SPECIAL_CONTENT);
+		List<SvnLogEntry> entries = parse(new SvnLogScanner(new MockSvnLogEntryProcessor()), logFile);
+		assertSameEntries(parse(new SvnLogParser(new MockSvnLogEntryProcessor()), logFile), entries);
+		assertEquals(4, entries.size());
+		assertEquals("jo & co", entries.get(0).author);
+		assertEquals("/trunk/a<b", entries.get(0).paths.get(0).path);
+		assertEquals("/trunk/été.txt", entries.get(0).paths.get(1).path);
+		assertEquals("line 1\nline 2 AA€", entries.get(0).msg);
+		assertEquals("cdata <msg>", entries.get(1).msg);
+		assertEquals("", entries.get(2).msg);
+	}
+
+	@Test
+	public void testSvnLogFileParsing_excludeMessages() throws Exception {
+		String sample = Util.readClassPathResource("/sampleSvnLogFile.xml");
+		String sampleEntries = sample.substring(sample.indexOf("<log>") + 5, sample.indexOf("</log>"));
+		File logFile = writeLogFile(SPECIAL_CONTENT.replace("</log>", sampleEntries + "</log>"));
+		List<SvnLogEntry> expected = parse(new SvnLogParser(new MockSvnLogEntryProcessor()), logFile);
+		for (SvnLogParser parser : new SvnLogParser[] { new SvnLogParser(new MockSvnLogEntryProcessor()),
+				new SvnLogCursorParser(new MockSvnLogEntryProcessor()), new SvnLogScanner(new MockSvnLogEntryProcessor()) }) {
+			parser.setIncludeMessages(false);
+			List<SvnLogEntry> entries = parse(parser, logFile);
+			assertEquals(expected.size(), entries.size());
+			for (int i = 0; i < entries.size(); i++) {
+				assertNull(entries.get(i).msg);
+				assertEquals(expected.get(i).getMessageLength(), entries.get(i).getMessageLength());
+			}
+		}
+	}
+
+	@Test
+	public void testSvnLogFileParsing_smallWindow() throws Exception {
+		File logFile = writeLogFile(SPECIAL_CONTENT);
+		assertSameEntries(parse(new SvnLogParser(new MockSvnLogEntryProcessor()), logFile),
+				parse(new SvnLogScanner(new MockSvnLogEntryProcessor(), 400), logFile));
+	}
+
+	@Test
+	public void testSvnLogFileParsing_otherEncoding() throws Exception {
+		File logFile = tmp.newFile();
+		try (OutputStream out = new FileOutputStream(logFile)) {
+			out.write(SPECIAL_CONTENT.replace("UTF-8", "UTF-16").getBytes("UTF-16"));
+		}
+		assertEquals(4, parse(new SvnLogScanner(new MockSvnLogEntryProcessor()), logFile).size());
+	}
+
+	@Test
+	public void testSvnLogFileParsing_noLogEntries() throws Exception {
+		File logFile = writeLogFile("<?xml version='1.0' encoding='UTF-8'?><log></log>");
+		assertEquals(0, parse(new SvnLogScanner(new MockSvnLogEntryProcessor()), logFile).size());
+	}
+
+	@Test(expected = XMLStreamException.class)
+	public void testSvnLogFileParsing_badXml() throws Exception {
+		parse(new SvnLogScanner(new MockSvnLogEntryProcessor()), writeLogFile("this is not xml"));
+	}
+
+	@Test(expected = XMLStreamException.class)
+	public void testSvnLogFileParsing_truncated() throws Exception {
+		parse(new SvnLogScanner(new MockSvnLogEntryProcessor()), writeLogFile(SPECIAL_CONTENT.substring(0, 600)));
+	}
+
+	@Test
+	public void testSvnLogFileParsing_authorEntities() throws Exception {
+		File logFile = writeLogFile("<log><logentry revision=\"1\"><author>ren&#233; &amp; co</author>"
+				+ "<date>2017-06-07T12:04:04.132787Z</date><msg>Test</msg></logentry></log>");
+		assertEquals("ren\u00e9 & co", parse(new SvnLogScanner(new MockSvnLogEntryProcessor()), logFile).get(0).author);
+	}
+
+	@Test(expected = XMLStreamException.class)
+	public void testSvnLogFileParsing_unknownEntityInAuthor() throws Exception {
+		// handed to the regular parser, which reports the undeclared entity
+		parse(new SvnLogScanner(new MockSvnLogEntryProcessor()), writeLogFile("<log><logentry revision=\"1\">"
+				+ "<author>jo &unknown; co</author><date>2017-06-07T12:04:04.132787Z</date></logentry></log>"));
+	}
+
+	private File writeLogFile(String content) throws Exception {
+		File logFile = tmp.newFile();
+		try (OutputStream out = new FileOutputStream(logFile)) {
+			out.write(content.getBytes(UTF_8));
+		}
+		return logFile;
+	}
+
+	private List<SvnLogEntry> parse(SvnLogParser parser, File logFile) throws Exception {
+		parser.parse(logFile);
+		return ((MockSvnLogEntryProcessor) parser.entryProcessor).getLogEntries();
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import static com.ervacon.svn.logstats.SvnAuthorStatsTest.newLogEntry;
+import com.ervacon.svn.logstats.SpaceSaving.Counter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SvnLogStatsSnapshotTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testSaveAndLoad() throws Exception {
+		ZonedDateTime now = ZonedDateTime.now();
+		SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator();
+		SvnLogEntry logEntry = newLogEntry("john", now, "Test", "Afile1.c", "Mfile2.h");
+		logEntry.revision = 42;
+		aggregator.process(logEntry);
+		aggregator.process(newLogEntry("jane", now.minusDays(1), null, "Dfile3"));
+
+		File snapshotFile = new File(tmp.getRoot(), "snapshot");
+		SvnLogStatsSnapshot.save(aggregator, snapshotFile);
+		SvnLogEntryAggregator loaded = SvnLogStatsSnapshot.load(snapshotFile);
+
+		assertEquals(42, loaded.getLastRevision());
+		assertEquals(aggregator.getAuthors(), loaded.getAuthors());
+		SvnAuthorStats stats = loaded.getStatsFor("john");
+		assertEquals(1, stats.commits);
+		assertArrayEquals(aggregator.getStatsFor("john").commitsPerHour, stats.commitsPerHour);
+		assertEquals(aggregator.getStatsFor("john").getFileTypesInCommits(), stats.getFileTypesInCommits());
+		assertArrayEquals(aggregator.getStatsFor("john").actionCounts, stats.actionCounts);
+		assertEquals(now, stats.getFirstCommit());
+		assertEquals(1, loaded.getStatsFor("jane").emptyMsgs);
+
+		// the loaded aggregator can be updated further
+		logEntry = newLogEntry("john", now.plusDays(1), "Test", "Mfile1.c");
+		logEntry.revision = 43;
+		loaded.process(logEntry);
+		assertEquals(43, loaded.getLastRevision());
+		assertEquals(2, loaded.getStatsFor("john").commits);
+		assertEquals(now.plusDays(1), loaded.getStatsFor("john").getLastCommit());
+	}
+
+	@Test
+	public void testUpdate_parallel() throws Exception {
+		File logFile = tmp.newFile("log.xml");
+		SvnLogGenerator generator = new SvnLogGenerator();
+		generator.setEntries(600);
+		generator.generate(logFile);
+		Function<SvnLogSymbols, SvnLogEntryAggregator> newAggregator = symbols -> {
+			SvnLogEntryAggregator aggregator = new SvnLogEntryAggregator(symbols);
+			aggregator.setDirectoryHotspots(new DirectoryHotspots());
+			aggregator.setCoChanges(new CoChangeAnalyzer());
+			return aggregator;
+		};
+
+		SvnLogEntryAggregator expected = newAggregator.apply(new SvnLogSymbols());
+		new SvnLogParser(expected).parse(logFile);
+		int half = expected.getLastRevision() / 2;
+
+		// snapshot the first half of the log, and add the second half using parallel parsing
+		SvnLogEntryFilter filter = new SvnLogEntryFilter();
+		filter.setRevisions(0, half);
+		SvnLogEntryAggregator aggregator = newAggregator.apply(new SvnLogSymbols());
+		SvnLogParser parser = new SvnLogParser(aggregator);
+		parser.setFilter(filter);
+		parser.parse(logFile);
+		File snapshotFile = new File(tmp.getRoot(), "snapshot");
+		SvnLogStatsSnapshot.save(aggregator, snapshotFile);
+		SvnLogEntryAggregator snapshot = SvnLogStatsSnapshot.load(snapshotFile);
+		assertEquals(newAggregator.apply(new SvnLogSymbols()).getAnalysesDescription(),
+				snapshot.getAnalysesDescription());
+
+		SvnLogEntryFilter rest = new SvnLogEntryFilter();
+		rest.setRevisions(half + 1, Integer.MAX_VALUE);
+		BiFunction<SvnLogEntryProcessor, SvnLogSymbols, SvnLogParser> newParser = (processor, symbols) -> {
+			SvnLogParser restParser = new SvnLogCursorParser(processor, symbols);
+			restParser.setFilter(rest);
+			return restParser;
+		};
+		snapshot.merge(new SvnLogParallelParser(newParser, newAggregator, 3).parse(logFile));
+
+		assertEquals(600, snapshot.getTotalNumberOfCommits());
+		assertEquals(expected.getLastRevision(), snapshot.getLastRevision());
+		assertEquals(expected.getCoChanges().getCommits(), snapshot.getCoChanges().getCommits());
+		Counter<String> expectedTop = expected.getDirectoryHotspots().getTopDirectories(1).get(0);
+		Counter<String> actualTop = snapshot.getDirectoryHotspots().getTopDirectories(1).get(0);
+		assertEquals(expectedTop.key, actualTop.key);
+		assertEquals(expectedTop.count, actualTop.count);
+
+		// parallel results without the analyses of the snapshot cannot be merged into it
+		try {
+			snapshot.merge(new SvnLogParallelParser(newParser, SvnLogEntryAggregator::new, 3).parse(logFile));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		assertEquals(600, snapshot.getTotalNumberOfCommits());
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoad_notASnapshot() throws Exception {
+		File snapshotFile = tmp.newFile();
+		try (FileOutputStream out = new FileOutputStream(snapshotFile)) {
+			out.write("this is not a snapshot".getBytes("UTF-8"));
+		}
+		SvnLogStatsSnapshot.load(snapshotFile);
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class SymbolTableTest {
+
+	@Test
+	public void testIntern() {
+		SymbolTable symbols = new SymbolTable();
+		assertEquals(0, symbols.intern("java"));
+		assertEquals(1, symbols.intern("c"));
+		assertEquals(0, symbols.intern(new StringBuilder("java")));
+		assertEquals(1, symbols.intern("/trunk/File.c", 12, 13));
+		assertEquals(2, symbols.intern("/trunk/File.h", 12, 13));
+		assertEquals(3, symbols.size());
+		assertEquals("java", symbols.get(0));
+		assertEquals("h", symbols.get(2));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGet_unknown() {
+		new SymbolTable().get(0);
+	}
+
+	@Test
+	public void testIntern_manySymbols() {
+		SymbolTable symbols = new SymbolTable();
+		for (int i = 0; i < 10000; i++) {
+			assertEquals(i, symbols.intern("symbol" + i));
+		}
+		for (int i = 0; i < 10000; i++) {
+			assertEquals(i, symbols.intern("symbol" + i));
+			assertEquals("symbol" + i, symbols.get(i));
+		}
+	}
+
+	@Test
+	public void testIntern_concurrently() throws Exception {
+		SymbolTable symbols = new SymbolTable();
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			threads.add(new Thread(() -> {
+				for (int j = 0; j < 5000; j++) {
+					String symbol = "symbol" + j;
+					assertEquals(symbol, symbols.get(symbols.intern(symbol)));
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(5000, symbols.size());
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		SvnLogSymbols symbols = new SvnLogSymbols();
+		symbols.authors.intern("john");
+		symbols.authors.intern("jane");
+		symbols.getExtensionId("/trunk/File.java");
+
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bout)) {
+			out.writeObject(symbols);
+		}
+		SvnLogSymbols copy;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()))) {
+			copy = (SvnLogSymbols) in.readObject();
+		}
+		assertEquals(2, copy.authors.size());
+		assertEquals(1, copy.authors.intern("jane"));
+		assertEquals("java", copy.extensions.get(0));
+		assertEquals(1, copy.extensions.intern("c"));
+	}
+
+	@Test
+	public void testSvnLogSymbols() {
+		SvnLogSymbols symbols = new SvnLogSymbols();
+		assertEquals("java", symbols.extensions.get(symbols.getExtensionId("/trunk/src/Test.java")));
+		assertEquals(SvnLogSymbols.OTHER_EXTENSION, symbols.extensions.get(symbols.getExtensionId("/trunk/Makefile")));
+	}
+}
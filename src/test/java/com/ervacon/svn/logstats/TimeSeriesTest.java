@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ervacon.svn.logstats;
+
+import com.ervacon.svn.logstats.TimeSeries.Resolution;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TimeSeriesTest {
+
+	@Test
+	public void testResolution() {
+		for (LocalDate date = LocalDate.of(1960, 1, 1); date.getYear() < 2040; date = date.plusDays(1)) {
+			int day = Resolution.DAY.toBucket(date.toEpochDay());
+			assertEquals(date, Resolution.DAY.toDate(day));
+			int week = Resolution.WEEK.toBucket(date.toEpochDay());
+			assertEquals(date.minusDays(date.getDayOfWeek().getValue() - 1), Resolution.WEEK.toDate(week));
+			int month = Resolution.MONTH.toBucket(date.toEpochDay());
+			assertEquals(date.withDayOfMonth(1), Resolution.MONTH.toDate(month));
+		}
+		assertEquals("2017-06", Resolution.MONTH.getLabel(Resolution.MONTH.toBucket(LocalDate.of(2017, 6, 7).toEpochDay())));
+	}
+
+	@Test
+	public void testAdd() {
+		TimeSeries series = new TimeSeries(Resolution.DAY);
+		assertTrue(series.isEmpty());
+
+		// newest first, like svn log, spanning 25 years
+		ZonedDateTime date = ZonedDateTime.of(2020, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+		for (int i = 0; i < 25 * 365; i++) {
+			series.add(Util.toTimestamp(date.minusDays(i)), 2, 10);
+		}
+		series.add(Util.toTimestamp(date.plusDays(1)), 1, 5);
+		series.add(Util.NO_TIMESTAMP, 1, 5);
+
+		int lastDay = (int) date.toLocalDate().toEpochDay() + 1;
+		assertEquals(lastDay, series.getLastBucket());
+		assertEquals(lastDay - 25 * 365, series.getFirstBucket());
+		assertEquals(1, series.getCommits(lastDay));
+		assertEquals(1, series.getPaths(lastDay));
+		assertEquals(5, series.getMsgLength(lastDay));
+		assertEquals(1, series.getCommits(lastDay - 1));
+		assertEquals(2, series.getPaths(lastDay - 1));
+		assertEquals(0, series.getCommits(lastDay + 1));
+		assertEquals(0, series.getCommits(series.getFirstBucket() - 1));
+	}
+
+	@Test
+	public void testMergeAndResample() {
+		ZonedDateTime date = ZonedDateTime.of(2017, 6, 7, 12, 0, 0, 0, ZoneOffset.UTC);
+		TimeSeries a = new TimeSeries(Resolution.DAY);
+		TimeSeries b = new TimeSeries(Resolution.DAY);
+		for (int i = 0; i < 100; i++) {
+			(i % 2 == 0 ? a : b).add(Util.toTimestamp(date.plusDays(i)), 1, 1);
+		}
+		TimeSeries ab = new TimeSeries(Resolution.DAY);
+		ab.merge(a);
+		ab.merge(b);
+		TimeSeries ba = new TimeSeries(Resolution.DAY);
+		ba.merge(b);
+		ba.merge(a);
+		for (int bucket = ab.getFirstBucket() - 1; bucket <= ab.getLastBucket() + 1; bucket++) {
+			assertEquals(ab.getCommits(bucket), ba.getCommits(bucket));
+		}
+		assertEquals(0, a.getCommits(a.getFirstBucket() + 1)); // merged series are not modified
+
+		TimeSeries months = ab.resample(Resolution.MONTH);
+		int june = Resolution.MONTH.toBucket(date.toLocalDate().toEpochDay());
+		assertEquals(june, months.getFirstBucket());
+		assertEquals(24, months.getCommits(june));
+		assertEquals(31, months.getCommits(june + 1));
+
+		TimeSeries monthly = new TimeSeries(Resolution.MONTH);
+		monthly.merge(a);
+		monthly.merge(b);
+		assertEquals(24, monthly.getCommits(june));
+		assertEquals(100, monthly.getPaths(june) + monthly.getPaths(june + 1) + monthly.getPaths(june + 2)
+				+ monthly.getPaths(june + 3));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testResample_finer() {
+		new TimeSeries(Resolution.MONTH).resample(Resolution.DAY);
+	}
+}
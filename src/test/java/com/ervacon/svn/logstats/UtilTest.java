@@ -18,6 +18,7 @@ package com.ervacon.svn.logstats;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import java.time.ZonedDateTime;
 import org.junit.Test;
 
 public class UtilTest {
@@ -34,4 +35,27 @@ public class UtilTest {
 		assertEquals("java", Util.getFilenameExtension("/foo/bar-1.0.0/Test.java"));
 		assertNull(Util.getFilenameExtension("/foo/bar/startup"));
 	}
+
+	@Test
+	public void testParseSvnTimestamp() {
+		String[] dates = {"2003-06-07T12:04:04.132787Z", "1970-01-01T00:00:00.000000Z", "1969-12-31T23:59:59.999999Z",
+				"2000-02-29T23:59:59.5Z", "2017-12-31T01:02:03Z", "1601-03-01T00:00:00.000001Z"};
+		for (String date : dates) {
+			ZonedDateTime expected = ZonedDateTime.parse(date);
+			assertEquals(date, Util.toTimestamp(expected), Util.parseSvnTimestamp(date));
+			assertEquals(date, expected, Util.toZonedDateTime(Util.parseSvnTimestamp(date)));
+		}
+		assertEquals(Util.parseSvnTimestamp("2003-06-07T12:04:04.132787Z"),
+				Util.parseSvnTimestamp("\n  2003-06-07T12:04:04.132787Z  \n"));
+	}
+
+	@Test
+	public void testParseSvnTimestamp_otherFormat() {
+		String[] dates = {"", "2003-06-07", "2003-06-07T12:04:04.132787+02:00", "2003-06-07T12:04:04.132787123Z",
+				"2003-06-07T12:04:04.Z", "2003-02-29T12:04:04.132787Z", "2003-13-07T12:04:04.132787Z",
+				"2003-06-07T24:04:04.132787Z", "2003-06-07 12:04:04.132787Z", "2003-06-07T12:04:0x.132787Z"};
+		for (String date : dates) {
+			assertEquals(date, Util.NO_TIMESTAMP, Util.parseSvnTimestamp(date));
+		}
+	}
 }